@@ -0,0 +1,43 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the method of the {@code Activity} or the target {@code Fragment} called
+ * when the dialog is canceled.<br/>
+ * Parameters are optional, and each of them must be one of the
+ * {@code com.simplealertdialog.SimpleAlertDialog} and {@code android.view.View}.
+ * The method must not be {@code private} or {@code static}.
+ *
+ * @author Soichiro Kashima
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.METHOD)
+public @interface OnDialogCancel {
+
+    /**
+     * Request code of the dialog.
+     *
+     * @return Request code
+     */
+    int requestCode() default 0;
+}
@@ -0,0 +1,371 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog.compiler;
+
+import com.simplealertdialog.annotation.OnDialogCancel;
+import com.simplealertdialog.annotation.OnDialogItemClick;
+import com.simplealertdialog.annotation.OnDialogNegative;
+import com.simplealertdialog.annotation.OnDialogNeutral;
+import com.simplealertdialog.annotation.OnDialogPositive;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates the {@code com.simplealertdialog.DialogCallbackDispatcher} for each class
+ * that has the methods annotated with the annotations in the
+ * {@code com.simplealertdialog.annotation} package.<br/>
+ * The generated class is named {@code <Host>$$SimpleAlertDialogDispatcher} and calls the
+ * annotated methods directly with a {@code switch} on the event and the request code,
+ * so the dialogs do not need reflection or {@code instanceof} checks to find them.
+ * Each host must return it from {@code DialogCallbackDispatcher.Provider}, which is checked here,
+ * because the dialogs never look up the generated class by its name.
+ *
+ * @author Soichiro Kashima
+ */
+public final class DialogDispatcherProcessor extends AbstractProcessor {
+
+    static final String SUFFIX = "$$SimpleAlertDialogDispatcher";
+
+    private static final String DISPATCHER = "com.simplealertdialog.DialogCallbackDispatcher";
+    private static final String PROVIDER = DISPATCHER + ".Provider";
+    private static final String PROVIDER_METHOD = "getDialogCallbackDispatcher";
+    private static final String DIALOG = "com.simplealertdialog.SimpleAlertDialog";
+    private static final String VIEW = "android.view.View";
+
+    private static final int POSITIVE = 0;
+    private static final int NEGATIVE = 1;
+    private static final int NEUTRAL = 2;
+    private static final int CANCEL = 3;
+    private static final int ITEM_CLICK = 4;
+
+    private static final List<Class<? extends Annotation>> ANNOTATIONS;
+    private static final String[] EVENTS = {
+            "EVENT_POSITIVE", "EVENT_NEGATIVE", "EVENT_NEUTRAL", "EVENT_CANCEL",
+            "EVENT_ITEM_CLICK",
+    };
+
+    static {
+        ANNOTATIONS = new ArrayList<Class<? extends Annotation>>();
+        ANNOTATIONS.add(OnDialogPositive.class);
+        ANNOTATIONS.add(OnDialogNegative.class);
+        ANNOTATIONS.add(OnDialogNeutral.class);
+        ANNOTATIONS.add(OnDialogCancel.class);
+        ANNOTATIONS.add(OnDialogItemClick.class);
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        Set<String> types = new LinkedHashSet<String>();
+        for (Class<? extends Annotation> annotation : ANNOTATIONS) {
+            types.add(annotation.getCanonicalName());
+        }
+        return types;
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations,
+                           final RoundEnvironment roundEnv) {
+        Map<TypeElement, List<Binding>> hosts = new LinkedHashMap<TypeElement, List<Binding>>();
+        for (int event = 0; event < ANNOTATIONS.size(); event++) {
+            for (Element e : roundEnv.getElementsAnnotatedWith(ANNOTATIONS.get(event))) {
+                Binding binding = parse(e, event);
+                if (binding == null) {
+                    continue;
+                }
+                TypeElement host = (TypeElement) e.getEnclosingElement();
+                List<Binding> bindings = hosts.get(host);
+                if (bindings == null) {
+                    bindings = new ArrayList<Binding>();
+                    hosts.put(host, bindings);
+                }
+                if (contains(bindings, binding)) {
+                    error(e, "Another method is already annotated with @%s(requestCode = %d)",
+                            ANNOTATIONS.get(event).getSimpleName(), binding.requestCode);
+                    continue;
+                }
+                bindings.add(binding);
+            }
+        }
+        for (Map.Entry<TypeElement, List<Binding>> entry : hosts.entrySet()) {
+            TypeElement host = entry.getKey();
+            checkProvider(host);
+            write(host, entry.getValue(), findParent(host, hosts));
+        }
+        return true;
+    }
+
+    private Binding parse(final Element e, final int event) {
+        String annotation = ANNOTATIONS.get(event).getSimpleName();
+        if (e.getKind() != ElementKind.METHOD) {
+            error(e, "@%s can be used only for methods", annotation);
+            return null;
+        }
+        Set<Modifier> modifiers = e.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.STATIC)) {
+            error(e, "@%s method must not be private or static", annotation);
+            return null;
+        }
+        Element host = e.getEnclosingElement();
+        if (host.getKind() != ElementKind.CLASS || host.getModifiers().contains(Modifier.PRIVATE)) {
+            error(e, "@%s method must be in a non-private class", annotation);
+            return null;
+        }
+        ExecutableElement method = (ExecutableElement) e;
+        List<String> args = new ArrayList<String>();
+        for (VariableElement parameter : method.getParameters()) {
+            TypeMirror type = parameter.asType();
+            String name = processingEnv.getTypeUtils().erasure(type).toString();
+            if (DIALOG.equals(name)) {
+                args.add("dialog");
+            } else if (VIEW.equals(name)) {
+                args.add("view");
+            } else if (event == ITEM_CLICK && type.getKind() == TypeKind.INT) {
+                args.add("position");
+            } else {
+                error(parameter, "Unsupported parameter type for @%s: %s", annotation, type);
+                return null;
+            }
+        }
+        return new Binding(event, requestCode(e, event), method.getSimpleName().toString(), args);
+    }
+
+    private static int requestCode(final Element e, final int event) {
+        switch (event) {
+            case POSITIVE:
+                return e.getAnnotation(OnDialogPositive.class).requestCode();
+            case NEGATIVE:
+                return e.getAnnotation(OnDialogNegative.class).requestCode();
+            case NEUTRAL:
+                return e.getAnnotation(OnDialogNeutral.class).requestCode();
+            case CANCEL:
+                return e.getAnnotation(OnDialogCancel.class).requestCode();
+            default:
+                return e.getAnnotation(OnDialogItemClick.class).requestCode();
+        }
+    }
+
+    private static boolean contains(final List<Binding> bindings, final Binding binding) {
+        for (Binding b : bindings) {
+            if (b.event == binding.event && b.requestCode == binding.requestCode) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks that the host provides its own dispatcher,
+     * since the one inherited from the superclass does not know the methods of the host.
+     */
+    private void checkProvider(final TypeElement host) {
+        Types types = processingEnv.getTypeUtils();
+        TypeElement provider = processingEnv.getElementUtils().getTypeElement(PROVIDER);
+        boolean implemented = provider != null && types.isAssignable(
+                types.erasure(host.asType()), types.erasure(provider.asType()));
+        boolean declared = false;
+        for (Element e : host.getEnclosedElements()) {
+            if (e.getKind() == ElementKind.METHOD
+                    && e.getSimpleName().contentEquals(PROVIDER_METHOD)
+                    && ((ExecutableElement) e).getParameters().isEmpty()) {
+                declared = true;
+                break;
+            }
+        }
+        if (!implemented || !declared) {
+            String dispatcher = dispatcherName(host);
+            error(host, "%s must implement DialogCallbackDispatcher.Provider"
+                            + " and return new %s() from %s()", host.getSimpleName(),
+                    dispatcher.substring(dispatcher.lastIndexOf('.') + 1), PROVIDER_METHOD);
+        }
+    }
+
+    /**
+     * Finds the nearest superclass that has its own dispatcher, generated in this round
+     * or compiled before.
+     */
+    private TypeElement findParent(final TypeElement host,
+                                   final Map<TypeElement, List<Binding>> hosts) {
+        TypeMirror type = host.getSuperclass();
+        while (type.getKind() == TypeKind.DECLARED) {
+            TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+            String name = element.getQualifiedName().toString();
+            if (name.startsWith("android.") || name.startsWith("java.")) {
+                break;
+            }
+            if (hosts.containsKey(element) || processingEnv.getElementUtils()
+                    .getTypeElement(dispatcherName(element)) != null) {
+                return element;
+            }
+            type = element.getSuperclass();
+        }
+        return null;
+    }
+
+    private String dispatcherName(final TypeElement host) {
+        return processingEnv.getElementUtils().getBinaryName(host) + SUFFIX;
+    }
+
+    private void write(final TypeElement host, final List<Binding> bindings,
+                       final TypeElement parent) {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(host);
+        String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        String qualifiedName = dispatcherName(host);
+        String className = packageName.length() == 0
+                ? qualifiedName : qualifiedName.substring(packageName.length() + 1);
+        String hostType = processingEnv.getTypeUtils().erasure(host.asType()).toString();
+        String parentType = parent == null ? null : dispatcherName(parent);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("// Generated code from SimpleAlertDialog. Do not modify!\n");
+        if (packageName.length() != 0) {
+            sb.append("package ").append(packageName).append(";\n\n");
+        }
+        sb.append("public final class ").append(className).append("\n");
+        sb.append("        implements ").append(DISPATCHER)
+                .append("<").append(hostType).append("> {\n\n");
+        if (parentType != null) {
+            sb.append("    private final ").append(parentType).append(" mParent = new ")
+                    .append(parentType).append("();\n\n");
+        }
+
+        int events = 0;
+        for (Binding binding : bindings) {
+            events |= 1 << binding.event;
+        }
+        sb.append("    @Override\n");
+        sb.append("    public int getEvents() {\n");
+        sb.append("        return ");
+        String separator = "";
+        for (int event = 0; event < EVENTS.length; event++) {
+            if ((events & 1 << event) != 0) {
+                sb.append(separator).append(EVENTS[event]);
+                separator = " | ";
+            }
+        }
+        if (parentType != null) {
+            sb.append(separator).append("mParent.getEvents()");
+        }
+        sb.append(";\n");
+        sb.append("    }\n\n");
+
+        sb.append("    @Override\n");
+        sb.append("    public boolean dispatch(final ").append(hostType)
+                .append(" host, final int event,\n");
+        sb.append("            final ").append(DIALOG)
+                .append(" dialog, final int requestCode,\n");
+        sb.append("            final ").append(VIEW).append(" view, final int position) {\n");
+        sb.append("        switch (event) {\n");
+        for (int event = 0; event < EVENTS.length; event++) {
+            if ((events & 1 << event) == 0) {
+                continue;
+            }
+            sb.append("            case ").append(EVENTS[event]).append(":\n");
+            sb.append("                switch (requestCode) {\n");
+            for (Binding binding : bindings) {
+                if (binding.event != event) {
+                    continue;
+                }
+                sb.append("                    case ").append(binding.requestCode).append(":\n");
+                sb.append("                        host.").append(binding.method).append("(");
+                for (int i = 0; i < binding.args.size(); i++) {
+                    if (0 < i) {
+                        sb.append(", ");
+                    }
+                    sb.append(binding.args.get(i));
+                }
+                sb.append(");\n");
+                sb.append("                        return true;\n");
+            }
+            sb.append("                }\n");
+            sb.append("                break;\n");
+        }
+        sb.append("        }\n");
+        if (parentType != null) {
+            sb.append("        return mParent.dispatch(host, event, dialog, requestCode, view,"
+                    + " position);\n");
+        } else {
+            sb.append("        return false;\n");
+        }
+        sb.append("    }\n");
+        sb.append("}\n");
+
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, host);
+            Writer writer = file.openWriter();
+            try {
+                writer.write(sb.toString());
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            error(host, "Unable to write the dispatcher for %s: %s", hostType, e.getMessage());
+        }
+    }
+
+    private void error(final Element e, final String format, final Object... args) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                String.format(format, args), e);
+    }
+
+    /**
+     * Annotated method of the host.
+     */
+    private static final class Binding {
+        final int event;
+        final int requestCode;
+        final String method;
+        final List<String> args;
+
+        Binding(final int event, final int requestCode, final String method,
+                final List<String> args) {
+            this.event = event;
+            this.requestCode = requestCode;
+            this.method = method;
+            this.args = args;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog.compiler;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+public class DialogDispatcherProcessorTest extends TestCase {
+
+    private static final JavaFileObject VIEW = source("android.view.View",
+            "package android.view; public class View {}");
+    private static final JavaFileObject DIALOG = source("com.simplealertdialog.SimpleAlertDialog",
+            "package com.simplealertdialog; public class SimpleAlertDialog {}");
+    private static final JavaFileObject DISPATCHER = source(
+            "com.simplealertdialog.DialogCallbackDispatcher",
+            "package com.simplealertdialog;\n"
+                    + "public interface DialogCallbackDispatcher<T> {\n"
+                    + "    int EVENT_POSITIVE = 1;\n"
+                    + "    int EVENT_NEGATIVE = 1 << 1;\n"
+                    + "    int EVENT_NEUTRAL = 1 << 2;\n"
+                    + "    int EVENT_CANCEL = 1 << 3;\n"
+                    + "    int EVENT_ITEM_CLICK = 1 << 4;\n"
+                    + "    interface Provider {\n"
+                    + "        DialogCallbackDispatcher<?> getDialogCallbackDispatcher();\n"
+                    + "    }\n"
+                    + "    int getEvents();\n"
+                    + "    boolean dispatch(T host, int event, SimpleAlertDialog dialog,\n"
+                    + "            int requestCode, android.view.View view, int position);\n"
+                    + "}");
+
+    private File mOutput;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mOutput = File.createTempFile("sad", "");
+        assertTrue(mOutput.delete());
+        assertTrue(mOutput.mkdirs());
+    }
+
+    public void testGeneratesDispatcher() throws IOException {
+        List<Diagnostic<? extends JavaFileObject>> errors = compile(source("test.Host",
+                "package test;\n"
+                        + "import com.simplealertdialog.DialogCallbackDispatcher;\n"
+                        + "import com.simplealertdialog.SimpleAlertDialog;\n"
+                        + "import com.simplealertdialog.annotation.*;\n"
+                        + "public class Host implements DialogCallbackDispatcher.Provider {\n"
+                        + "    public DialogCallbackDispatcher<?>"
+                        + " getDialogCallbackDispatcher() {\n"
+                        + "        return new Host$$SimpleAlertDialogDispatcher();\n"
+                        + "    }\n"
+                        + "    @OnDialogPositive(requestCode = 42)\n"
+                        + "    void ok(SimpleAlertDialog d) {}\n"
+                        + "    @OnDialogItemClick(requestCode = 42) void item(int which) {}\n"
+                        + "}"));
+        assertTrue(errors.toString(), errors.isEmpty());
+        assertTrue(new File(mOutput, "test/Host" + DialogDispatcherProcessor.SUFFIX + ".class")
+                .exists());
+    }
+
+    public void testGeneratesDispatcherForNestedClass() throws IOException {
+        List<Diagnostic<? extends JavaFileObject>> errors = compile(source("test.Outer",
+                "package test;\n"
+                        + "import com.simplealertdialog.DialogCallbackDispatcher;\n"
+                        + "import com.simplealertdialog.annotation.*;\n"
+                        + "public class Outer {\n"
+                        + "    public static class Inner\n"
+                        + "            implements DialogCallbackDispatcher.Provider {\n"
+                        + "        public DialogCallbackDispatcher<?>"
+                        + " getDialogCallbackDispatcher() {\n"
+                        + "            return new Outer$Inner$$SimpleAlertDialogDispatcher();\n"
+                        + "        }\n"
+                        + "        @OnDialogCancel void canceled() {}\n"
+                        + "    }\n"
+                        + "}"));
+        assertTrue(errors.toString(), errors.isEmpty());
+        assertTrue(new File(mOutput,
+                "test/Outer$Inner" + DialogDispatcherProcessor.SUFFIX + ".class").exists());
+    }
+
+    public void testMissingProvider() throws IOException {
+        assertEquals(1, compile(source("test.Host",
+                "package test;\n"
+                        + "import com.simplealertdialog.annotation.*;\n"
+                        + "public class Host {\n"
+                        + "    @OnDialogPositive void ok() {}\n"
+                        + "}")).size());
+    }
+
+    public void testProviderInheritedFromSuperclass() throws IOException {
+        assertEquals(1, compile(source("test.Host",
+                "package test;\n"
+                        + "import com.simplealertdialog.DialogCallbackDispatcher;\n"
+                        + "import com.simplealertdialog.annotation.*;\n"
+                        + "public class Host {\n"
+                        + "    public static class Base\n"
+                        + "            implements DialogCallbackDispatcher.Provider {\n"
+                        + "        public DialogCallbackDispatcher<?>"
+                        + " getDialogCallbackDispatcher() {\n"
+                        + "            return null;\n"
+                        + "        }\n"
+                        + "    }\n"
+                        + "    public static class Sub extends Base {\n"
+                        + "        @OnDialogPositive void ok() {}\n"
+                        + "    }\n"
+                        + "}")).size());
+    }
+
+    public void testPrivateMethod() throws IOException {
+        assertEquals(1, compile(source("test.Host",
+                "package test;\n"
+                        + "import com.simplealertdialog.annotation.*;\n"
+                        + "public class Host {\n"
+                        + "    @OnDialogPositive private void ok() {}\n"
+                        + "}")).size());
+    }
+
+    public void testUnsupportedParameter() throws IOException {
+        assertEquals(1, compile(source("test.Host",
+                "package test;\n"
+                        + "import com.simplealertdialog.annotation.*;\n"
+                        + "public class Host {\n"
+                        + "    @OnDialogPositive void ok(int which) {}\n"
+                        + "}")).size());
+    }
+
+    public void testDuplicateRequestCode() throws IOException {
+        assertEquals(1, compile(source("test.Host",
+                "package test;\n"
+                        + "import com.simplealertdialog.DialogCallbackDispatcher;\n"
+                        + "import com.simplealertdialog.annotation.*;\n"
+                        + "public class Host implements DialogCallbackDispatcher.Provider {\n"
+                        + "    public DialogCallbackDispatcher<?>"
+                        + " getDialogCallbackDispatcher() {\n"
+                        + "        return new Host$$SimpleAlertDialogDispatcher();\n"
+                        + "    }\n"
+                        + "    @OnDialogNeutral(requestCode = 1) void a() {}\n"
+                        + "    @OnDialogNeutral(requestCode = 1) void b() {}\n"
+                        + "}")).size());
+    }
+
+    private List<Diagnostic<? extends JavaFileObject>> compile(final JavaFileObject host)
+            throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+        fileManager.setLocation(StandardLocation.CLASS_OUTPUT, Arrays.asList(mOutput));
+        fileManager.setLocation(StandardLocation.SOURCE_OUTPUT, Arrays.asList(mOutput));
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                null, null, Arrays.asList(VIEW, DIALOG, DISPATCHER, host));
+        task.setProcessors(Arrays.asList(new DialogDispatcherProcessor()));
+        task.call();
+        fileManager.close();
+        List<Diagnostic<? extends JavaFileObject>> errors =
+                new ArrayList<Diagnostic<? extends JavaFileObject>>();
+        for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+            if (d.getKind() == Diagnostic.Kind.ERROR) {
+                errors.add(d);
+            }
+        }
+        return errors;
+    }
+
+    private static JavaFileObject source(final String className, final String code) {
+        return new SimpleJavaFileObject(URI.create("string:///"
+                + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+                return code;
+            }
+        };
+    }
+}
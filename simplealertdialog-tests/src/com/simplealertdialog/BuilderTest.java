@@ -214,6 +214,16 @@ public class BuilderTest extends InstrumentationTestCase {
         assertTrue(args.getBoolean(SimpleAlertDialog.ARG_USE_ADAPTER, false));
     }
 
+    public void testBuilderSetUseLargeList() {
+        SimpleAlertDialogFragment.Builder builder = new SimpleAlertDialogFragment.Builder();
+        Bundle args = builder.createArguments();
+        assertNotNull(args);
+        assertFalse(args.getBoolean(SimpleAlertDialog.ARG_USE_LARGE_LIST, false));
+        builder.setUseLargeList(true);
+        args = builder.createArguments();
+        assertTrue(args.getBoolean(SimpleAlertDialog.ARG_USE_LARGE_LIST, false));
+    }
+
     public void testBuilderSetNegativeButtonByResources() {
         SimpleAlertDialogFragment.Builder builder = new SimpleAlertDialogFragment.Builder();
         Bundle args = builder.createArguments();
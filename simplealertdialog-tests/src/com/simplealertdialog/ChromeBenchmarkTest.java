@@ -0,0 +1,268 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.PixelFormat;
+import android.graphics.drawable.Drawable;
+import android.os.SystemClock;
+import android.test.InstrumentationTestCase;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+/**
+ * Benchmarks for building the dialog chrome.<br/>
+ * Results are written to the log with the tag {@value #TAG}.
+ * This test case is testing internal methods including package private fields.
+ * Do not move this class to {@code .test} package.
+ */
+public class ChromeBenchmarkTest extends InstrumentationTestCase {
+
+    private static final String TAG = "ChromeBenchmark";
+    private static final int ITERATIONS = 500;
+
+    public void testReusedChromeKeepsBackground() {
+        Context context = getInstrumentation().getContext();
+        Drawable source = StyleCache.obtain(context, 0).backgroundFull;
+        assertNotNull(source);
+        View view = new View(context);
+        SimpleAlertDialog.setBackground(view, source);
+        Drawable background = view.getBackground();
+        assertNotSame(source, background);
+        assertSame(source.getConstantState(), background.getConstantState());
+        SimpleAlertDialog.setBackground(view, source);
+        assertSame(background, view.getBackground());
+    }
+
+    public void testSourceWithoutConstantStateIsNotShared() {
+        Context context = getInstrumentation().getContext();
+        Drawable source = new Drawable() {
+            @Override
+            public void draw(final Canvas canvas) {
+            }
+
+            @Override
+            public void setAlpha(final int alpha) {
+            }
+
+            @Override
+            public void setColorFilter(final ColorFilter cf) {
+            }
+
+            @Override
+            public int getOpacity() {
+                return PixelFormat.TRANSPARENT;
+            }
+        };
+        View view = new View(context);
+        SimpleAlertDialog.setBackground(view, source);
+        assertNotSame(source, view.getBackground());
+    }
+
+    public void testInflationTime() {
+        Context context = getInstrumentation().getContext();
+        LayoutInflater inflater = LayoutInflater.from(context);
+        // Warm up class loading and resource caches for both paths
+        inflater.inflate(R.layout.sad__dialog_simple, null);
+        newMessageDialogChrome(context).build();
+
+        long start = SystemClock.elapsedRealtime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            inflater.inflate(R.layout.sad__dialog_simple, null);
+        }
+        long inflated = SystemClock.elapsedRealtime() - start;
+
+        start = SystemClock.elapsedRealtime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            newMessageDialogChrome(context).build();
+        }
+        long built = SystemClock.elapsedRealtime() - start;
+
+        Log.i(TAG, "Chrome creation (" + ITERATIONS + " times): inflated=" + inflated
+                + "ms, built=" + built + "ms");
+    }
+
+    public void testBuiltChromeHasOnlyUsedSections() {
+        DialogChrome chrome = newMessageDialogChrome(getInstrumentation().getContext()).build();
+        assertSame(chrome.header, chrome.root.findViewById(R.id.header));
+        assertSame(chrome.title, chrome.root.findViewById(R.id.title));
+        assertSame(chrome.message, chrome.root.findViewById(R.id.message));
+        assertSame(chrome.buttonPositive, chrome.root.findViewById(R.id.button_positive));
+        assertSame(chrome.buttonPositiveLabel,
+                chrome.root.findViewById(R.id.button_positive_label));
+        assertNull(chrome.icon);
+        assertNull(chrome.view);
+        assertNull(chrome.list);
+        assertNull(chrome.buttonNeutral);
+        assertNull(chrome.buttonNegative);
+        assertNull(chrome.root.findViewById(R.id.icon));
+        assertNull(chrome.root.findViewById(R.id.list));
+    }
+
+    public void testInflatedChromeHasAllSections() {
+        View root = LayoutInflater.from(getInstrumentation().getContext())
+                .inflate(R.layout.sad__dialog_simple, null);
+        DialogChrome chrome = DialogChrome.find(root);
+        assertSame(root, chrome.root);
+        assertSame(chrome.icon, root.findViewById(R.id.icon));
+        assertSame(chrome.bar, root.findViewById(R.id.bar));
+        assertSame(chrome.list, root.findViewById(R.id.list));
+        assertSame(chrome.buttonNegativeLabel, root.findViewById(R.id.button_negative_label));
+        assertSame(chrome.buttonDividerNeutral, root.findViewById(R.id.button_divider_neutral));
+    }
+
+    public void testMeasureAndLayoutTime() {
+        Context context = getInstrumentation().getContext();
+        View weighted = newWeightedLinearLayoutChrome(context);
+        View single = newMessageDialogChrome(context).build().root;
+        ((TextView) single.findViewById(R.id.message)).setText("Hello world!");
+        int widthMeasureSpec = View.MeasureSpec.makeMeasureSpec(480, View.MeasureSpec.EXACTLY);
+        int heightMeasureSpec = View.MeasureSpec.makeMeasureSpec(800, View.MeasureSpec.AT_MOST);
+
+        long linear = measureAndLayout(weighted, widthMeasureSpec, heightMeasureSpec);
+        long custom = measureAndLayout(single, widthMeasureSpec, heightMeasureSpec);
+
+        Log.i(TAG, "Measure and layout (" + ITERATIONS + " times): LinearLayout(weighted)="
+                + linear + "ms, SimpleAlertDialogLayout=" + custom + "ms");
+        assertEquals(weighted.getMeasuredHeight(), single.getMeasuredHeight());
+    }
+
+    public void testFlexibleChildTakesRemainingHeight() {
+        Context context = getInstrumentation().getContext();
+        SimpleAlertDialogLayout layout = new SimpleAlertDialogLayout(context);
+        View header = new View(context);
+        View content = new View(context);
+        View footer = new View(context);
+        layout.addView(header, new SimpleAlertDialogLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, 100));
+        layout.addView(content, new SimpleAlertDialogLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, 0, true));
+        layout.addView(footer, new SimpleAlertDialogLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, 50));
+        layout.measure(View.MeasureSpec.makeMeasureSpec(480, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(400, View.MeasureSpec.EXACTLY));
+        layout.layout(0, 0, 480, 400);
+        assertEquals(250, content.getMeasuredHeight());
+        assertEquals(100, content.getTop());
+        assertEquals(350, footer.getTop());
+    }
+
+    public void testPaddingIsCountedOnceForFixedChildren() {
+        Context context = getInstrumentation().getContext();
+        SimpleAlertDialogLayout layout = new SimpleAlertDialogLayout(context);
+        layout.setPadding(0, 10, 0, 10);
+        View header = new View(context);
+        View footer = new View(context);
+        layout.addView(header, new SimpleAlertDialogLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, 100));
+        // View with wrap_content takes all of the height allowed by AT_MOST
+        layout.addView(footer, new SimpleAlertDialogLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        layout.measure(View.MeasureSpec.makeMeasureSpec(480, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(180, View.MeasureSpec.AT_MOST));
+        layout.layout(0, 0, 480, layout.getMeasuredHeight());
+        assertEquals(60, footer.getMeasuredHeight());
+        assertEquals(180, layout.getMeasuredHeight());
+        assertEquals(110, footer.getTop());
+    }
+
+    public void testPaddingIsCountedOnceForFlexibleChild() {
+        Context context = getInstrumentation().getContext();
+        SimpleAlertDialogLayout layout = new SimpleAlertDialogLayout(context);
+        layout.setPadding(0, 10, 0, 10);
+        View header = new View(context);
+        View content = new View(context);
+        layout.addView(header, new SimpleAlertDialogLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, 100));
+        layout.addView(content, new SimpleAlertDialogLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT, true));
+        layout.measure(View.MeasureSpec.makeMeasureSpec(480, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(180, View.MeasureSpec.AT_MOST));
+        assertEquals(60, content.getMeasuredHeight());
+        assertEquals(180, layout.getMeasuredHeight());
+    }
+
+    private static long measureAndLayout(final View root, final int widthMeasureSpec,
+                                         final int heightMeasureSpec) {
+        long start = SystemClock.elapsedRealtime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            forceLayout(root);
+            root.measure(widthMeasureSpec, heightMeasureSpec);
+            root.layout(0, 0, root.getMeasuredWidth(), root.getMeasuredHeight());
+        }
+        return SystemClock.elapsedRealtime() - start;
+    }
+
+    private static void forceLayout(final View view) {
+        view.forceLayout();
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); i++) {
+                forceLayout(group.getChildAt(i));
+            }
+        }
+    }
+
+    /**
+     * Creates the same structure as the former sad__dialog_simple layout
+     * that used the weighted {@code LinearLayout}.
+     */
+    private static View newWeightedLinearLayoutChrome(final Context context) {
+        View built = newMessageDialogChrome(context).build().root;
+        LinearLayout root = new LinearLayout(context);
+        root.setOrientation(LinearLayout.VERTICAL);
+        LinearLayout body = new LinearLayout(context);
+        body.setOrientation(LinearLayout.VERTICAL);
+        ViewGroup builtBody = (ViewGroup) built.findViewById(R.id.body);
+        ViewGroup builtRoot = (ViewGroup) built;
+        View header = built.findViewById(R.id.header);
+        View bar = built.findViewById(R.id.bar_wrapper);
+        View content = builtBody.getChildAt(0);
+        View dividerTop = built.findViewById(R.id.button_divider_top);
+        View footer = built.findViewById(R.id.footer);
+        int dividerHeight = dividerTop.getLayoutParams().height;
+        builtBody.removeAllViews();
+        builtRoot.removeAllViews();
+        root.addView(header, new LinearLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        root.addView(bar, new LinearLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        root.addView(body, new LinearLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        body.addView(content, new LinearLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, 0, 1));
+        body.addView(dividerTop, new LinearLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, dividerHeight));
+        body.addView(footer, new LinearLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        ((TextView) root.findViewById(R.id.message)).setText("Hello world!");
+        return root;
+    }
+
+    private static DialogChromeBuilder newMessageDialogChrome(final Context context) {
+        return new DialogChromeBuilder(context)
+                .setTitle(true, false)
+                .setMessage(true)
+                .setButtons(true, false, false);
+    }
+}
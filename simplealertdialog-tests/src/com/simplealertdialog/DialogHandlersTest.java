@@ -0,0 +1,161 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import android.test.InstrumentationTestCase;
+import android.view.View;
+
+/**
+ * This test case is testing internal methods including package private fields.
+ * Do not move this class to {@code .test} package.
+ */
+public class DialogHandlersTest extends InstrumentationTestCase {
+
+    static class Host {
+        int deleted;
+        int selected = -1;
+    }
+
+    static class SubHost extends Host {
+    }
+
+    static class StaticHandler implements DialogHandlers.Handler<Host> {
+        @Override
+        public void handle(Host host, SimpleAlertDialog dialog, View view, int which) {
+        }
+    }
+
+    class InnerHandler implements DialogHandlers.Handler<Host> {
+        @Override
+        public void handle(Host host, SimpleAlertDialog dialog, View view, int which) {
+        }
+    }
+
+    private static final DialogHandlers.Handler<Host> DELETE = new DialogHandlers.Handler<Host>() {
+        @Override
+        public void handle(Host host, SimpleAlertDialog dialog, View view, int which) {
+            host.deleted++;
+        }
+    };
+
+    private static final DialogHandlers.Handler<Host> SELECT = new DialogHandlers.Handler<Host>() {
+        @Override
+        public void handle(Host host, SimpleAlertDialog dialog, View view, int which) {
+            host.selected = which;
+        }
+    };
+
+    private SimpleAlertDialog mDialog;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        DialogHandlers.clear();
+        mDialog = new SimpleAlertDialog(getInstrumentation().getContext());
+    }
+
+    public void testOfReturnsSameHandlers() {
+        assertSame(DialogHandlers.of(Host.class), DialogHandlers.of(Host.class));
+        assertEquals(1, DialogHandlers.size());
+        DialogHandlers.remove(Host.class);
+        assertEquals(0, DialogHandlers.size());
+    }
+
+    public void testDispatchByRequestCode() {
+        DialogHandlers.of(Host.class)
+                .onPositive(1, DELETE)
+                .onItemClick(2, SELECT);
+        Host host = new Host();
+
+        new DispatchTable(null, host, 1).onPositiveButtonClicked(mDialog);
+        new DispatchTable(null, host, 2).onItemClick(mDialog, 5);
+        // Not registered
+        new DispatchTable(null, host, 2).onPositiveButtonClicked(mDialog);
+        new DispatchTable(null, host, 1).onCancel(mDialog);
+
+        assertEquals(1, host.deleted);
+        assertEquals(5, host.selected);
+    }
+
+    public void testRecreatedHostReceivesEvents() {
+        DialogHandlers.of(Host.class).onPositive(1, DELETE);
+        Host before = new Host();
+        new DispatchTable(null, before, 1).onPositiveButtonClicked(mDialog);
+        // Same handlers are used for the new instance after the configuration change
+        Host after = new Host();
+        new DispatchTable(null, after, 1).onPositiveButtonClicked(mDialog);
+        assertEquals(1, before.deleted);
+        assertEquals(1, after.deleted);
+    }
+
+    public void testSuperclassHandlers() {
+        DialogHandlers.of(Host.class).onNegative(3, DELETE);
+        SubHost host = new SubHost();
+        new DispatchTable(host, null, 3).onNegativeButtonClicked(mDialog);
+        assertEquals(1, host.deleted);
+    }
+
+    public void testItemClickListenerIsDetected() {
+        Host host = new Host();
+        assertFalse(new DispatchTable(null, host, 2).anyImplements(DispatchTable.ON_ITEM_CLICK));
+        DialogHandlers.of(Host.class).onItemClick(2, SELECT);
+        assertTrue(new DispatchTable(null, host, 2).anyImplements(DispatchTable.ON_ITEM_CLICK));
+    }
+
+    public void testRemoveRequestCode() {
+        DialogHandlers<Host> handlers = DialogHandlers.of(Host.class)
+                .onPositive(1, DELETE)
+                .onCancel(1, DELETE);
+        handlers.remove(1);
+        assertEquals(0, handlers.getEvents());
+        Host host = new Host();
+        new DispatchTable(null, host, 1).onPositiveButtonClicked(mDialog);
+        assertEquals(0, host.deleted);
+    }
+
+    public void testStaticHandlersAreAccepted() {
+        DialogHandlers.of(Host.class)
+                .onPositive(1, DELETE)
+                .onNegative(1, new StaticHandler());
+        assertFalse(DialogHandlers.hasOuterInstance(DELETE.getClass()));
+        assertFalse(DialogHandlers.hasOuterInstance(StaticHandler.class));
+    }
+
+    public void testHandlersHoldingOuterInstanceAreRejected() {
+        DialogHandlers.Handler<Host> anonymous = new DialogHandlers.Handler<Host>() {
+            @Override
+            public void handle(Host host, SimpleAlertDialog dialog, View view, int which) {
+                // Uses the test case instance
+                mDialog.dismiss();
+            }
+        };
+        DialogHandlers<Host> handlers = DialogHandlers.of(Host.class);
+        try {
+            handlers.onPositive(1, anonymous);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            handlers.onCancel(1, new InnerHandler());
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        assertEquals(0, handlers.getEvents());
+    }
+}
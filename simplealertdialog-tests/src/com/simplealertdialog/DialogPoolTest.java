@@ -0,0 +1,95 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import android.app.Application;
+import android.content.Context;
+import android.test.InstrumentationTestCase;
+import android.view.View;
+
+/**
+ * This test case is testing internal methods including package private fields.
+ * Do not move this class to {@code .test} package.
+ */
+public class DialogPoolTest extends InstrumentationTestCase {
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        DialogPool.enable(getApplication(), 1);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        DialogPool.disable();
+        super.tearDown();
+    }
+
+    public void testDisabledPoolKeepsNothing() {
+        DialogPool.disable();
+        Context context = getInstrumentation().getContext();
+        assertFalse(DialogPool.recycle(new SimpleAlertDialog(context)));
+        assertNull(DialogPool.obtain(context, 0));
+        assertEquals(0, DialogPool.size());
+    }
+
+    public void testRecycledDialogIsReused() {
+        Context context = getInstrumentation().getContext();
+        SimpleAlertDialog dialog = new SimpleAlertDialog(context);
+        dialog.setView(new View(context));
+        int hit = DialogPool.getHitCount();
+        assertTrue(DialogPool.recycle(dialog));
+        assertEquals(1, DialogPool.size());
+        assertNull(dialog.getView());
+
+        assertSame(dialog, DialogPool.obtain(context, 0));
+        assertEquals(hit + 1, DialogPool.getHitCount());
+        assertEquals(0, DialogPool.size());
+    }
+
+    public void testDialogsAreKeptForEachTheme() {
+        Context context = getInstrumentation().getContext();
+        DialogPool.recycle(new SimpleAlertDialog(context, android.R.style.Theme_Dialog));
+        int miss = DialogPool.getMissCount();
+        assertNull(DialogPool.obtain(context, 0));
+        assertEquals(miss + 1, DialogPool.getMissCount());
+        assertNotNull(DialogPool.obtain(context, android.R.style.Theme_Dialog));
+    }
+
+    public void testEvictionWhenFull() {
+        Context context = getInstrumentation().getContext();
+        int eviction = DialogPool.getEvictionCount();
+        assertTrue(DialogPool.recycle(new SimpleAlertDialog(context)));
+        assertFalse(DialogPool.recycle(new SimpleAlertDialog(context)));
+        assertEquals(1, DialogPool.size());
+        assertEquals(eviction + 1, DialogPool.getEvictionCount());
+    }
+
+    public void testClearByContext() {
+        Context context = getInstrumentation().getContext();
+        DialogPool.recycle(new SimpleAlertDialog(context));
+        int eviction = DialogPool.getEvictionCount();
+        DialogPool.clear(context);
+        assertEquals(0, DialogPool.size());
+        assertEquals(eviction + 1, DialogPool.getEvictionCount());
+        assertNull(DialogPool.obtain(context, 0));
+    }
+
+    private Application getApplication() {
+        return (Application) getInstrumentation().getTargetContext().getApplicationContext();
+    }
+}
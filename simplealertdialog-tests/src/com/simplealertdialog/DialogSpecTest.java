@@ -0,0 +1,226 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import android.os.Bundle;
+import android.os.Parcel;
+import android.os.SystemClock;
+import android.test.InstrumentationTestCase;
+import android.util.Log;
+
+/**
+ * Benchmark results are written to the log with the tag {@value #TAG}.
+ * This test case is testing internal methods including package private fields.
+ * Do not move this class to {@code .test} package.
+ */
+public class DialogSpecTest extends InstrumentationTestCase {
+
+    private static final String TAG = "DialogSpecBenchmark";
+    private static final int ITERATIONS = 1000;
+    private static final int APP_RES_ID = 0x7f020123;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        ItemStore.clear();
+    }
+
+    public void testArgumentsShareSpec() {
+        DialogSpec spec = newBuilder().build();
+        Bundle args1 = spec.toArguments();
+        args1.putBoolean(SimpleAlertDialog.ARG_QUEUED, true);
+        Bundle args2 = spec.toArguments();
+        assertNotSame(args1, args2);
+        assertFalse(args2.containsKey(SimpleAlertDialog.ARG_QUEUED));
+        assertSame(spec, DialogSpec.fromArguments(args2));
+        assertEquals(1, DialogSpec.requestCodeOf(args2));
+    }
+
+    public void testLegacyArgumentsAreAccepted() {
+        Bundle args = newBuilder().createArguments();
+        assertTrue(args.containsKey(SimpleAlertDialog.ARG_TITLE));
+        assertFalse(args.containsKey(SimpleAlertDialog.ARG_SPEC));
+        DialogSpec spec = DialogSpec.fromArguments(args);
+        assertEquals("Hello world!", spec.title.toString());
+        assertEquals(android.R.string.ok, spec.positiveButtonResId);
+        assertEquals(1, DialogSpec.requestCodeOf(args));
+    }
+
+    public void testParcel() {
+        DialogSpec spec = restore(newBuilder()
+                .setTheme(android.R.style.Theme_Dialog)
+                .setItems(new CharSequence[]{"A", "B"},
+                        new int[]{android.R.drawable.ic_menu_add, APP_RES_ID})
+                .setSingleChoiceCheckedItem(1)
+                .setEditText("Hello", 1)
+                .setRequestCode(-2)
+                .setCancelable(false)
+                .build());
+        assertEquals(android.R.style.Theme_Dialog, spec.themeResId);
+        assertEquals("Hello world!", spec.title.toString());
+        assertEquals("Hello world!", spec.message.toString());
+        assertNull(spec.positiveButton);
+        assertEquals(android.R.string.ok, spec.positiveButtonResId);
+        assertEquals(android.R.string.cancel, spec.negativeButtonResId);
+        assertEquals(0, spec.neutralButtonResId);
+        assertEquals(2, spec.items.length);
+        assertEquals("B", spec.items[1].toString());
+        assertEquals(android.R.drawable.ic_menu_add, spec.icons[0]);
+        assertEquals(APP_RES_ID, spec.icons[1]);
+        assertEquals(1, spec.singleChoiceCheckedItem);
+        assertTrue(spec.hasEditText);
+        assertEquals("Hello", spec.editTextInitialText.toString());
+        assertEquals(1, spec.editTextInputType);
+        assertEquals(-2, spec.getRequestCode());
+        assertFalse(spec.cancelable);
+        assertTrue(spec.canceledOnTouchOutside);
+        assertFalse(spec.useView);
+    }
+
+    public void testParcelDefaults() {
+        DialogSpec spec = restore(new SimpleAlertDialogFragment.Builder().build());
+        assertNull(spec.title);
+        assertEquals(0, spec.titleResId);
+        assertNull(spec.items);
+        assertEquals(0, spec.getRequestCode());
+        assertTrue(spec.cancelable);
+        assertTrue(spec.canceledOnTouchOutside);
+        assertEquals(-1, spec.singleChoiceCheckedItem);
+        assertFalse(spec.hasEditText);
+    }
+
+    public void testParcelSizeAndTime() {
+        SimpleAlertDialog.Builder<SimpleAlertDialogFragment, ?> builder = newBuilder();
+        Bundle legacy = builder.createArguments();
+        Bundle compact = builder.build().toArguments();
+        // Warm up for both forms
+        saveAndRestore(legacy);
+        saveAndRestore(compact);
+
+        long start = SystemClock.elapsedRealtime();
+        int legacySize = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            legacySize = saveAndRestore(legacy);
+        }
+        long legacyTime = SystemClock.elapsedRealtime() - start;
+
+        start = SystemClock.elapsedRealtime();
+        int compactSize = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            compactSize = saveAndRestore(compact);
+        }
+        long compactTime = SystemClock.elapsedRealtime() - start;
+
+        Log.i(TAG, "Parcel size: legacy=" + legacySize + "bytes, compact=" + compactSize
+                + "bytes");
+        Log.i(TAG, "Save and restore (" + ITERATIONS + " times): legacy=" + legacyTime
+                + "ms, compact=" + compactTime + "ms");
+        assertTrue(compactSize < legacySize);
+    }
+
+    public void testBuildCopiesArrays() {
+        CharSequence[] items = new CharSequence[]{"A", "B"};
+        SimpleAlertDialog.Builder<SimpleAlertDialogFragment, ?> builder = newBuilder()
+                .setItems(items);
+        DialogSpec spec = builder.build();
+        items[0] = "C";
+        assertEquals("A", spec.items[0]);
+        assertEquals("A", restore(spec).items[0].toString());
+    }
+
+    public void testLargeItemsAreStoredForEachFragment() {
+        CharSequence[] items = new CharSequence[10000];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = "Item " + i;
+        }
+        DialogSpec spec = newBuilder().setItems(items).build();
+        String handle1 = ItemStore.getHandle(spec.toArguments());
+        String handle2 = ItemStore.getHandle(spec.toArguments());
+        assertNotNull(handle1);
+        assertNotNull(handle2);
+        assertFalse(handle1.equals(handle2));
+        assertEquals(2, ItemStore.size());
+    }
+
+    public void testStoredPayloadIsNotParceled() {
+        CharSequence[] items = new CharSequence[10000];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = "Item " + i;
+        }
+        DialogSpec spec = restore(newBuilder().setItems(items).setEditText("Hello", 1).build());
+        assertNull(spec.items);
+        assertNull(spec.editTextInitialText);
+        assertTrue(spec.hasEditText);
+    }
+
+    public void testCreateTime() {
+        SimpleAlertDialog.Builder<SimpleAlertDialogFragment, ?> builder = newBuilder();
+        DialogSpec spec = builder.build();
+        // Warm up for both paths
+        builder.createArguments();
+        spec.toArguments();
+
+        long start = SystemClock.elapsedRealtime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            builder.createArguments();
+        }
+        long created = SystemClock.elapsedRealtime() - start;
+
+        start = SystemClock.elapsedRealtime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            spec.toArguments();
+        }
+        long copied = SystemClock.elapsedRealtime() - start;
+
+        Log.i(TAG, "Arguments (" + ITERATIONS + " times): legacy=" + created
+                + "ms, spec=" + copied + "ms");
+    }
+
+    private static DialogSpec restore(final DialogSpec spec) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            spec.writeToParcel(parcel, 0);
+            parcel.setDataPosition(0);
+            return DialogSpec.CREATOR.createFromParcel(parcel);
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private static int saveAndRestore(final Bundle args) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            parcel.writeBundle(args);
+            int size = parcel.dataSize();
+            parcel.setDataPosition(0);
+            Bundle restored = parcel.readBundle(DialogSpec.class.getClassLoader());
+            DialogSpec.fromArguments(restored);
+            return size;
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private static SimpleAlertDialog.Builder<SimpleAlertDialogFragment, ?> newBuilder() {
+        return new SimpleAlertDialogFragment.Builder()
+                .setTitle("Hello world!")
+                .setMessage("Hello world!")
+                .setPositiveButton(android.R.string.ok)
+                .setNegativeButton(android.R.string.cancel)
+                .setRequestCode(1);
+    }
+}
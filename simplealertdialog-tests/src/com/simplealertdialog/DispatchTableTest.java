@@ -0,0 +1,87 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import android.test.InstrumentationTestCase;
+import android.view.View;
+
+/**
+ * This test case is testing internal methods including package private fields.
+ * Do not move this class to {@code .test} package.
+ */
+public class DispatchTableTest extends InstrumentationTestCase {
+
+    private static class Host implements SimpleAlertDialog.OnClickListener,
+            SimpleAlertDialog.OnCancelListener {
+        int positive;
+        int negative;
+        int cancel;
+        int lastRequestCode;
+
+        @Override
+        public void onDialogPositiveButtonClicked(SimpleAlertDialog dialog, int requestCode, View view) {
+            positive++;
+            lastRequestCode = requestCode;
+        }
+
+        @Override
+        public void onDialogNegativeButtonClicked(SimpleAlertDialog dialog, int requestCode, View view) {
+            negative++;
+            lastRequestCode = requestCode;
+        }
+
+        @Override
+        public void onDialogCancel(SimpleAlertDialog dialog, int requestCode, View view) {
+            cancel++;
+            lastRequestCode = requestCode;
+        }
+    }
+
+    public void testResolve() {
+        int mask = DispatchTable.resolve(Host.class);
+        assertEquals(DispatchTable.ON_CLICK | DispatchTable.ON_CANCEL, mask);
+        assertEquals(0, DispatchTable.resolve(Object.class));
+    }
+
+    public void testEventsAreSentToResolvedTargets() {
+        Host fragment = new Host();
+        Host activity = new Host();
+        DispatchTable table = new DispatchTable(fragment, activity, 5);
+        SimpleAlertDialog dialog = new SimpleAlertDialog(getInstrumentation().getContext());
+
+        table.onPositiveButtonClicked(dialog);
+        table.onNegativeButtonClicked(dialog);
+        table.onCancel(dialog);
+        // Not implemented by the hosts
+        table.onNeutralButtonClicked(dialog);
+        table.onItemClick(dialog, 0);
+
+        assertEquals(1, fragment.positive);
+        assertEquals(1, fragment.negative);
+        assertEquals(1, fragment.cancel);
+        assertEquals(1, activity.positive);
+        assertEquals(5, activity.lastRequestCode);
+        assertFalse(table.anyImplements(DispatchTable.ON_ITEM_CLICK));
+    }
+
+    public void testNoTargets() {
+        DispatchTable table = new DispatchTable(null, new Object(), 0);
+        assertFalse(table.fragmentImplements(DispatchTable.ON_CLICK));
+        assertFalse(table.activityImplements(DispatchTable.ON_CLICK));
+        table.onCancel(new SimpleAlertDialog(getInstrumentation().getContext()));
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import android.test.InstrumentationTestCase;
+
+/**
+ * This test case is testing internal methods including package private fields.
+ * Do not move this class to {@code .test} package.
+ */
+public class DuplicateEventTest extends InstrumentationTestCase {
+
+    private SimpleAlertDialog mDialog;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mDialog = new SimpleAlertDialog(getInstrumentation().getContext());
+    }
+
+    public void testOnlyFirstEventIsDispatched() {
+        int suppressed = SimpleAlertDialog.getSuppressedEventCount();
+        assertTrue(mDialog.tryDispatch());
+        assertFalse(mDialog.tryDispatch());
+        assertFalse(mDialog.tryDispatch());
+        assertEquals(suppressed + 2, SimpleAlertDialog.getSuppressedEventCount());
+    }
+
+    public void testShowingAgainAcceptsEvent() {
+        assertTrue(mDialog.tryDispatch());
+        mDialog.onStart();
+        assertTrue(mDialog.tryDispatch());
+    }
+
+    public void testResetAcceptsEvent() {
+        assertTrue(mDialog.tryDispatch());
+        mDialog.reset();
+        assertTrue(mDialog.tryDispatch());
+    }
+
+    public void testDialogsAreGatedSeparately() {
+        SimpleAlertDialog other = new SimpleAlertDialog(getInstrumentation().getContext());
+        assertTrue(mDialog.tryDispatch());
+        assertTrue(other.tryDispatch());
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import android.test.InstrumentationTestCase;
+import android.view.View;
+
+/**
+ * This test case is testing internal methods including package private fields.
+ * Do not move this class to {@code .test} package.
+ */
+public class GeneratedDispatchersTest extends InstrumentationTestCase {
+
+    static class Host implements DialogCallbackDispatcher.Provider {
+        int positive;
+        int item = -1;
+
+        @Override
+        public DialogCallbackDispatcher<?> getDialogCallbackDispatcher() {
+            return new Host$$SimpleAlertDialogDispatcher();
+        }
+
+        void onDelete(SimpleAlertDialog dialog) {
+            positive++;
+        }
+
+        void onItem(int which) {
+            item = which;
+        }
+    }
+
+    static class SubHost extends Host {
+    }
+
+    /**
+     * Same code as the annotation processor generates for
+     * {@code @OnDialogPositive(requestCode = 42)} and {@code @OnDialogItemClick(requestCode = 42)}.
+     */
+    public static final class Host$$SimpleAlertDialogDispatcher
+            implements DialogCallbackDispatcher<Host> {
+
+        @Override
+        public int getEvents() {
+            return EVENT_POSITIVE | EVENT_ITEM_CLICK;
+        }
+
+        @Override
+        public boolean dispatch(final Host host, final int event, final SimpleAlertDialog dialog,
+                                final int requestCode, final View view, final int position) {
+            switch (event) {
+                case EVENT_POSITIVE:
+                    switch (requestCode) {
+                        case 42:
+                            host.onDelete(dialog);
+                            return true;
+                    }
+                    break;
+                case EVENT_ITEM_CLICK:
+                    switch (requestCode) {
+                        case 42:
+                            host.onItem(position);
+                            return true;
+                    }
+                    break;
+            }
+            return false;
+        }
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        GeneratedDispatchers.clear();
+    }
+
+    public void testDispatcherIsCreatedOnce() {
+        DialogCallbackDispatcher<Object> dispatcher = GeneratedDispatchers.get(new Host());
+        assertTrue(dispatcher instanceof Host$$SimpleAlertDialogDispatcher);
+        assertSame(dispatcher, GeneratedDispatchers.get(new Host()));
+        assertEquals(1, GeneratedDispatchers.size());
+    }
+
+    public void testSuperclassDispatcher() {
+        assertTrue(GeneratedDispatchers.get(new SubHost())
+                instanceof Host$$SimpleAlertDialogDispatcher);
+    }
+
+    public void testNoDispatcher() {
+        assertNull(GeneratedDispatchers.get(null));
+        assertNull(GeneratedDispatchers.get(new Object()));
+        assertNull(GeneratedDispatchers.get(this));
+        // Classes without the provider are not cached
+        assertEquals(0, GeneratedDispatchers.size());
+    }
+
+    public void testEventsAreSentToAnnotatedMethods() {
+        Host activity = new Host();
+        DispatchTable table = new DispatchTable(null, activity, 42);
+        SimpleAlertDialog dialog = new SimpleAlertDialog(getInstrumentation().getContext());
+
+        assertTrue(table.anyImplements(DispatchTable.ON_ITEM_CLICK));
+        assertFalse(table.activityImplements(DispatchTable.ON_CLICK));
+        table.onPositiveButtonClicked(dialog);
+        table.onItemClick(dialog, 3);
+        // Not annotated
+        table.onNegativeButtonClicked(dialog);
+        table.onCancel(dialog);
+
+        assertEquals(1, activity.positive);
+        assertEquals(3, activity.item);
+    }
+
+    public void testOtherRequestCodeIsIgnored() {
+        Host activity = new Host();
+        DispatchTable table = new DispatchTable(null, activity, 7);
+        table.onPositiveButtonClicked(new SimpleAlertDialog(getInstrumentation().getContext()));
+        assertEquals(0, activity.positive);
+    }
+}
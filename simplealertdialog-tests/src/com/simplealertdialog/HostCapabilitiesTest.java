@@ -0,0 +1,78 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import android.os.SystemClock;
+import android.test.InstrumentationTestCase;
+import android.util.Log;
+
+import com.simplealertdialog.test.NormalActivity;
+import com.simplealertdialog.test.SampleNormalFragment;
+
+/**
+ * Results of the benchmark are written to the log with the tag {@value #TAG}.
+ * This test case is testing internal methods including package private fields.
+ * Do not move this class to {@code .test} package.
+ */
+public class HostCapabilitiesTest extends InstrumentationTestCase {
+
+    private static final String TAG = "HostCapabilities";
+    private static final int ITERATIONS = 100000;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        HostCapabilities.clear();
+    }
+
+    public void testSameMaskAsResolve() {
+        assertEquals(DispatchTable.resolve(NormalActivity.class),
+                HostCapabilities.get(NormalActivity.class));
+        assertEquals(DispatchTable.resolve(SampleNormalFragment.class),
+                HostCapabilities.get(SampleNormalFragment.class));
+        assertEquals(2, HostCapabilities.size());
+    }
+
+    public void testClassIsResolvedOnce() {
+        HostCapabilities.get(NormalActivity.class);
+        HostCapabilities.get(NormalActivity.class);
+        assertEquals(1, HostCapabilities.size());
+    }
+
+    public void testLookupTime() {
+        // Warm up
+        DispatchTable.resolve(NormalActivity.class);
+        HostCapabilities.get(NormalActivity.class);
+
+        int sink = 0;
+        long start = SystemClock.elapsedRealtime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += DispatchTable.resolve(NormalActivity.class);
+        }
+        long resolved = SystemClock.elapsedRealtime() - start;
+
+        start = SystemClock.elapsedRealtime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink -= HostCapabilities.get(NormalActivity.class);
+        }
+        long cached = SystemClock.elapsedRealtime() - start;
+
+        Log.i(TAG, "Capability lookup (" + ITERATIONS + " times): isAssignableFrom=" + resolved
+                + "ms, cached=" + cached + "ms");
+        assertEquals(0, sink);
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.simplealertdialog;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.res.Configuration;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.test.InstrumentationTestCase;
+import android.widget.FrameLayout;
+
+/**
+ * This test case is testing internal methods including package private fields.
+ * Do not move this class to {@code .test} package.
+ */
+public class IconCacheTest extends InstrumentationTestCase {
+
+    private static final int MAX_BYTES = 1024 * 1024;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        IconCache.setMaxBytes(MAX_BYTES);
+        IconCache.clear();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        IconCache.setMaxBytes(MAX_BYTES);
+        super.tearDown();
+    }
+
+    public void testSameIconSharesState() {
+        Context context = getInstrumentation().getContext();
+        int hit = IconCache.getHitCount();
+        int miss = IconCache.getMissCount();
+        Drawable first = IconCache.newIcon(context, android.R.drawable.ic_dialog_info);
+        Drawable second = IconCache.newIcon(context, android.R.drawable.ic_dialog_info);
+        assertNotSame(first, second);
+        assertSame(first.getConstantState(), second.getConstantState());
+        assertEquals(miss + 1, IconCache.getMissCount());
+        assertEquals(hit + 1, IconCache.getHitCount());
+        assertEquals(1, IconCache.size());
+        assertTrue(0 < IconCache.getSizeInBytes());
+        assertTrue(0 < IconCache.getHitRatio());
+    }
+
+    public void testNoIcon() {
+        assertNull(IconCache.newIcon(getInstrumentation().getContext(), 0));
+        assertEquals(0, IconCache.size());
+    }
+
+    public void testLeastRecentlyUsedIsEvicted() {
+        Context context = getInstrumentation().getContext();
+        IconCache.newIcon(context, android.R.drawable.ic_dialog_info);
+        IconCache.newIcon(context, android.R.drawable.ic_dialog_alert);
+        int bytes = IconCache.getSizeInBytes();
+        int eviction = IconCache.getEvictionCount();
+        IconCache.setMaxBytes(bytes - 1);
+        assertEquals(1, IconCache.size());
+        assertEquals(eviction + 1, IconCache.getEvictionCount());
+        assertTrue(IconCache.getSizeInBytes() < bytes);
+
+        // Info was the least recently used
+        int miss = IconCache.getMissCount();
+        IconCache.newIcon(context, android.R.drawable.ic_dialog_alert);
+        assertEquals(miss, IconCache.getMissCount());
+    }
+
+    public void testZeroMaxBytesDisablesCache() {
+        Context context = getInstrumentation().getContext();
+        IconCache.newIcon(context, android.R.drawable.ic_dialog_info);
+        IconCache.setMaxBytes(0);
+        assertEquals(0, IconCache.size());
+        assertEquals(0, IconCache.getSizeInBytes());
+        assertNotNull(IconCache.newIcon(context, android.R.drawable.ic_dialog_info));
+        assertEquals(0, IconCache.size());
+    }
+
+    public void testAdaptersShareIcons() {
+        int[] icons = new int[]{android.R.drawable.ic_dialog_info};
+        CharSequence[] items = new CharSequence[]{"Item"};
+        Context context = getInstrumentation().getContext();
+        FrameLayout parent = new FrameLayout(context);
+        new ItemAdapter(context, android.R.layout.simple_list_item_1, items, icons)
+                .getView(0, null, parent);
+        int miss = IconCache.getMissCount();
+        new ItemAdapter(context, android.R.layout.simple_list_item_1, items, icons)
+                .getView(0, null, parent);
+        assertEquals(miss, IconCache.getMissCount());
+    }
+
+    public void testNightModeHasItsOwnIcon() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            // Configuration context is not available
+            return;
+        }
+        Context context = getInstrumentation().getContext();
+        Context night = withNightMode(context);
+        int miss = IconCache.getMissCount();
+        IconCache.newIcon(context, android.R.drawable.ic_dialog_info);
+        IconCache.newIcon(night, android.R.drawable.ic_dialog_info);
+        assertEquals(miss + 2, IconCache.getMissCount());
+        assertEquals(2, IconCache.size());
+        // Both are kept without dropping each other
+        IconCache.newIcon(context, android.R.drawable.ic_dialog_info);
+        IconCache.newIcon(night, android.R.drawable.ic_dialog_info);
+        assertEquals(miss + 2, IconCache.getMissCount());
+    }
+
+    public void testPackagesDoNotCollide() {
+        final Context context = getInstrumentation().getContext();
+        Context other = new ContextWrapper(context) {
+            @Override
+            public String getPackageName() {
+                return context.getPackageName() + ".other";
+            }
+        };
+        int miss = IconCache.getMissCount();
+        IconCache.newIcon(context, android.R.drawable.ic_dialog_info);
+        IconCache.newIcon(other, android.R.drawable.ic_dialog_info);
+        assertEquals(miss + 2, IconCache.getMissCount());
+        assertEquals(2, IconCache.size());
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR1)
+    private static Context withNightMode(final Context context) {
+        Configuration config = new Configuration(context.getResources().getConfiguration());
+        config.uiMode = Configuration.UI_MODE_NIGHT_YES
+                | (config.uiMode & ~Configuration.UI_MODE_NIGHT_MASK);
+        return context.createConfigurationContext(config);
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.os.Debug;
+import android.test.InstrumentationTestCase;
+import android.util.Log;
+import android.view.View;
+import android.widget.ArrayAdapter;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+/**
+ * This test case is testing internal methods including package private fields.
+ * Do not move this class to {@code .test} package.
+ */
+public class ItemAdapterTest extends InstrumentationTestCase {
+
+    private static final String TAG = "ItemAdapterTest";
+    private static final int ITEMS = 500;
+
+    public void testRowViewIsReused() {
+        Context context = getInstrumentation().getContext();
+        ItemAdapter adapter = new ItemAdapter(context, android.R.layout.simple_list_item_1,
+                newItems(), null);
+        FrameLayout parent = new FrameLayout(context);
+        View row = adapter.getView(0, null, parent);
+        assertSame(row, adapter.getView(1, row, parent));
+        assertEquals("Item 1", ((TextView) row.findViewById(android.R.id.text1)).getText());
+        assertTrue(adapter.hasStableIds());
+        assertEquals(1, adapter.getItemId(1));
+    }
+
+    public void testIconsShareConstantState() {
+        Context context = getInstrumentation().getContext();
+        int[] icons = new int[ITEMS];
+        for (int i = 0; i < ITEMS; i++) {
+            icons[i] = android.R.drawable.ic_dialog_info;
+        }
+        ItemAdapter adapter = new ItemAdapter(context, android.R.layout.simple_list_item_1,
+                newItems(), icons);
+        FrameLayout parent = new FrameLayout(context);
+        TextView first = (TextView) adapter.getView(0, null, parent);
+        TextView second = (TextView) adapter.getView(1, null, parent);
+        Drawable d1 = first.getCompoundDrawables()[0];
+        Drawable d2 = second.getCompoundDrawables()[0];
+        assertNotNull(d1);
+        assertNotSame(d1, d2);
+        assertSame(d1.getConstantState(), d2.getConstantState());
+
+        // Same icon is not set again to the recycled row
+        adapter.getView(2, first, parent);
+        assertSame(d1, first.getCompoundDrawables()[0]);
+    }
+
+    public void testCountIsLimitedByIcons() {
+        ItemAdapter adapter = new ItemAdapter(getInstrumentation().getContext(),
+                android.R.layout.simple_list_item_1, newItems(), new int[]{0, 0});
+        assertEquals(2, adapter.getCount());
+    }
+
+    public void testResourceItemsAreResolvedLazily() {
+        Context context = getInstrumentation().getContext();
+        ItemAdapter adapter = new ItemAdapter(context, android.R.layout.simple_list_item_1,
+                com.simplealertdialog.test.R.array.single_choice, null);
+        assertEquals(3, adapter.getCount());
+        assertEquals(0, adapter.getResolvedCount());
+
+        FrameLayout parent = new FrameLayout(context);
+        View row = adapter.getView(1, null, parent);
+        assertEquals("Japanese", ((TextView) row.findViewById(android.R.id.text1)).getText());
+        assertEquals(1, adapter.getResolvedCount());
+
+        // Cached item is not resolved again
+        assertSame(adapter.getItem(1), adapter.getItem(1));
+        assertEquals(1, adapter.getResolvedCount());
+        adapter.release();
+    }
+
+    public void testResourceItemsAreCachedAfterRelease() {
+        Context context = getInstrumentation().getContext();
+        CharSequence[] expected = context.getResources()
+                .getTextArray(com.simplealertdialog.test.R.array.single_choice);
+        ItemAdapter adapter = new ItemAdapter(context, android.R.layout.simple_list_item_1,
+                com.simplealertdialog.test.R.array.single_choice, new int[]{0, 0, 0});
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i].toString(), adapter.getItem(i).toString());
+        }
+        // Array is released when every item is resolved, and the items remain
+        assertEquals(expected.length, adapter.getResolvedCount());
+        adapter.release();
+        assertEquals(expected[0].toString(), adapter.getItem(0).toString());
+    }
+
+    public void testPartiallyResolvedItemsAreReleasedOnDismiss() {
+        Context context = getInstrumentation().getContext();
+        SimpleAlertDialog dialog = new SimpleAlertDialog(context);
+        dialog.setItems(com.simplealertdialog.test.R.array.single_choice, null);
+        ItemAdapter adapter = (ItemAdapter) dialog.getListAdapter();
+        // Only the first row is scrolled into the view
+        adapter.getView(0, null, new FrameLayout(context));
+        assertEquals(1, adapter.getResolvedCount());
+        assertFalse(adapter.isReleased());
+
+        // Called when the dialog is dismissed
+        dialog.onStop();
+        assertTrue(adapter.isReleased());
+
+        // Shown again: the array is obtained only for the unresolved items
+        CharSequence[] expected = context.getResources()
+                .getTextArray(com.simplealertdialog.test.R.array.single_choice);
+        assertEquals(expected[2].toString(), adapter.getItem(2).toString());
+        assertEquals(2, adapter.getResolvedCount());
+        adapter.release();
+        assertTrue(adapter.isReleased());
+    }
+
+    public void testBindAllocations() {
+        Context context = getInstrumentation().getContext();
+        CharSequence[] items = newItems();
+        FrameLayout parent = new FrameLayout(context);
+        ArrayAdapter<CharSequence> arrayAdapter = new ArrayAdapter<CharSequence>(context,
+                android.R.layout.simple_list_item_1, items);
+        ItemAdapter itemAdapter = new ItemAdapter(context, android.R.layout.simple_list_item_1,
+                items, null);
+        View arrayRow = arrayAdapter.getView(0, null, parent);
+        View itemRow = itemAdapter.getView(0, null, parent);
+
+        Debug.startAllocCounting();
+        Debug.resetThreadAllocCount();
+        for (int i = 0; i < ITEMS; i++) {
+            arrayAdapter.getView(i, arrayRow, parent);
+        }
+        int array = Debug.getThreadAllocCount();
+
+        Debug.resetThreadAllocCount();
+        for (int i = 0; i < ITEMS; i++) {
+            itemAdapter.getView(i, itemRow, parent);
+        }
+        int item = Debug.getThreadAllocCount();
+        Debug.stopAllocCounting();
+
+        Log.i(TAG, "Bind allocations (" + ITEMS + " rows): ArrayAdapter=" + array
+                + ", ItemAdapter=" + item);
+        assertTrue(item <= array);
+    }
+
+    private static CharSequence[] newItems() {
+        CharSequence[] items = new CharSequence[ITEMS];
+        for (int i = 0; i < ITEMS; i++) {
+            items[i] = "Item " + i;
+        }
+        return items;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.test.InstrumentationTestCase;
+
+/**
+ * This test case is testing internal methods including package private fields.
+ * Do not move this class to {@code .test} package.
+ */
+public class ItemStoreTest extends InstrumentationTestCase {
+
+    private static final int LARGE_ITEMS = 10000;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        ItemStore.clear();
+    }
+
+    public void testSmallItemsAreKeptInBundle() {
+        Bundle args = new SimpleAlertDialogFragment.Builder()
+                .setItems(new CharSequence[]{"A", "B"})
+                .createArguments();
+        assertTrue(args.containsKey(SimpleAlertDialog.ARG_ITEMS));
+        assertNull(ItemStore.getHandle(args));
+        assertEquals(0, ItemStore.size());
+    }
+
+    public void testLargeItemsAreStoredOutsideOfBundle() {
+        CharSequence[] items = newItems();
+        Bundle args = new SimpleAlertDialogFragment.Builder()
+                .setItems(items)
+                .setEditText("Hello", 1)
+                .createArguments();
+        assertFalse(args.containsKey(SimpleAlertDialog.ARG_ITEMS));
+        assertFalse(args.containsKey(SimpleAlertDialog.ARG_EDIT_TEXT_INITIAL_TEXT));
+        assertTrue(args.containsKey(SimpleAlertDialog.ARG_EDIT_TEXT_INPUT_TYPE));
+
+        ItemStore.Entry entry = ItemStore.get(getContext(), ItemStore.getHandle(args));
+        assertNotNull(entry);
+        assertSame(items, entry.items);
+        assertEquals("Hello", entry.editText);
+    }
+
+    public void testEntryIsRestoredFromDisk() {
+        Context context = getContext();
+        String handle = ItemStore.put(new ItemStore.Entry(newItems(), new int[]{1, 2}, "Hello"));
+        ItemStore.save(context, handle);
+        ItemStore.waitForWrites();
+        // Same as the process death
+        ItemStore.clear();
+
+        ItemStore.Entry entry = ItemStore.get(context, handle);
+        assertNotNull(entry);
+        assertEquals(LARGE_ITEMS, entry.items.length);
+        assertEquals("Item 9999", entry.items[LARGE_ITEMS - 1].toString());
+        assertEquals(2, entry.icons[1]);
+        assertEquals("Hello", entry.editText.toString());
+    }
+
+    public void testReleaseRemovedFragment() {
+        String handle = ItemStore.put(new ItemStore.Entry(newItems(), null, null));
+        Bundle args = new Bundle();
+        args.putString(SimpleAlertDialog.ARG_ITEM_STORE, handle);
+        ItemStore.release(null, true, args);
+        assertEquals(0, ItemStore.size());
+    }
+
+    public void testArgumentsNeverShownDoNotLeaveEntry() {
+        createLargeArguments();
+        for (int i = 0; i < 10 && 0 < ItemStore.size(); i++) {
+            Runtime.getRuntime().gc();
+            Runtime.getRuntime().runFinalization();
+        }
+        assertEquals(0, ItemStore.size());
+    }
+
+    public void testOwnedEntryIsKept() {
+        Bundle args = createLargeArguments();
+        assertEquals(0, ItemStore.getOwnedCount());
+        ItemStore.own(args);
+        assertEquals(1, ItemStore.getOwnedCount());
+        assertNotNull(ItemStore.get(getContext(), ItemStore.getHandle(args)));
+
+        ItemStore.release(null, true, args);
+        assertEquals(0, ItemStore.size());
+    }
+
+    public void testLostEntry() {
+        assertNull(ItemStore.get(getContext(), "unknown"));
+    }
+
+    private static Bundle createLargeArguments() {
+        return new SimpleAlertDialogFragment.Builder()
+                .setItems(newItems())
+                .createArguments();
+    }
+
+    private Context getContext() {
+        return getInstrumentation().getTargetContext();
+    }
+
+    private static CharSequence[] newItems() {
+        CharSequence[] items = new CharSequence[LARGE_ITEMS];
+        for (int i = 0; i < LARGE_ITEMS; i++) {
+            items[i] = "Item " + i;
+        }
+        return items;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.simplealertdialog;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.res.Configuration;
+import android.os.Build;
+import android.test.InstrumentationTestCase;
+
+import java.util.Locale;
+
+/**
+ * This test case is testing internal methods including package private fields.
+ * Do not move this class to {@code .test} package.
+ */
+public class LabelCacheTest extends InstrumentationTestCase {
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        LabelCache.clear();
+        LabelCache.setMaxSize(64);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        LabelCache.setMaxSize(64);
+        super.tearDown();
+    }
+
+    public void testSameResourceHitsCache() {
+        Context context = getInstrumentation().getContext();
+        int hit = LabelCache.getHitCount();
+        int miss = LabelCache.getMissCount();
+        CharSequence first = LabelCache.getText(context, android.R.string.ok);
+        CharSequence second = LabelCache.getText(context, android.R.string.ok);
+        assertSame(first, second);
+        assertEquals(context.getText(android.R.string.ok).toString(), first.toString());
+        assertEquals(miss + 1, LabelCache.getMissCount());
+        assertEquals(hit + 1, LabelCache.getHitCount());
+        assertEquals(1, LabelCache.size());
+    }
+
+    public void testLeastRecentlyUsedIsEvicted() {
+        Context context = getInstrumentation().getContext();
+        LabelCache.setMaxSize(2);
+        int eviction = LabelCache.getEvictionCount();
+        LabelCache.getText(context, android.R.string.ok);
+        LabelCache.getText(context, android.R.string.cancel);
+        LabelCache.getText(context, android.R.string.ok);
+        LabelCache.getText(context, com.simplealertdialog.test.R.string.title);
+        assertEquals(2, LabelCache.size());
+        assertEquals(eviction + 1, LabelCache.getEvictionCount());
+
+        // Cancel was the least recently used
+        int miss = LabelCache.getMissCount();
+        LabelCache.getText(context, android.R.string.ok);
+        assertEquals(miss, LabelCache.getMissCount());
+        LabelCache.getText(context, android.R.string.cancel);
+        assertEquals(miss + 1, LabelCache.getMissCount());
+    }
+
+    public void testZeroMaxSizeDisablesCache() {
+        Context context = getInstrumentation().getContext();
+        LabelCache.getText(context, android.R.string.ok);
+        LabelCache.setMaxSize(0);
+        assertEquals(0, LabelCache.size());
+        LabelCache.getText(context, android.R.string.ok);
+        assertEquals(0, LabelCache.size());
+    }
+
+    public void testDialogsShareLabels() {
+        Context context = getInstrumentation().getContext();
+        new SimpleAlertDialog(context).setTitle(com.simplealertdialog.test.R.string.title);
+        int miss = LabelCache.getMissCount();
+        new SimpleAlertDialog(context).setTitle(com.simplealertdialog.test.R.string.title);
+        assertEquals(miss, LabelCache.getMissCount());
+    }
+
+    public void testClear() {
+        LabelCache.getText(getInstrumentation().getContext(), android.R.string.ok);
+        LabelCache.clear();
+        assertEquals(0, LabelCache.size());
+    }
+
+    public void testConfigurationsDoNotDropEachOther() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            // Configuration context is not available
+            return;
+        }
+        Context context = getInstrumentation().getContext();
+        Context japanese = withLocale(context, Locale.JAPANESE);
+        Context french = withLocale(context, Locale.FRENCH);
+        int miss = LabelCache.getMissCount();
+        for (int i = 0; i < 3; i++) {
+            LabelCache.getText(japanese, android.R.string.ok);
+            LabelCache.getText(french, android.R.string.ok);
+        }
+        assertEquals(miss + 2, LabelCache.getMissCount());
+        assertEquals(2, LabelCache.size());
+        assertEquals(japanese.getText(android.R.string.ok).toString(),
+                LabelCache.getText(japanese, android.R.string.ok).toString());
+        assertEquals(french.getText(android.R.string.ok).toString(),
+                LabelCache.getText(french, android.R.string.ok).toString());
+    }
+
+    public void testSameConfigurationSharesLabels() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            // Configuration context is not available
+            return;
+        }
+        Context context = getInstrumentation().getContext();
+        int miss = LabelCache.getMissCount();
+        LabelCache.getText(withLocale(context, Locale.JAPANESE), android.R.string.ok);
+        // Another Resources object with the same package and configuration
+        LabelCache.getText(withLocale(context, Locale.JAPANESE), android.R.string.ok);
+        assertEquals(miss + 1, LabelCache.getMissCount());
+    }
+
+    public void testPackagesDoNotCollide() {
+        final Context context = getInstrumentation().getContext();
+        Context other = new ContextWrapper(context) {
+            @Override
+            public String getPackageName() {
+                return context.getPackageName() + ".other";
+            }
+        };
+        int miss = LabelCache.getMissCount();
+        LabelCache.getText(context, android.R.string.ok);
+        LabelCache.getText(other, android.R.string.ok);
+        assertEquals(miss + 2, LabelCache.getMissCount());
+        assertEquals(2, LabelCache.size());
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR1)
+    private static Context withLocale(final Context context, final Locale locale) {
+        Configuration config = new Configuration(context.getResources().getConfiguration());
+        config.locale = locale;
+        return context.createConfigurationContext(config);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import android.os.Bundle;
+import android.test.InstrumentationTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This test case is testing internal methods including package private fields.
+ * Do not move this class to {@code .test} package.
+ */
+public class ParcelSizeMonitorTest extends InstrumentationTestCase {
+
+    private final List<ParcelSizeMonitor.Report> reports =
+            new ArrayList<ParcelSizeMonitor.Report>();
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        ItemStore.clear();
+        ParcelSizeMonitor.setSink(new ParcelSizeMonitor.Sink() {
+            @Override
+            public void onMeasured(final ParcelSizeMonitor.Report report) {
+                reports.add(report);
+            }
+        });
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        ParcelSizeMonitor.setSink(null);
+        ParcelSizeMonitor.setStrictThreshold(0);
+        super.tearDown();
+    }
+
+    public void testDisabled() {
+        ParcelSizeMonitor.setSink(null);
+        assertFalse(ParcelSizeMonitor.isEnabled());
+        new SimpleAlertDialogFragment.Builder().setMessage("Hello").createArguments();
+        assertTrue(reports.isEmpty());
+        ParcelSizeMonitor.setStrictThreshold(1);
+        assertTrue(ParcelSizeMonitor.isEnabled());
+    }
+
+    public void testCreateArguments() {
+        new SimpleAlertDialogFragment.Builder()
+                .setMessage("Hello world!")
+                .setItems(new CharSequence[]{"A", "B", "C"})
+                .setRequestCode(3)
+                .createArguments();
+        assertEquals(1, reports.size());
+        ParcelSizeMonitor.Report report = reports.get(0);
+        assertEquals(ParcelSizeMonitor.SOURCE_ARGUMENTS, report.getSource());
+        assertEquals(3, report.getRequestCode());
+        assertTrue(0 < report.getItemsBytes());
+        assertTrue(0 < report.getMessageBytes());
+        assertEquals(0, report.getEditTextBytes());
+        assertEquals(0, report.getSavedStateBytes());
+        assertEquals(report.getArgumentsBytes(), report.getTotalBytes());
+        assertTrue(report.getItemsBytes() + report.getMessageBytes() < report.getTotalBytes());
+    }
+
+    public void testCompactArguments() {
+        new SimpleAlertDialogFragment.Builder()
+                .setEditText("Hello")
+                .build()
+                .toArguments();
+        assertEquals(1, reports.size());
+        assertTrue(0 < reports.get(0).getEditTextBytes());
+        assertEquals(0, reports.get(0).getMessageBytes());
+    }
+
+    public void testStoredItemsAreNotCounted() {
+        CharSequence[] items = new CharSequence[10000];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = "Item " + i;
+        }
+        new SimpleAlertDialogFragment.Builder().setItems(items).createArguments();
+        assertEquals(0, reports.get(0).getItemsBytes());
+        assertTrue(reports.get(0).getTotalBytes() < ItemStore.THRESHOLD_BYTES);
+    }
+
+    public void testSavedState() {
+        Bundle args = new SimpleAlertDialogFragment.Builder().setMessage("Hello").build()
+                .toArguments();
+        Bundle outState = new Bundle();
+        outState.putString("android:savedDialogState", "state");
+        reports.clear();
+        ParcelSizeMonitor.onSaveInstanceState(args, outState);
+        ParcelSizeMonitor.Report report = reports.get(0);
+        assertEquals(ParcelSizeMonitor.SOURCE_SAVED_STATE, report.getSource());
+        assertTrue(0 < report.getSavedStateBytes());
+        assertEquals(report.getArgumentsBytes() + report.getSavedStateBytes(),
+                report.getTotalBytes());
+    }
+
+    public void testStrictMode() {
+        ParcelSizeMonitor.setStrictThreshold(64);
+        try {
+            new SimpleAlertDialogFragment.Builder()
+                    .setMessage("This message is longer than the threshold of the strict mode.")
+                    .createArguments();
+            fail();
+        } catch (IllegalStateException e) {
+            // Reported before failing
+            assertEquals(1, reports.size());
+        }
+    }
+}
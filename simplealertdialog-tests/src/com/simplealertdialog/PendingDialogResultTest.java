@@ -0,0 +1,238 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.test.InstrumentationTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * This test case is testing internal methods including package private fields.
+ * Do not move this class to {@code .test} package.
+ */
+public class PendingDialogResultTest extends InstrumentationTestCase {
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private static class RecordingCallback implements PendingDialogResult.Callback {
+        final List<DialogResult> results = new ArrayList<DialogResult>();
+
+        @Override
+        public void onResult(DialogResult result) {
+            results.add(result);
+        }
+    }
+
+    private static class ChoiceHost implements SimpleAlertDialog.SingleChoiceArrayItemProvider {
+        int clicked = -1;
+
+        @Override
+        public CharSequence[] onCreateSingleChoiceArray(SimpleAlertDialog dialog,
+                                                        int requestCode) {
+            return new CharSequence[]{"a", "b", "c"};
+        }
+
+        @Override
+        public void onSingleChoiceArrayItemClick(SimpleAlertDialog dialog, int requestCode,
+                                                 int position) {
+            clicked = position;
+        }
+    }
+
+    public void testCompleteCallsCallbacks() {
+        PendingDialogResult pending = PendingDialogResult.create();
+        RecordingCallback callback = new RecordingCallback();
+        pending.then(DIRECT, callback);
+        assertFalse(pending.isDone());
+        assertTrue(callback.results.isEmpty());
+
+        DialogResult result = new DialogResult(DialogResult.POSITIVE, 1, -1, null);
+        pending.complete(result);
+        assertTrue(pending.isDone());
+        assertSame(result, pending.getResult());
+        assertEquals(1, callback.results.size());
+        assertSame(result, callback.results.get(0));
+    }
+
+    public void testCallbackAfterCompletion() {
+        PendingDialogResult pending = PendingDialogResult.create();
+        pending.complete(new DialogResult(DialogResult.ITEM, 1, 3, null));
+        RecordingCallback callback = new RecordingCallback();
+        pending.then(DIRECT, callback);
+        assertEquals(3, callback.results.get(0).getPosition());
+    }
+
+    public void testFirstResultWins() {
+        PendingDialogResult pending = PendingDialogResult.create();
+        RecordingCallback callback = new RecordingCallback();
+        pending.then(DIRECT, callback);
+        pending.complete(new DialogResult(DialogResult.POSITIVE, 1, -1, null));
+        pending.complete(new DialogResult(DialogResult.CANCELED, 1, -1, null));
+        assertEquals(1, callback.results.size());
+        assertTrue(pending.getResult().isPositive());
+    }
+
+    public void testCompletedResultIsUnregistered() {
+        PendingDialogResult pending = PendingDialogResult.create();
+        assertSame(pending, PendingDialogResult.find(pending.getToken()));
+        int size = PendingDialogResult.size();
+        pending.complete(new DialogResult(DialogResult.NEGATIVE, 1, -1, null));
+        assertNull(PendingDialogResult.find(pending.getToken()));
+        assertEquals(size - 1, PendingDialogResult.size());
+        assertNull(PendingDialogResult.find(null));
+    }
+
+    public void testDispatchTableCompletesResult() {
+        PendingDialogResult pending = PendingDialogResult.create();
+        DispatchTable table = new DispatchTable(null, null, 7);
+        table.setPendingResult(pending);
+        table.onItemClick(new SimpleAlertDialog(getInstrumentation().getContext()), 2);
+        DialogResult result = pending.getResult();
+        assertEquals(DialogResult.ITEM, result.getType());
+        assertEquals(7, result.getRequestCode());
+        assertEquals(2, result.getPosition());
+        assertNull(result.getText());
+    }
+
+    public void testRemovedDialogIsCanceled() {
+        PendingDialogResult pending = PendingDialogResult.create();
+        DispatchTable table = new DispatchTable(null, null, 7);
+        table.setPendingResult(pending);
+        table.onRemoved();
+        assertTrue(pending.getResult().isCanceled());
+    }
+
+    public void testBuilderPutsToken() {
+        SimpleAlertDialogSupportFragment.Builder builder =
+                new SimpleAlertDialogSupportFragment.Builder();
+        builder.setResultToken("token");
+        assertEquals("token",
+                builder.createArguments().getString(SimpleAlertDialog.ARG_RESULT_TOKEN));
+        builder.setResultToken(null);
+        assertFalse(builder.createArguments().containsKey(SimpleAlertDialog.ARG_RESULT_TOKEN));
+    }
+
+    public void testFailedShowIsUnregistered() {
+        int size = PendingDialogResult.size();
+        try {
+            new SimpleAlertDialogSupportFragment.Builder().showForResult(null, "tag");
+            fail();
+        } catch (NullPointerException e) {
+            // No manager to show the dialog
+        }
+        assertEquals(size, PendingDialogResult.size());
+    }
+
+    public void testDialogRemovedBeforeCreationIsCanceled() {
+        PendingDialogResult pending = PendingDialogResult.create();
+        SimpleAlertDialogSupportFragment.Builder builder =
+                new SimpleAlertDialogSupportFragment.Builder();
+        builder.setRequestCode(7);
+        builder.setResultToken(pending.getToken());
+        PendingDialogResult.cancel(builder.createArguments());
+        DialogResult result = pending.getResult();
+        assertTrue(result.isCanceled());
+        assertEquals(7, result.getRequestCode());
+        assertNull(PendingDialogResult.find(pending.getToken()));
+        PendingDialogResult.cancel(null);
+    }
+
+    public void testSingleChoicePickCompletesResult() {
+        PendingDialogResult pending = PendingDialogResult.create();
+        SimpleAlertDialogSupportFragment.Builder builder =
+                new SimpleAlertDialogSupportFragment.Builder();
+        builder.setSingleChoiceCheckedItem(0).setRequestCode(7);
+        builder.setResultToken(pending.getToken());
+        ChoiceHost host = new ChoiceHost();
+        SimpleAlertDialog dialog = createDialog(host, builder.createArguments());
+
+        dialog.getListItemListener().onItemClick(null, null, 2, 2);
+        assertEquals(2, host.clicked);
+        DialogResult result = pending.getResult();
+        assertEquals(DialogResult.ITEM, result.getType());
+        assertEquals(7, result.getRequestCode());
+        assertEquals(2, result.getPosition());
+    }
+
+    public void testItemsAreSetForPendingResultOnly() {
+        PendingDialogResult pending = PendingDialogResult.create();
+        SimpleAlertDialogSupportFragment.Builder builder =
+                new SimpleAlertDialogSupportFragment.Builder();
+        builder.setItems(new CharSequence[]{"a", "b"}).setRequestCode(7);
+        builder.setResultToken(pending.getToken());
+        // No listeners: the pending result is the only consumer of the items
+        SimpleAlertDialog dialog = createDialog(new Object(), builder.createArguments());
+
+        assertNotNull(dialog.getListItemListener());
+        dialog.getListItemListener().onItemClick(null, null, 1, 1);
+        assertEquals(DialogResult.ITEM, pending.getResult().getType());
+        assertEquals(1, pending.getResult().getPosition());
+    }
+
+    public void testResultOfCollectedManagerIsCanceled() {
+        PendingDialogResult orphan = bindToCollectedManager();
+        for (int i = 0; i < 10 && !orphan.isDone(); i++) {
+            Runtime.getRuntime().gc();
+            Runtime.getRuntime().runFinalization();
+            PendingDialogResult.cancelOrphans();
+        }
+        assertTrue(orphan.getResult().isCanceled());
+        assertEquals(7, orphan.getResult().getRequestCode());
+        assertNull(PendingDialogResult.find(orphan.getToken()));
+    }
+
+    public void testResultOfLiveManagerIsKept() {
+        Object manager = new Object();
+        PendingDialogResult pending = PendingDialogResult.create();
+        pending.bind(manager, 7);
+        PendingDialogResult.cancelOrphans();
+        assertFalse(pending.isDone());
+        assertSame(pending, PendingDialogResult.find(pending.getToken()));
+        pending.discard();
+    }
+
+    private static PendingDialogResult bindToCollectedManager() {
+        // The manager is reachable only from this frame
+        PendingDialogResult pending = PendingDialogResult.create();
+        pending.bind(new Object(), 7);
+        return pending;
+    }
+
+    private SimpleAlertDialog createDialog(final Object target, final Bundle args) {
+        final Context context = getInstrumentation().getContext();
+        return (SimpleAlertDialog) new InternalHelper<Object, Context>() {
+            @Override
+            public Context getActivity() {
+                return context;
+            }
+
+            @Override
+            public Object getTargetFragment() {
+                return target;
+            }
+        }.createDialog(args);
+    }
+}
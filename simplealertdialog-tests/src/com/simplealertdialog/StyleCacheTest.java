@@ -0,0 +1,84 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import android.content.Context;
+import android.test.InstrumentationTestCase;
+import android.view.ContextThemeWrapper;
+
+/**
+ * This test case is testing internal methods including package private fields.
+ * Do not move this class to {@code .test} package.
+ */
+public class StyleCacheTest extends InstrumentationTestCase {
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        StyleCache.clear();
+    }
+
+    public void testObtainSameThemeHitsCache() {
+        Context context = getInstrumentation().getContext();
+        int hit = StyleCache.getHitCount();
+        int miss = StyleCache.getMissCount();
+        StyleCache.Styles first = StyleCache.obtain(context, 0);
+        StyleCache.Styles second = StyleCache.obtain(context, 0);
+        assertSame(first, second);
+        assertEquals(miss + 1, StyleCache.getMissCount());
+        assertEquals(hit + 1, StyleCache.getHitCount());
+        assertEquals(1, StyleCache.size());
+    }
+
+    public void testObtainDifferentThemeMissesCache() {
+        Context context = getInstrumentation().getContext();
+        StyleCache.Styles first = StyleCache.obtain(context, 0);
+        StyleCache.Styles second = StyleCache.obtain(context, android.R.style.Theme_Dialog);
+        assertNotSame(first, second);
+        assertEquals(2, StyleCache.size());
+    }
+
+    public void testDirectThemeAttributesMissCache() {
+        Context context = getInstrumentation().getContext();
+        Context title = new ContextThemeWrapper(context,
+                com.simplealertdialog.test.R.style.DirectAttributesTheme);
+        Context message = new ContextThemeWrapper(context,
+                com.simplealertdialog.test.R.style.DirectAttributesTheme_Message);
+        StyleCache.Styles first = StyleCache.obtain(title, 0);
+        StyleCache.Styles second = StyleCache.obtain(message, 0);
+        assertNotSame(first, second);
+        assertEquals(2, StyleCache.size());
+        assertEquals(com.simplealertdialog.test.R.style.SimpleAlertDialogTitleTextStyle,
+                first.titleTextStyle);
+        assertEquals(com.simplealertdialog.test.R.style.SimpleAlertDialogMessageTextStyle,
+                second.titleTextStyle);
+    }
+
+    public void testDialogsShareStyles() {
+        Context context = getInstrumentation().getContext();
+        new SimpleAlertDialog(context);
+        int miss = StyleCache.getMissCount();
+        new SimpleAlertDialog(context);
+        assertEquals(miss, StyleCache.getMissCount());
+    }
+
+    public void testClear() {
+        StyleCache.obtain(getInstrumentation().getContext(), 0);
+        StyleCache.clear();
+        assertEquals(0, StyleCache.size());
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog.test;
+
+import android.annotation.TargetApi;
+import android.app.Instrumentation;
+import android.os.Build;
+import android.os.SystemClock;
+import android.support.v4.app.FragmentManager;
+import android.test.ActivityInstrumentationTestCase2;
+
+import com.simplealertdialog.DialogQueue;
+import com.simplealertdialog.SimpleAlertDialogSupportFragment;
+
+/**
+ * Tests for showing the dialogs through DialogQueue.
+ */
+public class DialogQueueTest extends ActivityInstrumentationTestCase2<SupportActivity> {
+
+    private SupportActivity activity;
+
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB)
+    public DialogQueueTest() {
+        super(SupportActivity.class);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        setActivityInitialTouchMode(true);
+        activity = getActivity();
+    }
+
+    public void testShowOneByOne() throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                FragmentManager fm = activity.getSupportFragmentManager();
+                DialogQueue queue = DialogQueue.of(fm);
+                assertSame(queue, DialogQueue.of(fm));
+                assertTrue(queue.show(newDialog("First", 1), "first"));
+                assertTrue(queue.show(newDialog("Second", 2), "second"));
+                fm.executePendingTransactions();
+                assertTrue(queue.isShowing());
+                assertEquals(1, queue.size());
+                assertNotNull(fm.findFragmentByTag("first"));
+                assertNull(fm.findFragmentByTag("second"));
+
+                ((SimpleAlertDialogSupportFragment) fm.findFragmentByTag("first")).dismiss();
+                fm.executePendingTransactions();
+                fm.executePendingTransactions();
+                assertNull(fm.findFragmentByTag("first"));
+                assertNotNull(fm.findFragmentByTag("second"));
+                assertEquals(0, queue.size());
+
+                ((SimpleAlertDialogSupportFragment) fm.findFragmentByTag("second")).dismiss();
+                fm.executePendingTransactions();
+                assertFalse(queue.isShowing());
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+    }
+
+    public void testDropDuplicates() throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                FragmentManager fm = activity.getSupportFragmentManager();
+                DialogQueue queue = DialogQueue.of(fm);
+                int dropped = queue.getDroppedCount();
+                assertTrue(queue.show(newDialog("Error", 1), "error"));
+                // Same as the shown dialog
+                assertFalse(queue.show(newDialog("Error", 1), "error"));
+                assertTrue(queue.show(newDialog("Warning", 2), "warning"));
+                // Same as the waiting dialog
+                assertFalse(queue.show(newDialog("Warning", 2), "warning"));
+                // Same tag with the other request code is not a duplicate
+                assertTrue(queue.show(newDialog("Warning", 3), "warning"));
+                assertEquals(dropped + 2, queue.getDroppedCount());
+                assertEquals(2, queue.size());
+                fm.executePendingTransactions();
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+    }
+
+    public void testMergeDuplicates() throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                FragmentManager fm = activity.getSupportFragmentManager();
+                DialogQueue queue = DialogQueue.of(fm).setMergeDuplicates(true);
+                int merged = queue.getMergedCount();
+                assertTrue(queue.show(newDialog("Error", 1), "error"));
+                assertTrue(queue.show(newDialog("1 file failed", 2), "sync"));
+                assertTrue(queue.show(newDialog("2 files failed", 2), "sync"));
+                assertEquals(merged + 1, queue.getMergedCount());
+                assertEquals(1, queue.size());
+                queue.setMergeDuplicates(false);
+                fm.executePendingTransactions();
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+    }
+
+    public void testPriorityOrder() throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                FragmentManager fm = activity.getSupportFragmentManager();
+                DialogQueue queue = DialogQueue.of(fm);
+                assertTrue(queue.show(newDialog("Shown", 1), "shown"));
+                assertTrue(queue.show(newDialog("Default", 2), "default"));
+                assertTrue(queue.show(newDialog("High", 3), "high", DialogQueue.PRIORITY_HIGH, 0));
+                fm.executePendingTransactions();
+
+                ((SimpleAlertDialogSupportFragment) fm.findFragmentByTag("shown")).dismiss();
+                fm.executePendingTransactions();
+                fm.executePendingTransactions();
+                assertNotNull(fm.findFragmentByTag("high"));
+                assertNull(fm.findFragmentByTag("default"));
+                assertEquals(1, queue.size());
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+    }
+
+    public void testLowPriorityDialogsAreCoalesced() throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                FragmentManager fm = activity.getSupportFragmentManager();
+                DialogQueue queue = DialogQueue.of(fm);
+                int dropped = queue.getDroppedCount();
+                int merged = queue.getMergedCount();
+                assertTrue(queue.show(newDialog("Shown", 1), "shown"));
+                assertTrue(queue.show(newDialog("Rate", 2), "rate", DialogQueue.PRIORITY_LOW, 0));
+                // Duplicate of the low priority dialog is merged
+                assertTrue(queue.show(newDialog("Rate", 2), "rate", DialogQueue.PRIORITY_LOW, 0));
+                // Over the limit
+                assertFalse(queue.show(newDialog("Tips", 3), "tips", DialogQueue.PRIORITY_LOW, 0));
+                assertEquals(merged + 1, queue.getMergedCount());
+                assertEquals(dropped + 1, queue.getDroppedCount());
+                assertEquals(1, queue.size());
+                fm.executePendingTransactions();
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+    }
+
+    public void testExpiredDialogIsDiscarded() throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                FragmentManager fm = activity.getSupportFragmentManager();
+                DialogQueue queue = DialogQueue.of(fm);
+                int expired = queue.getExpiredCount();
+                assertTrue(queue.show(newDialog("Shown", 1), "shown"));
+                assertTrue(queue.show(newDialog("Expiring", 2), "expiring",
+                        DialogQueue.PRIORITY_DEFAULT, 1));
+                fm.executePendingTransactions();
+                SystemClock.sleep(10);
+
+                ((SimpleAlertDialogSupportFragment) fm.findFragmentByTag("shown")).dismiss();
+                fm.executePendingTransactions();
+                fm.executePendingTransactions();
+                assertNull(fm.findFragmentByTag("expiring"));
+                assertEquals(expired + 1, queue.getExpiredCount());
+                assertFalse(queue.isShowing());
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+    }
+
+    public void testExpiredDialogsArePurgedBeforeHead() throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                FragmentManager fm = activity.getSupportFragmentManager();
+                DialogQueue queue = DialogQueue.of(fm);
+                int expired = queue.getExpiredCount();
+                assertTrue(queue.show(newDialog("Shown", 1), "shown"));
+                assertTrue(queue.show(newDialog("Waiting", 2), "waiting"));
+                assertTrue(queue.show(newDialog("Rate", 3), "rate", DialogQueue.PRIORITY_LOW, 1));
+                SystemClock.sleep(10);
+
+                // Not at the head of the queue, but no longer counted
+                assertEquals(1, queue.size());
+                assertEquals(expired + 1, queue.getExpiredCount());
+                // Timed out dialog does not hold the slot of the low priority dialogs
+                assertTrue(queue.show(newDialog("Tips", 4), "tips", DialogQueue.PRIORITY_LOW, 0));
+                assertEquals(2, queue.size());
+                fm.executePendingTransactions();
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+    }
+
+    public void testCriticalDialogPreemptsShownDialog() throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                FragmentManager fm = activity.getSupportFragmentManager();
+                DialogQueue queue = DialogQueue.of(fm);
+                int preempted = queue.getPreemptedCount();
+                assertTrue(queue.show(newDialog("Rate", 1), "rate", DialogQueue.PRIORITY_LOW, 0));
+                fm.executePendingTransactions();
+                assertTrue(queue.show(newDialog("Session expired", 2), "session",
+                        DialogQueue.PRIORITY_CRITICAL, 0));
+                fm.executePendingTransactions();
+                fm.executePendingTransactions();
+                assertNull(fm.findFragmentByTag("rate"));
+                assertNotNull(fm.findFragmentByTag("session"));
+                assertEquals(preempted + 1, queue.getPreemptedCount());
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+    }
+
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB)
+    public void testRestoredDialogBlocksQueueAfterRecreation() throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                FragmentManager fm = activity.getSupportFragmentManager();
+                assertTrue(DialogQueue.of(fm).show(newDialog("Error", 1), "error"));
+                fm.executePendingTransactions();
+            }
+        });
+        Instrumentation.ActivityMonitor monitor = getInstrumentation()
+                .addMonitor(SupportActivity.class.getName(), null, false);
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                activity.recreate();
+            }
+        });
+        final SupportActivity recreated = (SupportActivity) getInstrumentation()
+                .waitForMonitorWithTimeout(monitor, 5000);
+        getInstrumentation().removeMonitor(monitor);
+        assertNotNull(recreated);
+        assertNotSame(activity, recreated);
+        getInstrumentation().waitForIdleSync();
+
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                FragmentManager fm = recreated.getSupportFragmentManager();
+                DialogQueue queue = DialogQueue.of(fm);
+                assertNotNull(fm.findFragmentByTag("error"));
+                assertTrue(queue.isShowing());
+                int dropped = queue.getDroppedCount();
+                // Same as the restored dialog
+                assertFalse(queue.show(newDialog("Error", 1), "error"));
+                assertEquals(dropped + 1, queue.getDroppedCount());
+                // Waits for the restored dialog instead of being stacked on it
+                assertTrue(queue.show(newDialog("Warning", 2), "warning"));
+                fm.executePendingTransactions();
+                assertNull(fm.findFragmentByTag("warning"));
+                assertEquals(1, queue.size());
+
+                ((SimpleAlertDialogSupportFragment) fm.findFragmentByTag("error")).dismiss();
+                fm.executePendingTransactions();
+                fm.executePendingTransactions();
+                assertNotNull(fm.findFragmentByTag("warning"));
+                assertEquals(0, queue.size());
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+        recreated.finish();
+    }
+
+    private static SimpleAlertDialogSupportFragment newDialog(final String message,
+                                                              final int requestCode) {
+        return new SimpleAlertDialogSupportFragment.Builder()
+                .setMessage(message)
+                .setPositiveButton(android.R.string.ok)
+                .setRequestCode(requestCode)
+                .create();
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog.test;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.SystemClock;
+import android.support.v4.app.Fragment;
+import android.support.v4.app.FragmentManager;
+import android.test.ActivityInstrumentationTestCase2;
+import android.util.Log;
+
+import com.simplealertdialog.DialogPool;
+import com.simplealertdialog.SimpleAlertDialog;
+import com.simplealertdialog.SimpleAlertDialogSupportFragment;
+
+/**
+ * Tests for showing the dialogs without DialogFragment.<br/>
+ * Benchmark results are written to the log with the tag {@value #TAG}.
+ */
+public class DirectShowTest extends ActivityInstrumentationTestCase2<SupportActivity> {
+
+    private static final String TAG = "DirectShowBenchmark";
+    private static final int ITERATIONS = 50;
+
+    private SupportActivity activity;
+
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB)
+    public DirectShowTest() {
+        super(SupportActivity.class);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        setActivityInitialTouchMode(true);
+        activity = getActivity();
+    }
+
+    public void testShowDirect() throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                FragmentManager fm = activity.getSupportFragmentManager();
+                SimpleAlertDialog dialog = newBuilder().showDirect(activity);
+                assertTrue(dialog.isShowing());
+                assertNull(fm.findFragmentByTag("dialog"));
+                dialog.dismiss();
+                assertFalse(dialog.isShowing());
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+    }
+
+    public void testCancelDirect() throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                SimpleAlertDialog dialog = newBuilder().setCancelable(true).showDirect(activity);
+                dialog.cancel();
+                assertFalse(dialog.isShowing());
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+    }
+
+    public void testDismissedDirectDialogIsNotRecycled() throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                DialogPool.enable(activity.getApplication(), 2);
+                try {
+                    int size = DialogPool.size();
+                    SimpleAlertDialog dialog = newBuilder().showDirect(activity);
+                    dialog.dismiss();
+                    // The caller still holds the dialog, so the next one must not reuse it
+                    assertEquals(size, DialogPool.size());
+                    SimpleAlertDialog next = newBuilder().showDirect(activity);
+                    assertNotSame(dialog, next);
+                    next.dismiss();
+                } finally {
+                    DialogPool.disable();
+                }
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+    }
+
+    public void testShowTime() throws Throwable {
+        final long[] elapsed = new long[2];
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                FragmentManager fm = activity.getSupportFragmentManager();
+                // Warm up class loading and resource caches for both paths
+                showAndDismissFragment(fm);
+                newBuilder().showDirect(activity).dismiss();
+
+                long start = SystemClock.elapsedRealtime();
+                for (int i = 0; i < ITERATIONS; i++) {
+                    showAndDismissFragment(fm);
+                }
+                elapsed[0] = SystemClock.elapsedRealtime() - start;
+
+                start = SystemClock.elapsedRealtime();
+                for (int i = 0; i < ITERATIONS; i++) {
+                    newBuilder().showDirect(activity).dismiss();
+                }
+                elapsed[1] = SystemClock.elapsedRealtime() - start;
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+        Log.i(TAG, "Show and dismiss (" + ITERATIONS + " times): fragment=" + elapsed[0]
+                + "ms, direct=" + elapsed[1] + "ms");
+    }
+
+    private void showAndDismissFragment(final FragmentManager fm) {
+        newBuilder().create().show(fm, "dialog");
+        fm.executePendingTransactions();
+        ((SimpleAlertDialogSupportFragment) fm.findFragmentByTag("dialog")).dismiss();
+        fm.executePendingTransactions();
+    }
+
+    private static SimpleAlertDialog.Builder<SimpleAlertDialogSupportFragment, Fragment>
+    newBuilder() {
+        return new SimpleAlertDialogSupportFragment.Builder()
+                .setTitle("Hello world!")
+                .setMessage("Hello world!")
+                .setPositiveButton(android.R.string.ok);
+    }
+}
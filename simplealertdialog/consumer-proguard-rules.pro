@@ -0,0 +1,4 @@
+# DialogSpec is restored from the fragment arguments by its CREATOR.
+-keepclassmembers class com.simplealertdialog.DialogSpec {
+    public static final android.os.Parcelable$Creator CREATOR;
+}
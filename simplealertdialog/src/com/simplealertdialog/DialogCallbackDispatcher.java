@@ -0,0 +1,83 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import android.view.View;
+
+/**
+ * Dispatcher of the dialog events to the methods of the {@code Activity} or the
+ * target {@code Fragment} annotated with the annotations in the
+ * {@code com.simplealertdialog.annotation} package.<br/>
+ * Implementations are generated by the {@code simplealertdialog-compiler} annotation processor
+ * as {@code <Host>$$SimpleAlertDialogDispatcher} in the package of the host class,
+ * and they call the annotated methods directly.
+ * The host hands it to the dialogs through {@link Provider}, so neither the generated classes
+ * nor the annotated methods are looked up by their names.
+ * Do not implement this interface by hand.
+ *
+ * @param <T> Type of the host class
+ * @author Soichiro Kashima
+ */
+public interface DialogCallbackDispatcher<T> {
+
+    /**
+     * Host of the annotated methods.<br/>
+     * Each class that has the annotated methods must implement this by itself,
+     * which is checked by the annotation processor:
+     * <pre>
+     * public DialogCallbackDispatcher&lt;?&gt; getDialogCallbackDispatcher() {
+     *     return new MainActivity$$SimpleAlertDialogDispatcher();
+     * }
+     * </pre>
+     */
+    interface Provider {
+        /**
+         * Creates the dispatcher generated for the class.<br/>
+         * This is called only once for each class.
+         *
+         * @return Generated dispatcher
+         */
+        DialogCallbackDispatcher<?> getDialogCallbackDispatcher();
+    }
+
+    int EVENT_POSITIVE = 1;
+    int EVENT_NEGATIVE = 1 << 1;
+    int EVENT_NEUTRAL = 1 << 2;
+    int EVENT_CANCEL = 1 << 3;
+    int EVENT_ITEM_CLICK = 1 << 4;
+
+    /**
+     * Returns the events handled by the host class.
+     *
+     * @return Bitmask of the {@code EVENT_*} constants
+     */
+    int getEvents();
+
+    /**
+     * Calls the method of the host annotated for the event and the request code.
+     *
+     * @param host        Host object
+     * @param event       One of the {@code EVENT_*} constants
+     * @param dialog      Dialog that received the event
+     * @param requestCode Request code of the dialog
+     * @param view        Custom view of the dialog, or {@code null}
+     * @param position    Position of the clicked item, only for {@link #EVENT_ITEM_CLICK}
+     * @return {@code true} if an annotated method is called
+     */
+    boolean dispatch(T host, int event, SimpleAlertDialog dialog, int requestCode, View view,
+                     int position);
+}
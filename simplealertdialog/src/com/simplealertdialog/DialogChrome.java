@@ -0,0 +1,87 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import android.widget.ListView;
+import android.widget.TextView;
+
+/**
+ * References to the views of the dialog chrome.<br/>
+ * Each view is looked up only once when the layout file is inflated,
+ * or set directly by {@link com.simplealertdialog.DialogChromeBuilder}.
+ * Fields are {@code null} if the section has not been created.
+ *
+ * @author Soichiro Kashima
+ */
+final class DialogChrome {
+    View root;
+    View header;
+    ImageView icon;
+    TextView title;
+    View barWrapper;
+    View bar;
+    View body;
+    TextView message;
+    ViewGroup view;
+    ListView list;
+    View buttonDividerTop;
+    View buttonPositive;
+    TextView buttonPositiveLabel;
+    View buttonNeutral;
+    TextView buttonNeutralLabel;
+    View buttonNegative;
+    TextView buttonNegativeLabel;
+    View buttonDivider;
+    View buttonDividerNeutral;
+
+    /**
+     * Resolves the views from the inflated {@code R.layout.sad__dialog_simple}.
+     *
+     * @param root Root view of the layout
+     * @return Chrome with all of the views
+     */
+    static DialogChrome find(final View root) {
+        DialogChrome chrome = new DialogChrome();
+        chrome.root = root;
+        chrome.header = root.findViewById(R.id.header);
+        chrome.icon = (ImageView) chrome.header.findViewById(R.id.icon);
+        chrome.title = (TextView) chrome.header.findViewById(R.id.title);
+        chrome.barWrapper = root.findViewById(R.id.bar_wrapper);
+        chrome.bar = chrome.barWrapper.findViewById(R.id.bar);
+        chrome.body = root.findViewById(R.id.body);
+        chrome.message = (TextView) chrome.body.findViewById(R.id.message);
+        chrome.view = (ViewGroup) chrome.body.findViewById(R.id.view);
+        chrome.list = (ListView) chrome.body.findViewById(R.id.list);
+        chrome.buttonDividerTop = chrome.body.findViewById(R.id.button_divider_top);
+        View footer = chrome.body.findViewById(R.id.footer);
+        chrome.buttonPositive = footer.findViewById(R.id.button_positive);
+        chrome.buttonPositiveLabel = (TextView) chrome.buttonPositive
+                .findViewById(R.id.button_positive_label);
+        chrome.buttonNeutral = footer.findViewById(R.id.button_neutral);
+        chrome.buttonNeutralLabel = (TextView) chrome.buttonNeutral
+                .findViewById(R.id.button_neutral_label);
+        chrome.buttonNegative = footer.findViewById(R.id.button_negative);
+        chrome.buttonNegativeLabel = (TextView) chrome.buttonNegative
+                .findViewById(R.id.button_negative_label);
+        chrome.buttonDivider = footer.findViewById(R.id.button_divider);
+        chrome.buttonDividerNeutral = footer.findViewById(R.id.button_divider_neutral);
+        return chrome;
+    }
+}
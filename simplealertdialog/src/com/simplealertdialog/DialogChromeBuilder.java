@@ -0,0 +1,314 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import android.content.Context;
+import android.os.Build;
+import android.util.TypedValue;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.ImageView;
+import android.widget.LinearLayout;
+import android.widget.ListView;
+import android.widget.TextView;
+
+/**
+ * Builds the view tree of the dialog chrome without inflating
+ * {@code R.layout.sad__dialog_simple}.<br/>
+ * Only the sections used by the dialog are created,
+ * and they have the same IDs and attributes as the layout file.
+ *
+ * @author Soichiro Kashima
+ */
+final class DialogChromeBuilder {
+
+    private final Context mContext;
+    private final float mDensity;
+    private boolean mHasTitle;
+    private boolean mHasIcon;
+    private boolean mHasMessage;
+    private boolean mHasView;
+    private boolean mHasList;
+    private boolean mHasPositiveButton;
+    private boolean mHasNeutralButton;
+    private boolean mHasNegativeButton;
+
+    DialogChromeBuilder(final Context context) {
+        mContext = context;
+        mDensity = context.getResources().getDisplayMetrics().density;
+    }
+
+    /**
+     * Returns whether the chrome should be built by this class
+     * instead of inflating the layout file.
+     *
+     * @param context Context of the dialog
+     * @return {@code true} if the layout file is not required
+     */
+    static boolean isAvailable(final Context context) {
+        return context.getResources().getBoolean(R.bool.sad__build_chrome_in_code);
+    }
+
+    DialogChromeBuilder setTitle(final boolean hasTitle, final boolean hasIcon) {
+        mHasTitle = hasTitle;
+        mHasIcon = hasTitle && hasIcon;
+        return this;
+    }
+
+    DialogChromeBuilder setMessage(final boolean hasMessage) {
+        mHasMessage = hasMessage;
+        return this;
+    }
+
+    DialogChromeBuilder setView(final boolean hasView) {
+        mHasView = hasView;
+        return this;
+    }
+
+    DialogChromeBuilder setList(final boolean hasList) {
+        mHasList = hasList;
+        return this;
+    }
+
+    DialogChromeBuilder setButtons(final boolean hasPositiveButton,
+                                   final boolean hasNeutralButton,
+                                   final boolean hasNegativeButton) {
+        mHasPositiveButton = hasPositiveButton;
+        mHasNeutralButton = hasNeutralButton;
+        mHasNegativeButton = hasNegativeButton;
+        return this;
+    }
+
+    DialogChrome build() {
+        DialogChrome chrome = new DialogChrome();
+        SimpleAlertDialogLayout root = new SimpleAlertDialogLayout(mContext);
+        if (mHasTitle) {
+            root.addView(buildHeader(chrome), new SimpleAlertDialogLayout.LayoutParams(matchParent(),
+                    ViewGroup.LayoutParams.WRAP_CONTENT));
+            root.addView(buildBar(chrome), new SimpleAlertDialogLayout.LayoutParams(matchParent(),
+                    ViewGroup.LayoutParams.WRAP_CONTENT));
+        }
+        root.addView(buildBody(chrome), new SimpleAlertDialogLayout.LayoutParams(matchParent(),
+                ViewGroup.LayoutParams.WRAP_CONTENT));
+        chrome.root = root;
+        return chrome;
+    }
+
+    private View buildHeader(final DialogChrome chrome) {
+        LinearLayout header = new LinearLayout(mContext);
+        header.setId(R.id.header);
+        header.setOrientation(LinearLayout.HORIZONTAL);
+        if (mHasIcon) {
+            ImageView icon = new ImageView(mContext);
+            icon.setId(R.id.icon);
+            icon.setContentDescription(mContext.getString(R.string.sad__icon_description));
+            icon.setPadding(dp(12), 0, 0, 0);
+            LinearLayout.LayoutParams lpIcon = new LinearLayout.LayoutParams(
+                    ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+            lpIcon.gravity = Gravity.CENTER_VERTICAL;
+            header.addView(icon, lpIcon);
+            chrome.icon = icon;
+        }
+        TextView title = new TextView(mContext);
+        title.setId(R.id.title);
+        title.setGravity(Gravity.LEFT | Gravity.CENTER_VERTICAL);
+        title.setPadding(dp(16), 0, dp(16), 0);
+        setTextAppearance(title, android.R.attr.textAppearanceLarge);
+        LinearLayout.LayoutParams lpTitle = new LinearLayout.LayoutParams(matchParent(),
+                mContext.getResources().getDimensionPixelSize(R.dimen.sad__dialog_title_height));
+        lpTitle.gravity = Gravity.CENTER_VERTICAL;
+        header.addView(title, lpTitle);
+        chrome.header = header;
+        chrome.title = title;
+        return header;
+    }
+
+    private View buildBar(final DialogChrome chrome) {
+        FrameLayout barWrapper = new FrameLayout(mContext);
+        barWrapper.setId(R.id.bar_wrapper);
+        View bar = new View(mContext);
+        bar.setId(R.id.bar);
+        barWrapper.addView(bar, new FrameLayout.LayoutParams(matchParent(),
+                ViewGroup.LayoutParams.WRAP_CONTENT));
+        chrome.barWrapper = barWrapper;
+        chrome.bar = bar;
+        return barWrapper;
+    }
+
+    private View buildBody(final DialogChrome chrome) {
+        SimpleAlertDialogLayout body = new SimpleAlertDialogLayout(mContext);
+        body.setId(R.id.body);
+
+        LinearLayout content = new LinearLayout(mContext);
+        content.setOrientation(LinearLayout.VERTICAL);
+        if (mHasMessage) {
+            TextView message = new TextView(mContext);
+            message.setId(R.id.message);
+            message.setGravity(Gravity.LEFT | Gravity.TOP);
+            message.setMinHeight(dp(48));
+            message.setPadding(dp(16), dp(8), dp(16), dp(8));
+            setTextAppearance(message, android.R.attr.textAppearanceMedium);
+            content.addView(message, new LinearLayout.LayoutParams(matchParent(),
+                    ViewGroup.LayoutParams.WRAP_CONTENT));
+            chrome.message = message;
+        }
+        if (mHasView) {
+            LinearLayout view = new LinearLayout(mContext);
+            view.setId(R.id.view);
+            view.setOrientation(LinearLayout.VERTICAL);
+            content.addView(view, new LinearLayout.LayoutParams(matchParent(),
+                    ViewGroup.LayoutParams.WRAP_CONTENT));
+            chrome.view = view;
+        }
+        if (mHasList) {
+            ListView list = new ListView(mContext);
+            list.setId(R.id.list);
+            content.addView(list, new LinearLayout.LayoutParams(matchParent(),
+                    ViewGroup.LayoutParams.WRAP_CONTENT));
+            chrome.list = list;
+        }
+        body.addView(content, new SimpleAlertDialogLayout.LayoutParams(matchParent(), 0, true));
+
+        if (mHasPositiveButton || mHasNeutralButton || mHasNegativeButton) {
+            View dividerTop = new View(mContext);
+            dividerTop.setId(R.id.button_divider_top);
+            dividerTop.setBackgroundColor(dividerColor());
+            body.addView(dividerTop,
+                    new SimpleAlertDialogLayout.LayoutParams(matchParent(), dp(0.6f)));
+            chrome.buttonDividerTop = dividerTop;
+            body.addView(buildFooter(chrome), new SimpleAlertDialogLayout.LayoutParams(matchParent(),
+                    ViewGroup.LayoutParams.WRAP_CONTENT));
+        }
+        chrome.body = body;
+        return body;
+    }
+
+    private View buildFooter(final DialogChrome chrome) {
+        LinearLayout footer = new LinearLayout(mContext);
+        footer.setId(R.id.footer);
+        footer.setOrientation(LinearLayout.HORIZONTAL);
+        footer.setBaselineAligned(false);
+        // Same order as layout-v14/sad__dialog_simple_footer
+        boolean negativeFirst = Build.VERSION_CODES.ICE_CREAM_SANDWICH <= Build.VERSION.SDK_INT;
+        if (negativeFirst && mHasNegativeButton) {
+            addNegativeButton(footer, chrome);
+        }
+        if (!negativeFirst && mHasPositiveButton) {
+            addPositiveButton(footer, chrome);
+        }
+        if (mHasPositiveButton && mHasNegativeButton) {
+            chrome.buttonDivider = addDivider(footer, R.id.button_divider);
+        }
+        if (mHasNeutralButton) {
+            chrome.buttonNeutralLabel = addButton(footer, R.id.button_neutral,
+                    R.id.button_neutral_label, android.R.string.untitled);
+            chrome.buttonNeutral = (View) chrome.buttonNeutralLabel.getParent();
+            chrome.buttonDividerNeutral = addDivider(footer, R.id.button_divider_neutral);
+        }
+        if (negativeFirst && mHasPositiveButton) {
+            addPositiveButton(footer, chrome);
+        }
+        if (!negativeFirst && mHasNegativeButton) {
+            addNegativeButton(footer, chrome);
+        }
+        return footer;
+    }
+
+    private void addPositiveButton(final LinearLayout footer, final DialogChrome chrome) {
+        chrome.buttonPositiveLabel = addButton(footer, R.id.button_positive,
+                R.id.button_positive_label, android.R.string.ok);
+        chrome.buttonPositive = (View) chrome.buttonPositiveLabel.getParent();
+    }
+
+    private void addNegativeButton(final LinearLayout footer, final DialogChrome chrome) {
+        chrome.buttonNegativeLabel = addButton(footer, R.id.button_negative,
+                R.id.button_negative_label, android.R.string.cancel);
+        chrome.buttonNegative = (View) chrome.buttonNegativeLabel.getParent();
+    }
+
+    /**
+     * Adds the button to the footer.
+     *
+     * @return Label of the button
+     */
+    private TextView addButton(final LinearLayout footer, final int id, final int labelId,
+                               final int defaultText) {
+        LinearLayout button = new LinearLayout(mContext);
+        button.setId(id);
+        button.setClickable(true);
+        button.setGravity(Gravity.CENTER);
+        if (Build.VERSION_CODES.ICE_CREAM_SANDWICH <= Build.VERSION.SDK_INT) {
+            TypedValue value = new TypedValue();
+            if (mContext.getTheme().resolveAttribute(
+                    android.R.attr.selectableItemBackground, value, true)) {
+                button.setBackgroundResource(value.resourceId);
+            }
+        } else {
+            button.setBackgroundResource(R.drawable.sad__list_selector_jb_holo_dark);
+        }
+
+        TextView label = new TextView(mContext);
+        label.setId(labelId);
+        label.setBackgroundColor(android.graphics.Color.TRANSPARENT);
+        label.setDuplicateParentStateEnabled(true);
+        label.setGravity(Gravity.CENTER);
+        label.setText(defaultText);
+        setTextAppearance(label, android.R.attr.textAppearanceSmall);
+        button.addView(label, new LinearLayout.LayoutParams(matchParent(), dp(48)));
+
+        footer.addView(button, new LinearLayout.LayoutParams(matchParent(), dp(48), 1));
+        return label;
+    }
+
+    private View addDivider(final LinearLayout footer, final int id) {
+        View divider = new View(mContext);
+        divider.setId(id);
+        divider.setBackgroundColor(dividerColor());
+        footer.addView(divider, new LinearLayout.LayoutParams(dp(0.6f), matchParent(), 0));
+        return divider;
+    }
+
+    private void setTextAppearance(final TextView textView, final int attr) {
+        TypedValue value = new TypedValue();
+        if (mContext.getTheme().resolveAttribute(attr, value, true)) {
+            textView.setTextAppearance(mContext, value.resourceId);
+        }
+    }
+
+    private int dividerColor() {
+        return mContext.getResources().getColor(R.color.sad__holo_dark_divider);
+    }
+
+    /**
+     * Converts the dp value to pixels in the same way as the dimensions in the layout files.
+     */
+    private int dp(final float value) {
+        int px = (int) (value * mDensity + 0.5f);
+        return px == 0 && value > 0 ? 1 : px;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static int matchParent() {
+        if (Build.VERSION.SDK_INT <= Build.VERSION_CODES.ECLAIR_MR1) {
+            return ViewGroup.LayoutParams.FILL_PARENT;
+        } else {
+            return ViewGroup.LayoutParams.MATCH_PARENT;
+        }
+    }
+}
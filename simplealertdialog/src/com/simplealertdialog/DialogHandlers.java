@@ -0,0 +1,314 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import android.util.SparseArray;
+import android.view.View;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Handlers of the dialog events registered for each request code.<br/>
+ * Instead of implementing the listener interfaces and switching on the request code,
+ * register a handler for each request code to the class of the {@code Activity} or
+ * the target {@code Fragment}:
+ * <pre>
+ * static {
+ *     DialogHandlers.of(MainActivity.class)
+ *         .onPositive(REQUEST_CODE_DELETE, new DialogHandlers.Handler&lt;MainActivity&gt;() {
+ *             public void handle(MainActivity host, SimpleAlertDialog dialog, View view,
+ *                                int which) {
+ *                 host.delete();
+ *             }
+ *         });
+ * }
+ * </pre>
+ * Handlers are registered to the class, not to the instance, and receive the current
+ * instance when the event occurs. So they keep working after the {@code Activity} is
+ * recreated by the configuration change.
+ * Handlers must not hold the instance of their enclosing class, or it would be kept
+ * as long as the handlers are registered: handlers of the non-static inner classes,
+ * or of the anonymous and local classes created in an instance context, are rejected.<br/>
+ * Registrations last until {@link #remove(Class)} is called, and the registered host class
+ * is never unloaded until then.<br/>
+ * Handlers for each event are kept in a {@code SparseArray} of the request codes,
+ * so each event finds its handler by a binary search over the request codes
+ * registered for the event.<br/>
+ * Register the handlers before the dialog is shown, for example in the static initializer,
+ * and only on the main thread.
+ *
+ * @param <T> Type of the host class
+ * @author Soichiro Kashima
+ */
+public final class DialogHandlers<T> implements DialogCallbackDispatcher<T> {
+
+    /**
+     * Handler of a dialog event.
+     *
+     * @param <T> Type of the host class
+     */
+    public interface Handler<T> {
+        /**
+         * Called when the event for the registered request code occurs.
+         *
+         * @param host   Current {@code Activity} or the target {@code Fragment}
+         * @param dialog Dialog that received the event
+         * @param view   Custom view of the dialog, or {@code null}
+         * @param which  Position of the clicked item, or {@code -1} for the other events
+         */
+        void handle(T host, SimpleAlertDialog dialog, View view, int which);
+    }
+
+    private static final Map<Class<?>, DialogHandlers<?>> sRegistry =
+            Collections.synchronizedMap(new HashMap<Class<?>, DialogHandlers<?>>());
+
+    private final SparseArray<Handler<? super T>> mPositive =
+            new SparseArray<Handler<? super T>>();
+    private final SparseArray<Handler<? super T>> mNegative =
+            new SparseArray<Handler<? super T>>();
+    private final SparseArray<Handler<? super T>> mNeutral =
+            new SparseArray<Handler<? super T>>();
+    private final SparseArray<Handler<? super T>> mCancel =
+            new SparseArray<Handler<? super T>>();
+    private final SparseArray<Handler<? super T>> mItemClick =
+            new SparseArray<Handler<? super T>>();
+
+    private DialogHandlers() {
+    }
+
+    /**
+     * Returns the handlers of the class, creating them if they do not exist.
+     *
+     * @param hostClass Class of the {@code Activity} or the target {@code Fragment}
+     * @param <T>       Type of the host class
+     * @return Handlers of the class
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> DialogHandlers<T> of(final Class<T> hostClass) {
+        synchronized (sRegistry) {
+            DialogHandlers<T> handlers = (DialogHandlers<T>) sRegistry.get(hostClass);
+            if (handlers == null) {
+                handlers = new DialogHandlers<T>();
+                sRegistry.put(hostClass, handlers);
+            }
+            return handlers;
+        }
+    }
+
+    /**
+     * Removes the handlers of the class.
+     *
+     * @param hostClass Class of the {@code Activity} or the target {@code Fragment}
+     */
+    public static void remove(final Class<?> hostClass) {
+        sRegistry.remove(hostClass);
+    }
+
+    /**
+     * Returns the handlers registered to the class or its nearest superclass.
+     *
+     * @param c Class of the callback target
+     * @return Handlers, or {@code null} if nothing is registered
+     */
+    @SuppressWarnings("unchecked")
+    static DialogCallbackDispatcher<Object> find(final Class<?> c) {
+        for (Class<?> k = c; k != null; k = k.getSuperclass()) {
+            DialogHandlers<?> handlers = sRegistry.get(k);
+            if (handlers != null) {
+                return (DialogCallbackDispatcher<Object>) handlers;
+            }
+        }
+        return null;
+    }
+
+    static int size() {
+        return sRegistry.size();
+    }
+
+    static void clear() {
+        sRegistry.clear();
+    }
+
+    /**
+     * Sets the handler called when the positive button is clicked.
+     *
+     * @param requestCode Request code of the dialog
+     * @param handler     Handler, or {@code null} to remove the handler
+     * @return This object
+     * @throws IllegalArgumentException if the handler holds the instance of its enclosing class
+     */
+    public DialogHandlers<T> onPositive(final int requestCode, final Handler<? super T> handler) {
+        return put(mPositive, requestCode, handler);
+    }
+
+    /**
+     * Sets the handler called when the negative button is clicked.
+     *
+     * @param requestCode Request code of the dialog
+     * @param handler     Handler, or {@code null} to remove the handler
+     * @return This object
+     * @throws IllegalArgumentException if the handler holds the instance of its enclosing class
+     */
+    public DialogHandlers<T> onNegative(final int requestCode, final Handler<? super T> handler) {
+        return put(mNegative, requestCode, handler);
+    }
+
+    /**
+     * Sets the handler called when the neutral button is clicked.
+     *
+     * @param requestCode Request code of the dialog
+     * @param handler     Handler, or {@code null} to remove the handler
+     * @return This object
+     * @throws IllegalArgumentException if the handler holds the instance of its enclosing class
+     */
+    public DialogHandlers<T> onNeutral(final int requestCode, final Handler<? super T> handler) {
+        return put(mNeutral, requestCode, handler);
+    }
+
+    /**
+     * Sets the handler called when the dialog is canceled.
+     *
+     * @param requestCode Request code of the dialog
+     * @param handler     Handler, or {@code null} to remove the handler
+     * @return This object
+     * @throws IllegalArgumentException if the handler holds the instance of its enclosing class
+     */
+    public DialogHandlers<T> onCancel(final int requestCode, final Handler<? super T> handler) {
+        return put(mCancel, requestCode, handler);
+    }
+
+    /**
+     * Sets the handler called when the item of the list is clicked.
+     *
+     * @param requestCode Request code of the dialog
+     * @param handler     Handler, or {@code null} to remove the handler
+     * @return This object
+     * @throws IllegalArgumentException if the handler holds the instance of its enclosing class
+     */
+    public DialogHandlers<T> onItemClick(final int requestCode, final Handler<? super T> handler) {
+        return put(mItemClick, requestCode, handler);
+    }
+
+    /**
+     * Removes all of the handlers for the request code.
+     *
+     * @param requestCode Request code of the dialog
+     * @return This object
+     */
+    public DialogHandlers<T> remove(final int requestCode) {
+        mPositive.remove(requestCode);
+        mNegative.remove(requestCode);
+        mNeutral.remove(requestCode);
+        mCancel.remove(requestCode);
+        mItemClick.remove(requestCode);
+        return this;
+    }
+
+    @Override
+    public int getEvents() {
+        int events = 0;
+        if (0 < mPositive.size()) {
+            events |= EVENT_POSITIVE;
+        }
+        if (0 < mNegative.size()) {
+            events |= EVENT_NEGATIVE;
+        }
+        if (0 < mNeutral.size()) {
+            events |= EVENT_NEUTRAL;
+        }
+        if (0 < mCancel.size()) {
+            events |= EVENT_CANCEL;
+        }
+        if (0 < mItemClick.size()) {
+            events |= EVENT_ITEM_CLICK;
+        }
+        return events;
+    }
+
+    @Override
+    public boolean dispatch(final T host, final int event, final SimpleAlertDialog dialog,
+                            final int requestCode, final View view, final int position) {
+        SparseArray<Handler<? super T>> handlers;
+        switch (event) {
+            case EVENT_POSITIVE:
+                handlers = mPositive;
+                break;
+            case EVENT_NEGATIVE:
+                handlers = mNegative;
+                break;
+            case EVENT_NEUTRAL:
+                handlers = mNeutral;
+                break;
+            case EVENT_CANCEL:
+                handlers = mCancel;
+                break;
+            case EVENT_ITEM_CLICK:
+                handlers = mItemClick;
+                break;
+            default:
+                return false;
+        }
+        Handler<? super T> handler = handlers.get(requestCode);
+        if (handler == null) {
+            return false;
+        }
+        handler.handle(host, dialog, view, event == EVENT_ITEM_CLICK ? position : -1);
+        return true;
+    }
+
+    private DialogHandlers<T> put(final SparseArray<Handler<? super T>> handlers,
+                                  final int requestCode, final Handler<? super T> handler) {
+        if (handler == null) {
+            handlers.remove(requestCode);
+        } else {
+            if (hasOuterInstance(handler.getClass())) {
+                throw new IllegalArgumentException("Handler must not hold the instance of "
+                        + "its enclosing class, use a static nested class or create it "
+                        + "in a static context: " + handler.getClass().getName());
+            }
+            handlers.put(requestCode, handler);
+        }
+        return this;
+    }
+
+    /**
+     * Checks whether the instances of the class hold the instance of the enclosing class.
+     *
+     * @param c Class of the handler
+     * @return {@code true} if the class has the reference to the outer instance
+     */
+    static boolean hasOuterInstance(final Class<?> c) {
+        if (c.isMemberClass()) {
+            return !Modifier.isStatic(c.getModifiers());
+        }
+        Class<?> outer = c.getEnclosingClass();
+        if (outer == null) {
+            return false;
+        }
+        // Anonymous and local classes created in an instance context hold it in a synthetic field
+        for (Field field : c.getDeclaredFields()) {
+            if (field.isSynthetic() && field.getType() == outer) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import android.annotation.TargetApi;
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.os.Build;
+import android.os.Bundle;
+import android.util.SparseArray;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Opt-in pool of the dismissed {@link com.simplealertdialog.SimpleAlertDialog}s.<br/>
+ * When this is enabled, the dialogs dismissed by
+ * {@link com.simplealertdialog.SimpleAlertDialogFragment} or
+ * {@link com.simplealertdialog.SimpleAlertDialogSupportFragment} are kept
+ * for each pair of the {@code Activity} and the theme, and the next dialog for the same pair
+ * reuses its window and views with the new title, message, buttons and listeners.<br/>
+ * Pooled dialogs hold their {@code Activity}, so they are removed when the
+ * {@code Activity} is destroyed. On API level 13 and earlier, call
+ * {@link #clear(android.content.Context)} in {@code Activity#onDestroy()} instead.
+ *
+ * @author Soichiro Kashima
+ */
+public final class DialogPool {
+
+    private static final Map<Context, SparseArray<ArrayList<SimpleAlertDialog>>> sPool =
+            new HashMap<Context, SparseArray<ArrayList<SimpleAlertDialog>>>();
+    private static int sMaxPerKey;
+    private static int sSize;
+    private static int sHitCount;
+    private static int sMissCount;
+    private static int sEvictionCount;
+    private static Application sApplication;
+    private static Object sCallbacks;
+
+    private DialogPool() {
+    }
+
+    /**
+     * Enables the pool.<br/>
+     * If the pool is already enabled, only the limit is changed.
+     *
+     * @param application Application to observe the destruction of the activities
+     * @param maxPerKey   Maximum number of the dialogs kept for each pair of the
+     *                    {@code Activity} and the theme. The pool is disabled if this is
+     *                    {@code 0} or less.
+     */
+    public static synchronized void enable(final Application application, final int maxPerKey) {
+        if (application == null || maxPerKey <= 0) {
+            disable();
+            return;
+        }
+        sMaxPerKey = maxPerKey;
+        for (SparseArray<ArrayList<SimpleAlertDialog>> themes : sPool.values()) {
+            for (int i = 0; i < themes.size(); i++) {
+                ArrayList<SimpleAlertDialog> dialogs = themes.valueAt(i);
+                while (maxPerKey < dialogs.size()) {
+                    dialogs.remove(dialogs.size() - 1);
+                    sSize--;
+                    sEvictionCount++;
+                }
+            }
+        }
+        if (sCallbacks == null && Build.VERSION_CODES.ICE_CREAM_SANDWICH <= Build.VERSION.SDK_INT) {
+            sApplication = application;
+            sCallbacks = PurgeCallbacks.register(application);
+        }
+    }
+
+    /**
+     * Disables the pool and removes all of the pooled dialogs.
+     */
+    public static synchronized void disable() {
+        sMaxPerKey = 0;
+        clear();
+        if (sCallbacks != null) {
+            PurgeCallbacks.unregister(sApplication, sCallbacks);
+            sApplication = null;
+            sCallbacks = null;
+        }
+    }
+
+    /**
+     * Returns whether the pool is enabled.
+     *
+     * @return {@code true} if the dismissed dialogs are kept
+     */
+    public static synchronized boolean isEnabled() {
+        return 0 < sMaxPerKey;
+    }
+
+    /**
+     * Removes the dialogs owned by the {@code context}.
+     *
+     * @param context Owner {@code Activity} of the dialogs
+     */
+    public static synchronized void clear(final Context context) {
+        SparseArray<ArrayList<SimpleAlertDialog>> themes = sPool.remove(context);
+        if (themes == null) {
+            return;
+        }
+        for (int i = 0; i < themes.size(); i++) {
+            int count = themes.valueAt(i).size();
+            sSize -= count;
+            sEvictionCount += count;
+        }
+    }
+
+    /**
+     * Removes all of the pooled dialogs.<br/>
+     * Counters are not reset.
+     */
+    public static synchronized void clear() {
+        sPool.clear();
+        sSize = 0;
+    }
+
+    /**
+     * Returns the number of the pooled dialogs.
+     *
+     * @return Number of the dialogs
+     */
+    public static synchronized int size() {
+        return sSize;
+    }
+
+    /**
+     * Returns how many times the dialog was reused from the pool.
+     *
+     * @return Hit count
+     */
+    public static synchronized int getHitCount() {
+        return sHitCount;
+    }
+
+    /**
+     * Returns how many times the dialog had to be created while the pool was enabled.
+     *
+     * @return Miss count
+     */
+    public static synchronized int getMissCount() {
+        return sMissCount;
+    }
+
+    /**
+     * Returns how many dialogs were discarded because the pool was full
+     * or their {@code Activity} was destroyed.
+     *
+     * @return Eviction count
+     */
+    public static synchronized int getEvictionCount() {
+        return sEvictionCount;
+    }
+
+    /**
+     * Takes the dismissed dialog from the pool.
+     *
+     * @param context    Owner {@code Activity} of the dialog
+     * @param themeResId Theme resource ID of the dialog, or {@code 0} for the default theme
+     * @return Reset dialog, or {@code null} if there is no dialog for the pair
+     */
+    static synchronized SimpleAlertDialog obtain(final Context context, final int themeResId) {
+        if (sMaxPerKey == 0) {
+            return null;
+        }
+        SparseArray<ArrayList<SimpleAlertDialog>> themes = sPool.get(context);
+        ArrayList<SimpleAlertDialog> dialogs = themes == null ? null : themes.get(themeResId);
+        if (dialogs == null || dialogs.isEmpty()) {
+            sMissCount++;
+            return null;
+        }
+        sSize--;
+        sHitCount++;
+        return dialogs.remove(dialogs.size() - 1);
+    }
+
+    /**
+     * Resets the dismissed dialog and keeps it for the next dialog.
+     *
+     * @param dialog Dismissed dialog
+     * @return {@code true} if the dialog is kept
+     */
+    static synchronized boolean recycle(final SimpleAlertDialog dialog) {
+        if (sMaxPerKey == 0 || dialog == null || dialog.isShowing()) {
+            return false;
+        }
+        Context context = dialog.getOwnerContext();
+        SparseArray<ArrayList<SimpleAlertDialog>> themes = sPool.get(context);
+        if (themes == null) {
+            themes = new SparseArray<ArrayList<SimpleAlertDialog>>();
+            sPool.put(context, themes);
+        }
+        ArrayList<SimpleAlertDialog> dialogs = themes.get(dialog.getThemeResId());
+        if (dialogs == null) {
+            dialogs = new ArrayList<SimpleAlertDialog>(sMaxPerKey);
+            themes.put(dialog.getThemeResId(), dialogs);
+        }
+        if (dialogs.contains(dialog)) {
+            return true;
+        }
+        if (sMaxPerKey <= dialogs.size()) {
+            sEvictionCount++;
+            return false;
+        }
+        dialog.reset();
+        dialogs.add(dialog);
+        sSize++;
+        return true;
+    }
+
+    /**
+     * Returns whether the dialog of the {@code activity} can be kept.<br/>
+     * Dialogs are not kept when the {@code Activity} is going to be destroyed.
+     *
+     * @param activity Owner {@code Activity} of the dialog
+     * @return {@code true} if the dialog can be kept
+     */
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB)
+    static boolean canRecycle(final Activity activity) {
+        if (activity == null || activity.isFinishing() || !isEnabled()) {
+            return false;
+        }
+        return Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB
+                || !activity.isChangingConfigurations();
+    }
+
+    /**
+     * Removes the dialogs when their {@code Activity} is destroyed.
+     */
+    @TargetApi(Build.VERSION_CODES.ICE_CREAM_SANDWICH)
+    private static final class PurgeCallbacks implements Application.ActivityLifecycleCallbacks {
+
+        static Object register(final Application application) {
+            PurgeCallbacks callbacks = new PurgeCallbacks();
+            application.registerActivityLifecycleCallbacks(callbacks);
+            return callbacks;
+        }
+
+        static void unregister(final Application application, final Object callbacks) {
+            application.unregisterActivityLifecycleCallbacks((PurgeCallbacks) callbacks);
+        }
+
+        @Override
+        public void onActivityDestroyed(final Activity activity) {
+            clear(activity);
+        }
+
+        @Override
+        public void onActivityCreated(final Activity activity, final Bundle savedInstanceState) {
+        }
+
+        @Override
+        public void onActivityStarted(final Activity activity) {
+        }
+
+        @Override
+        public void onActivityResumed(final Activity activity) {
+        }
+
+        @Override
+        public void onActivityPaused(final Activity activity) {
+        }
+
+        @Override
+        public void onActivityStopped(final Activity activity) {
+        }
+
+        @Override
+        public void onActivitySaveInstanceState(final Activity activity, final Bundle outState) {
+        }
+    }
+}
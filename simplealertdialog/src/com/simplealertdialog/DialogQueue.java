@@ -0,0 +1,551 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.SystemClock;
+
+import java.lang.ref.WeakReference;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+
+/**
+ * Queue of the dialogs shown one by one for each {@code FragmentManager}.<br/>
+ * Use this when the dialogs may be requested in bursts (e.g. errors from the background
+ * tasks): the next dialog is shown only after the previous one is dismissed, and the
+ * dialog with the same tag and request code as the shown or the waiting one is dropped.
+ * <pre>
+ * DialogQueue.of(getSupportFragmentManager())
+ *     .show(new SimpleAlertDialogSupportFragment.Builder()
+ *         .setMessage("Sync failed")
+ *         .setPositiveButton(android.R.string.ok)
+ *         .setRequestCode(REQUEST_CODE_SYNC_ERROR)
+ *         .create(), "sync_error");
+ * </pre>
+ * Waiting dialogs are shown in the order of the priority, and in the requested order
+ * for the same priority. They are discarded if they are not shown before their timeout.
+ * {@link #PRIORITY_CRITICAL} dialog dismisses the shown dialog of the lower priority,
+ * and only a few {@link #PRIORITY_LOW} dialogs can wait at the same time
+ * (see {@link #setMaxLowPriorityCount(int)}).<br/>
+ * Waiting dialogs are discarded when the {@code Activity} is destroyed,
+ * including the recreation by the configuration change.
+ * The dialog restored by the recreation is the shown dialog of the new queue,
+ * and the dialogs already added to the {@code FragmentManager} are not shown again.
+ * Use this only on the main thread.
+ *
+ * @author Soichiro Kashima
+ */
+public final class DialogQueue {
+
+    public static final int PRIORITY_LOW = -10;
+    public static final int PRIORITY_DEFAULT = 0;
+    public static final int PRIORITY_HIGH = 10;
+    public static final int PRIORITY_CRITICAL = 20;
+
+    private static final Map<Object, DialogQueue> sQueues = new WeakHashMap<Object, DialogQueue>();
+
+    /**
+     * Higher priority first, then the older request first.
+     * Sequences are unique, so this identifies each entry.
+     */
+    private static final Comparator<Entry> ORDER = new Comparator<Entry>() {
+        @Override
+        public int compare(final Entry lhs, final Entry rhs) {
+            if (lhs.priority != rhs.priority) {
+                return lhs.priority < rhs.priority ? 1 : -1;
+            }
+            return lhs.sequence < rhs.sequence ? -1 : (lhs.sequence == rhs.sequence ? 0 : 1);
+        }
+    };
+
+    private final WeakReference<Object> mManager;
+    // Ordered by ORDER, so an entry is found and removed by itself without scanning the queue
+    private final TreeSet<Entry> mEntries = new TreeSet<Entry>(ORDER);
+    // Waiting entries by themselves, to find the duplicates without scanning the queue
+    private final HashMap<Entry, Entry> mWaiting = new HashMap<Entry, Entry>();
+    private Entry mShowing;
+    private long mSequence;
+    private boolean mMergeDuplicates;
+    private int mMaxLowPriorityCount = 1;
+    private int mLowPriorityCount;
+    // Earliest timeout of the waiting dialogs, or 0 if none of them has the timeout
+    private long mNextExpiresAt;
+    private int mDroppedCount;
+    private int mMergedCount;
+    private int mExpiredCount;
+    private int mPreemptedCount;
+
+    private DialogQueue(final Object manager) {
+        mManager = new WeakReference<Object>(manager);
+    }
+
+    /**
+     * Returns the queue for the {@code FragmentManager} of the support library.
+     *
+     * @param manager {@code FragmentManager} to show the dialogs
+     * @return Queue for the {@code manager}
+     */
+    public static DialogQueue of(final android.support.v4.app.FragmentManager manager) {
+        return obtain(manager);
+    }
+
+    /**
+     * Returns the queue for the {@code FragmentManager} of the framework.
+     *
+     * @param manager {@code FragmentManager} to show the dialogs
+     * @return Queue for the {@code manager}
+     */
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB)
+    public static DialogQueue of(final android.app.FragmentManager manager) {
+        return obtain(manager);
+    }
+
+    private static DialogQueue obtain(final Object manager) {
+        DialogQueue queue = sQueues.get(manager);
+        if (queue == null) {
+            queue = new DialogQueue(manager);
+            sQueues.put(manager, queue);
+        }
+        return queue;
+    }
+
+    /**
+     * Shows the dialog now, or after the dialogs requested before.<br/>
+     * Same as {@code show(fragment, tag, PRIORITY_DEFAULT, 0)}.
+     *
+     * @param fragment Dialog to show
+     * @param tag      Tag of the dialog fragment
+     * @return {@code false} if the dialog is dropped
+     */
+    public boolean show(final SimpleAlertDialogSupportFragment fragment, final String tag) {
+        return show(fragment, tag, PRIORITY_DEFAULT, 0);
+    }
+
+    /**
+     * Shows the dialog now, or after the dialogs of the higher or the same priority.
+     *
+     * @param fragment      Dialog to show
+     * @param tag           Tag of the dialog fragment
+     * @param priority      Priority of the dialog, e.g. {@link #PRIORITY_DEFAULT}
+     * @param timeoutMillis Time in milliseconds to discard the dialog if it has not been shown,
+     *                      or {@code 0} to wait without the limit
+     * @return {@code false} if the dialog is dropped
+     */
+    public boolean show(final SimpleAlertDialogSupportFragment fragment, final String tag,
+                        final int priority, final long timeoutMillis) {
+        Bundle args = fragment.getArguments();
+        if (args == null) {
+            args = new Bundle();
+            fragment.setArguments(args);
+        }
+        return enqueue(fragment, args, tag, priority, timeoutMillis);
+    }
+
+    /**
+     * Shows the dialog now, or after the dialogs requested before.<br/>
+     * Same as {@code show(fragment, tag, PRIORITY_DEFAULT, 0)}.
+     *
+     * @param fragment Dialog to show
+     * @param tag      Tag of the dialog fragment
+     * @return {@code false} if the dialog is dropped
+     */
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB)
+    public boolean show(final SimpleAlertDialogFragment fragment, final String tag) {
+        return show(fragment, tag, PRIORITY_DEFAULT, 0);
+    }
+
+    /**
+     * Shows the dialog now, or after the dialogs of the higher or the same priority.
+     *
+     * @param fragment      Dialog to show
+     * @param tag           Tag of the dialog fragment
+     * @param priority      Priority of the dialog, e.g. {@link #PRIORITY_DEFAULT}
+     * @param timeoutMillis Time in milliseconds to discard the dialog if it has not been shown,
+     *                      or {@code 0} to wait without the limit
+     * @return {@code false} if the dialog is dropped
+     */
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB)
+    public boolean show(final SimpleAlertDialogFragment fragment, final String tag,
+                        final int priority, final long timeoutMillis) {
+        Bundle args = fragment.getArguments();
+        if (args == null) {
+            args = new Bundle();
+            fragment.setArguments(args);
+        }
+        return enqueue(fragment, args, tag, priority, timeoutMillis);
+    }
+
+    /**
+     * Sets whether the duplicate of the waiting dialog replaces it.<br/>
+     * If this is {@code true}, the waiting dialog is updated with the contents of the
+     * newer one, for example the latest error message.
+     * Duplicates of the shown dialog are always dropped,
+     * and duplicates of {@link #PRIORITY_LOW} dialogs are always merged.
+     * Default is {@code false}.
+     *
+     * @param mergeDuplicates {@code true} to replace the waiting dialog
+     * @return This object
+     */
+    public DialogQueue setMergeDuplicates(final boolean mergeDuplicates) {
+        mMergeDuplicates = mergeDuplicates;
+        return this;
+    }
+
+    /**
+     * Sets how many {@link #PRIORITY_LOW} dialogs can wait at the same time.<br/>
+     * Low priority dialogs requested over this limit are dropped. Default is {@code 1}.
+     *
+     * @param maxLowPriorityCount Maximum number of the waiting low priority dialogs
+     * @return This object
+     */
+    public DialogQueue setMaxLowPriorityCount(final int maxLowPriorityCount) {
+        mMaxLowPriorityCount = maxLowPriorityCount;
+        return this;
+    }
+
+    /**
+     * Returns the number of the dialogs waiting to be shown.
+     *
+     * @return Queue depth, excluding the shown dialog and the timed out dialogs
+     */
+    public int size() {
+        purgeExpired(SystemClock.elapsedRealtime());
+        return mEntries.size();
+    }
+
+    /**
+     * Returns whether the dialog shown by this queue has not been dismissed yet.
+     *
+     * @return {@code true} if the dialog is shown
+     */
+    public boolean isShowing() {
+        return mShowing != null;
+    }
+
+    /**
+     * Returns how many dialogs were dropped as duplicates
+     * or over the limit of the low priority dialogs.
+     *
+     * @return Drop count
+     */
+    public int getDroppedCount() {
+        return mDroppedCount;
+    }
+
+    /**
+     * Returns how many waiting dialogs were replaced by their duplicates.
+     *
+     * @return Merge count
+     */
+    public int getMergedCount() {
+        return mMergedCount;
+    }
+
+    /**
+     * Returns how many dialogs were discarded because of their timeout.
+     *
+     * @return Expiration count
+     */
+    public int getExpiredCount() {
+        return mExpiredCount;
+    }
+
+    /**
+     * Returns how many shown dialogs were dismissed by {@link #PRIORITY_CRITICAL} dialogs.
+     *
+     * @return Preemption count
+     */
+    public int getPreemptedCount() {
+        return mPreemptedCount;
+    }
+
+    /**
+     * Shows the next dialog when the dialog shown by the queue is removed.
+     *
+     * @param manager {@code FragmentManager} of the removed dialog
+     * @param args    Arguments of the removed dialog
+     */
+    static void onRemoved(final Object manager, final Bundle args) {
+        if (manager == null || args == null || !args.getBoolean(SimpleAlertDialog.ARG_QUEUED)) {
+            return;
+        }
+        DialogQueue queue = sQueues.get(manager);
+        if (queue == null) {
+            return;
+        }
+        queue.mShowing = null;
+        queue.showNext();
+    }
+
+    /**
+     * Lets the queue of the recreated {@code FragmentManager} take the dialog
+     * that was shown by the queue before the recreation,
+     * so that the new dialogs wait for it to be dismissed.
+     *
+     * @param manager  {@code FragmentManager} of the restored dialog
+     * @param fragment Restored dialog fragment
+     * @param tag      Tag of the restored dialog fragment
+     * @param args     Arguments of the restored dialog fragment
+     */
+    static void onRestored(final Object manager, final Object fragment, final String tag,
+                           final Bundle args) {
+        if (manager == null || args == null || !args.getBoolean(SimpleAlertDialog.ARG_QUEUED)) {
+            return;
+        }
+        DialogQueue queue = obtain(manager);
+        if (queue.mShowing != null) {
+            return;
+        }
+        Entry entry = new Entry(null, tag, DialogSpec.requestCodeOf(args),
+                args.getInt(SimpleAlertDialog.ARG_QUEUE_PRIORITY, PRIORITY_DEFAULT), 0,
+                queue.mSequence++);
+        entry.shown = new WeakReference<Object>(fragment);
+        queue.mShowing = entry;
+    }
+
+    private boolean enqueue(final Object fragment, final Bundle args, final String tag,
+                            final int priority, final long timeoutMillis) {
+        args.putBoolean(SimpleAlertDialog.ARG_QUEUED, true);
+        args.putInt(SimpleAlertDialog.ARG_QUEUE_PRIORITY, priority);
+        final long now = SystemClock.elapsedRealtime();
+        // Timed out dialogs must not block the new one as duplicates or over the limit
+        purgeExpired(now);
+        Entry entry = new Entry(fragment, tag, DialogSpec.requestCodeOf(args),
+                priority, 0 < timeoutMillis ? now + timeoutMillis : 0, mSequence++);
+        if ((mShowing != null && mShowing.equals(entry)) || isAdded(entry)) {
+            mDroppedCount++;
+            return false;
+        }
+        final boolean low = priority <= PRIORITY_LOW;
+        Entry duplicate = mWaiting.get(entry);
+        if (duplicate != null) {
+            if (!mMergeDuplicates && !low && PRIORITY_LOW < duplicate.priority) {
+                mDroppedCount++;
+                return false;
+            }
+            // Replaced at the position of the waiting one
+            remove(duplicate);
+            entry = new Entry(fragment, tag, entry.requestCode,
+                    Math.max(priority, duplicate.priority), entry.expiresAt, duplicate.sequence);
+            mMergedCount++;
+        } else if (low && mMaxLowPriorityCount <= mLowPriorityCount) {
+            mDroppedCount++;
+            return false;
+        }
+        add(entry);
+        if (mShowing != null && PRIORITY_CRITICAL <= priority
+                && mShowing.priority < PRIORITY_CRITICAL) {
+            preempt();
+        } else {
+            showNext();
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the same dialog is already in the {@code FragmentManager},
+     * for example the one restored after the configuration change or shown without the queue.
+     */
+    private boolean isAdded(final Entry entry) {
+        Object manager = mManager.get();
+        if (manager == null || entry.tag == null) {
+            return false;
+        }
+        Bundle args;
+        if (manager instanceof android.support.v4.app.FragmentManager) {
+            android.support.v4.app.Fragment added =
+                    ((android.support.v4.app.FragmentManager) manager).findFragmentByTag(entry.tag);
+            args = added == null || added.isRemoving() ? null : added.getArguments();
+        } else {
+            args = FrameworkFragments.getArguments(manager, entry.tag);
+        }
+        return args != null && DialogSpec.requestCodeOf(args) == entry.requestCode;
+    }
+
+    private void add(final Entry entry) {
+        mEntries.add(entry);
+        mWaiting.put(entry, entry);
+        if (entry.priority <= PRIORITY_LOW) {
+            mLowPriorityCount++;
+        }
+        if (entry.expiresAt != 0 && (mNextExpiresAt == 0 || entry.expiresAt < mNextExpiresAt)) {
+            mNextExpiresAt = entry.expiresAt;
+        }
+    }
+
+    /**
+     * Removes the waiting entry itself.<br/>
+     * The queue finds it by the order, not by the equality of the tag and the request code.
+     */
+    private void remove(final Entry entry) {
+        mEntries.remove(entry);
+        mWaiting.remove(entry);
+        if (entry.priority <= PRIORITY_LOW) {
+            mLowPriorityCount--;
+        }
+    }
+
+    /**
+     * Discards all of the timed out entries, not only the ones at the head of the queue.
+     */
+    private void purgeExpired(final long now) {
+        if (mNextExpiresAt == 0 || now < mNextExpiresAt) {
+            return;
+        }
+        long next = 0;
+        for (Iterator<Entry> i = mEntries.iterator(); i.hasNext(); ) {
+            Entry entry = i.next();
+            if (entry.isExpired(now)) {
+                i.remove();
+                mWaiting.remove(entry);
+                if (entry.priority <= PRIORITY_LOW) {
+                    mLowPriorityCount--;
+                }
+                mExpiredCount++;
+            } else if (entry.expiresAt != 0 && (next == 0 || entry.expiresAt < next)) {
+                next = entry.expiresAt;
+            }
+        }
+        mNextExpiresAt = next;
+    }
+
+    /**
+     * Dismisses the shown dialog, and the critical dialog is shown when it is removed.
+     */
+    private void preempt() {
+        Object shown = mShowing.shown == null ? null : mShowing.shown.get();
+        if (shown == null) {
+            return;
+        }
+        try {
+            if (shown instanceof SimpleAlertDialogSupportFragment) {
+                ((SimpleAlertDialogSupportFragment) shown).dismiss();
+            } else {
+                FrameworkFragments.dismiss(shown);
+            }
+        } catch (IllegalStateException e) {
+            // State of the Activity has been saved: shown after the current dialog
+            return;
+        }
+        mPreemptedCount++;
+    }
+
+    private void showNext() {
+        if (mShowing != null) {
+            return;
+        }
+        Object manager = mManager.get();
+        if (manager == null) {
+            mEntries.clear();
+            mWaiting.clear();
+            mLowPriorityCount = 0;
+            mNextExpiresAt = 0;
+            return;
+        }
+        purgeExpired(SystemClock.elapsedRealtime());
+        if (mEntries.isEmpty()) {
+            return;
+        }
+        Entry entry = mEntries.first();
+        try {
+            if (entry.fragment instanceof SimpleAlertDialogSupportFragment) {
+                ((SimpleAlertDialogSupportFragment) entry.fragment).show(
+                        (android.support.v4.app.FragmentManager) manager, entry.tag);
+            } else {
+                FrameworkFragments.show(manager, entry.fragment, entry.tag);
+            }
+        } catch (IllegalStateException e) {
+            // State of the Activity has been saved: retried on the next request
+            return;
+        }
+        remove(entry);
+        // Shown fragment holds the Activity, so it is referenced weakly
+        entry.shown = new WeakReference<Object>(entry.fragment);
+        entry.fragment = null;
+        mShowing = entry;
+    }
+
+    /**
+     * Dialog waiting to be shown.<br/>
+     * Entries with the same tag and request code are equal.
+     */
+    private static final class Entry {
+        Object fragment;
+        WeakReference<Object> shown;
+        final String tag;
+        final int requestCode;
+        final int priority;
+        final long expiresAt;
+        final long sequence;
+
+        Entry(final Object fragment, final String tag, final int requestCode, final int priority,
+              final long expiresAt, final long sequence) {
+            this.fragment = fragment;
+            this.tag = tag;
+            this.requestCode = requestCode;
+            this.priority = priority;
+            this.expiresAt = expiresAt;
+            this.sequence = sequence;
+        }
+
+        boolean isExpired(final long now) {
+            return expiresAt != 0 && expiresAt <= now;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry other = (Entry) o;
+            return requestCode == other.requestCode
+                    && (tag == null ? other.tag == null : tag.equals(other.tag));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * requestCode + (tag == null ? 0 : tag.hashCode());
+        }
+    }
+
+    /**
+     * Separated to avoid loading the framework fragments on API level 10 and earlier.
+     */
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB)
+    private static final class FrameworkFragments {
+        static void show(final Object manager, final Object fragment, final String tag) {
+            ((SimpleAlertDialogFragment) fragment).show(
+                    (android.app.FragmentManager) manager, tag);
+        }
+
+        static void dismiss(final Object fragment) {
+            ((SimpleAlertDialogFragment) fragment).dismiss();
+        }
+
+        static Bundle getArguments(final Object manager, final String tag) {
+            android.app.Fragment added =
+                    ((android.app.FragmentManager) manager).findFragmentByTag(tag);
+            return added == null || added.isRemoving() ? null : added.getArguments();
+        }
+    }
+}
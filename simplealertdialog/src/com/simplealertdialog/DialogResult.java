@@ -0,0 +1,119 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import android.view.View;
+import android.widget.EditText;
+
+/**
+ * Result of the dialog shown by {@code showForResult()} of the builders.
+ *
+ * @author Soichiro Kashima
+ * @see com.simplealertdialog.PendingDialogResult
+ */
+public final class DialogResult {
+
+    public static final int POSITIVE = DialogCallbackDispatcher.EVENT_POSITIVE;
+    public static final int NEGATIVE = DialogCallbackDispatcher.EVENT_NEGATIVE;
+    public static final int NEUTRAL = DialogCallbackDispatcher.EVENT_NEUTRAL;
+    public static final int CANCELED = DialogCallbackDispatcher.EVENT_CANCEL;
+    public static final int ITEM = DialogCallbackDispatcher.EVENT_ITEM_CLICK;
+
+    private final int mType;
+    private final int mRequestCode;
+    private final int mPosition;
+    private final String mText;
+
+    DialogResult(final int type, final int requestCode, final int position, final String text) {
+        mType = type;
+        mRequestCode = requestCode;
+        mPosition = position;
+        mText = text;
+    }
+
+    /**
+     * Creates the result from the event of the dialog.
+     *
+     * @param event       One of the {@code DialogCallbackDispatcher.EVENT_*} constants
+     * @param requestCode Request code of the dialog
+     * @param view        Custom view of the dialog, or {@code null}
+     * @param position    Position of the clicked item, or {@code -1}
+     * @return Result
+     */
+    static DialogResult of(final int event, final int requestCode, final View view,
+                           final int position) {
+        String text = null;
+        if (view != null) {
+            View editText = view.findViewById(android.R.id.text1);
+            if (editText instanceof EditText) {
+                text = ((EditText) editText).getText().toString();
+            }
+        }
+        return new DialogResult(event, requestCode, event == ITEM ? position : -1, text);
+    }
+
+    /**
+     * Returns how the dialog was closed.
+     *
+     * @return One of {@link #POSITIVE}, {@link #NEGATIVE}, {@link #NEUTRAL},
+     * {@link #ITEM} and {@link #CANCELED}
+     */
+    public int getType() {
+        return mType;
+    }
+
+    /**
+     * Returns the request code set to the builder.
+     *
+     * @return Request code
+     */
+    public int getRequestCode() {
+        return mRequestCode;
+    }
+
+    /**
+     * Returns the position of the clicked item.
+     *
+     * @return Position, or {@code -1} if the type is not {@link #ITEM}
+     */
+    public int getPosition() {
+        return mPosition;
+    }
+
+    /**
+     * Returns the contents of the {@code EditText} when the dialog was closed.
+     *
+     * @return Text, or {@code null} if the dialog does not have the {@code EditText}
+     */
+    public String getText() {
+        return mText;
+    }
+
+    public boolean isPositive() {
+        return mType == POSITIVE;
+    }
+
+    public boolean isCanceled() {
+        return mType == CANCELED;
+    }
+
+    @Override
+    public String toString() {
+        return "DialogResult{type=" + mType + ", requestCode=" + mRequestCode
+                + ", position=" + mPosition + "}";
+    }
+}
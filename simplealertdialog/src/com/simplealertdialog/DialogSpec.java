@@ -0,0 +1,689 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import android.annotation.TargetApi;
+import android.app.Activity;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.text.TextUtils;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Immutable styles of the dialog built by
+ * {@link com.simplealertdialog.SimpleAlertDialog.Builder#build()}.<br/>
+ * The spec can be kept in a static field and shown many times.
+ * The fragments share the spec in their arguments, and it is encoded only once
+ * in a compact form when the fragments save their state.
+ * <pre>
+ * private static final DialogSpec CONFIRM = new SimpleAlertDialogSupportFragment.Builder()
+ *         .setMessage(R.string.msg_confirm)
+ *         .setPositiveButton(android.R.string.ok)
+ *         .build();
+ *
+ * SimpleAlertDialogSupportFragment.newInstance(CONFIRM)
+ *         .show(getSupportFragmentManager(), "confirm");
+ * </pre>
+ *
+ * @author Soichiro Kashima
+ */
+public final class DialogSpec implements Parcelable {
+
+    /**
+     * Creator of the spec parceled by {@link #writeToParcel(android.os.Parcel, int)}.
+     */
+    public static final Parcelable.Creator<DialogSpec> CREATOR =
+            new Parcelable.Creator<DialogSpec>() {
+                @Override
+                public DialogSpec createFromParcel(final Parcel source) {
+                    return decode(source.createByteArray(), source.createByteArray());
+                }
+
+                @Override
+                public DialogSpec[] newArray(final int size) {
+                    return new DialogSpec[size];
+                }
+            };
+
+    // Each flag tells that the field differs from the default and is encoded
+    private static final int FLAG_THEME = 1;
+    private static final int FLAG_TITLE = 1 << 1;
+    private static final int FLAG_TITLE_RES_ID = 1 << 2;
+    private static final int FLAG_ICON = 1 << 3;
+    private static final int FLAG_MESSAGE = 1 << 4;
+    private static final int FLAG_MESSAGE_RES_ID = 1 << 5;
+    private static final int FLAG_POSITIVE_BUTTON = 1 << 6;
+    private static final int FLAG_POSITIVE_BUTTON_RES_ID = 1 << 7;
+    private static final int FLAG_NEUTRAL_BUTTON = 1 << 8;
+    private static final int FLAG_NEUTRAL_BUTTON_RES_ID = 1 << 9;
+    private static final int FLAG_NEGATIVE_BUTTON = 1 << 10;
+    private static final int FLAG_NEGATIVE_BUTTON_RES_ID = 1 << 11;
+    private static final int FLAG_ITEMS = 1 << 12;
+    private static final int FLAG_ITEMS_RES_ID = 1 << 13;
+    private static final int FLAG_ICONS = 1 << 14;
+    private static final int FLAG_REQUEST_CODE = 1 << 15;
+    private static final int FLAG_NOT_CANCELABLE = 1 << 16;
+    private static final int FLAG_NOT_CANCELED_ON_TOUCH_OUTSIDE = 1 << 17;
+    private static final int FLAG_SINGLE_CHOICE_CHECKED_ITEM = 1 << 18;
+    private static final int FLAG_EDIT_TEXT = 1 << 19;
+    private static final int FLAG_EDIT_TEXT_INITIAL_TEXT = 1 << 20;
+    private static final int FLAG_USE_VIEW = 1 << 21;
+    private static final int FLAG_USE_ADAPTER = 1 << 22;
+    private static final int FLAG_USE_LARGE_LIST = 1 << 23;
+    private static final int TEXT_FLAGS = FLAG_TITLE | FLAG_MESSAGE | FLAG_POSITIVE_BUTTON
+            | FLAG_NEUTRAL_BUTTON | FLAG_NEGATIVE_BUTTON | FLAG_ITEMS | FLAG_EDIT_TEXT_INITIAL_TEXT;
+
+    final int themeResId;
+    final CharSequence title;
+    final int titleResId;
+    final int icon;
+    final CharSequence message;
+    final int messageResId;
+    final CharSequence positiveButton;
+    final int positiveButtonResId;
+    final CharSequence neutralButton;
+    final int neutralButtonResId;
+    final CharSequence negativeButton;
+    final int negativeButtonResId;
+    final CharSequence[] items;
+    final int itemsResId;
+    final int[] icons;
+    final int requestCode;
+    final boolean cancelable;
+    final boolean canceledOnTouchOutside;
+    final int singleChoiceCheckedItem;
+    final boolean hasEditText;
+    final CharSequence editTextInitialText;
+    final int editTextInputType;
+    final boolean useView;
+    final boolean useAdapter;
+    final boolean useLargeList;
+    final String resultToken;
+    private byte[] mHeader;
+    private byte[] mTexts;
+    private int mStored = -1;
+
+    /**
+     * Mutable values of the spec, which are copied to the final fields of the spec.
+     */
+    static final class Values {
+        int themeResId;
+        CharSequence title;
+        int titleResId;
+        int icon;
+        CharSequence message;
+        int messageResId;
+        CharSequence positiveButton;
+        int positiveButtonResId;
+        CharSequence neutralButton;
+        int neutralButtonResId;
+        CharSequence negativeButton;
+        int negativeButtonResId;
+        CharSequence[] items;
+        int itemsResId;
+        int[] icons;
+        int requestCode;
+        boolean cancelable = true;
+        boolean canceledOnTouchOutside = true;
+        int singleChoiceCheckedItem = -1;
+        boolean hasEditText;
+        CharSequence editTextInitialText;
+        int editTextInputType;
+        boolean useView;
+        boolean useAdapter;
+        boolean useLargeList;
+        String resultToken;
+    }
+
+    DialogSpec(final Values values) {
+        themeResId = values.themeResId;
+        title = values.title;
+        titleResId = values.titleResId;
+        icon = values.icon;
+        message = values.message;
+        messageResId = values.messageResId;
+        positiveButton = values.positiveButton;
+        positiveButtonResId = values.positiveButtonResId;
+        neutralButton = values.neutralButton;
+        neutralButtonResId = values.neutralButtonResId;
+        negativeButton = values.negativeButton;
+        negativeButtonResId = values.negativeButtonResId;
+        items = values.items;
+        itemsResId = values.itemsResId;
+        icons = values.icons;
+        requestCode = values.requestCode;
+        cancelable = values.cancelable;
+        canceledOnTouchOutside = values.canceledOnTouchOutside;
+        singleChoiceCheckedItem = values.singleChoiceCheckedItem;
+        hasEditText = values.hasEditText;
+        editTextInitialText = values.editTextInitialText;
+        editTextInputType = values.editTextInputType;
+        useView = values.useView;
+        useAdapter = values.useAdapter;
+        useLargeList = values.useLargeList;
+        resultToken = values.resultToken;
+    }
+
+    /**
+     * Returns the request code of the dialog.
+     *
+     * @return Request code
+     */
+    public int getRequestCode() {
+        return requestCode;
+    }
+
+    /**
+     * Creates the new dialog and shows it directly, without {@code DialogFragment}.
+     *
+     * @param activity {@code Activity} to show the dialog
+     * @return Shown dialog
+     * @see com.simplealertdialog.SimpleAlertDialog.Builder#showDirect(android.app.Activity)
+     */
+    public SimpleAlertDialog showDirect(final Activity activity) {
+        return DirectDialog.show(activity, null, this);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(final Parcel dest, final int flags) {
+        synchronized (this) {
+            if (mHeader == null) {
+                encode();
+            }
+        }
+        dest.writeByteArray(mHeader);
+        dest.writeByteArray(mTexts);
+    }
+
+    /**
+     * Reads the styles from the arguments of the dialog fragment.<br/>
+     * Arguments with the keys of the older versions are also accepted.
+     *
+     * @param args Arguments created by {@link #toArguments()}, or {@code null}
+     * @return Styles of the dialog
+     */
+    static DialogSpec fromArguments(final Bundle args) {
+        if (args == null) {
+            return new DialogSpec(new Values());
+        }
+        args.setClassLoader(DialogSpec.class.getClassLoader());
+        DialogSpec spec = args.getParcelable(SimpleAlertDialog.ARG_SPEC);
+        return spec != null ? spec : fromLegacyArguments(args);
+    }
+
+    /**
+     * Returns the request code in the arguments of the dialog fragment.
+     *
+     * @param args Arguments of the dialog fragment
+     * @return Request code
+     */
+    static int requestCodeOf(final Bundle args) {
+        if (args == null) {
+            return 0;
+        }
+        args.setClassLoader(DialogSpec.class.getClassLoader());
+        DialogSpec spec = args.getParcelable(SimpleAlertDialog.ARG_SPEC);
+        return spec != null ? spec.requestCode : args.getInt(SimpleAlertDialog.ARG_REQUEST_CODE);
+    }
+
+    /**
+     * Creates the arguments of the dialog fragment.<br/>
+     * The spec itself is shared by the arguments, and only the values
+     * for each fragment are put in addition.
+     *
+     * @return Created arguments bundle
+     */
+    Bundle toArguments() {
+        Bundle args = new Bundle();
+        args.putParcelable(SimpleAlertDialog.ARG_SPEC, this);
+        // Stored entry is released with the fragment, so each fragment has its own entry
+        if (isStored()) {
+            args.putString(SimpleAlertDialog.ARG_ITEM_STORE, ItemStore.put(
+                    new ItemStore.Entry(items, icons, hasEditText ? editTextInitialText : null)));
+        }
+        if (resultToken != null) {
+            args.putString(SimpleAlertDialog.ARG_RESULT_TOKEN, resultToken);
+        }
+        ParcelSizeMonitor.onArgumentsCreated(args);
+        return args;
+    }
+
+    /**
+     * Creates the arguments of the dialog fragment with the keys for each field,
+     * which are used by the older versions.
+     *
+     * @return Created arguments bundle
+     */
+    @TargetApi(Build.VERSION_CODES.FROYO)
+    Bundle toLegacyArguments() {
+        Bundle args = new Bundle();
+        if (themeResId > 0) {
+            args.putInt(SimpleAlertDialog.ARG_THEME_RES_ID, themeResId);
+        }
+        if (title != null) {
+            args.putCharSequence(SimpleAlertDialog.ARG_TITLE, title);
+        } else if (titleResId > 0) {
+            args.putInt(SimpleAlertDialog.ARG_TITLE_RES_ID, titleResId);
+        }
+        if (icon > 0) {
+            args.putInt(SimpleAlertDialog.ARG_ICON, icon);
+        }
+        if (message != null) {
+            args.putCharSequence(SimpleAlertDialog.ARG_MESSAGE, message);
+        } else if (messageResId > 0) {
+            args.putInt(SimpleAlertDialog.ARG_MESSAGE_RES_ID, messageResId);
+        }
+        if (positiveButton != null) {
+            args.putCharSequence(SimpleAlertDialog.ARG_POSITIVE_BUTTON, positiveButton);
+        } else if (positiveButtonResId > 0) {
+            args.putInt(SimpleAlertDialog.ARG_POSITIVE_BUTTON_RES_ID, positiveButtonResId);
+        }
+        if (neutralButton != null) {
+            args.putCharSequence(SimpleAlertDialog.ARG_NEUTRAL_BUTTON, neutralButton);
+        } else if (neutralButtonResId > 0) {
+            args.putInt(SimpleAlertDialog.ARG_NEUTRAL_BUTTON_RES_ID, neutralButtonResId);
+        }
+        if (negativeButton != null) {
+            args.putCharSequence(SimpleAlertDialog.ARG_NEGATIVE_BUTTON, negativeButton);
+        } else if (negativeButtonResId > 0) {
+            args.putInt(SimpleAlertDialog.ARG_NEGATIVE_BUTTON_RES_ID, negativeButtonResId);
+        }
+        final CharSequence[] bundledItems =
+                Build.VERSION_CODES.ECLAIR <= Build.VERSION.SDK_INT ? items : null;
+        // Large payload is kept outside of the Bundle and only its handle is put
+        final CharSequence editText = hasEditText ? editTextInitialText : null;
+        final boolean stored = ItemStore.isLarge(bundledItems, icons, editText);
+        if (stored) {
+            args.putString(SimpleAlertDialog.ARG_ITEM_STORE, ItemStore.put(
+                    new ItemStore.Entry(bundledItems, icons, editText)));
+        }
+        if (bundledItems != null) {
+            if (!stored) {
+                args.putCharSequenceArray(SimpleAlertDialog.ARG_ITEMS, bundledItems);
+            }
+        } else if (itemsResId > 0) {
+            args.putInt(SimpleAlertDialog.ARG_ITEMS_RES_ID, itemsResId);
+        }
+        if (icons != null && !stored) {
+            args.putIntArray(SimpleAlertDialog.ARG_ICONS, icons);
+        }
+        args.putBoolean(SimpleAlertDialog.ARG_CANCELABLE, cancelable);
+        args.putBoolean(SimpleAlertDialog.ARG_CANCELED_ON_TOUCH_OUTSIDE, canceledOnTouchOutside);
+        if (singleChoiceCheckedItem >= 0) {
+            args.putInt(SimpleAlertDialog.ARG_SINGLE_CHOICE_CHECKED_ITEM, singleChoiceCheckedItem);
+        }
+        if (hasEditText) {
+            if (!stored) {
+                args.putCharSequence(SimpleAlertDialog.ARG_EDIT_TEXT_INITIAL_TEXT,
+                        editTextInitialText);
+            }
+            args.putInt(SimpleAlertDialog.ARG_EDIT_TEXT_INPUT_TYPE, editTextInputType);
+        }
+        args.putBoolean(SimpleAlertDialog.ARG_USE_VIEW, useView);
+        args.putBoolean(SimpleAlertDialog.ARG_USE_ADAPTER, useAdapter);
+        if (useLargeList) {
+            args.putBoolean(SimpleAlertDialog.ARG_USE_LARGE_LIST, true);
+        }
+        args.putInt(SimpleAlertDialog.ARG_REQUEST_CODE, requestCode);
+        if (resultToken != null) {
+            args.putString(SimpleAlertDialog.ARG_RESULT_TOKEN, resultToken);
+        }
+        return args;
+    }
+
+    @TargetApi(Build.VERSION_CODES.FROYO)
+    private static DialogSpec fromLegacyArguments(final Bundle args) {
+        Values values = new Values();
+        values.themeResId = args.getInt(SimpleAlertDialog.ARG_THEME_RES_ID);
+        values.title = args.getCharSequence(SimpleAlertDialog.ARG_TITLE);
+        values.titleResId = args.getInt(SimpleAlertDialog.ARG_TITLE_RES_ID);
+        values.icon = args.getInt(SimpleAlertDialog.ARG_ICON);
+        values.message = args.getCharSequence(SimpleAlertDialog.ARG_MESSAGE);
+        values.messageResId = args.getInt(SimpleAlertDialog.ARG_MESSAGE_RES_ID);
+        values.positiveButton = args.getCharSequence(SimpleAlertDialog.ARG_POSITIVE_BUTTON);
+        values.positiveButtonResId = args.getInt(SimpleAlertDialog.ARG_POSITIVE_BUTTON_RES_ID);
+        values.neutralButton = args.getCharSequence(SimpleAlertDialog.ARG_NEUTRAL_BUTTON);
+        values.neutralButtonResId = args.getInt(SimpleAlertDialog.ARG_NEUTRAL_BUTTON_RES_ID);
+        values.negativeButton = args.getCharSequence(SimpleAlertDialog.ARG_NEGATIVE_BUTTON);
+        values.negativeButtonResId = args.getInt(SimpleAlertDialog.ARG_NEGATIVE_BUTTON_RES_ID);
+        if (Build.VERSION_CODES.ECLAIR <= Build.VERSION.SDK_INT) {
+            values.items = args.getCharSequenceArray(SimpleAlertDialog.ARG_ITEMS);
+        }
+        values.itemsResId = args.getInt(SimpleAlertDialog.ARG_ITEMS_RES_ID);
+        values.icons = args.getIntArray(SimpleAlertDialog.ARG_ICONS);
+        values.requestCode = args.getInt(SimpleAlertDialog.ARG_REQUEST_CODE);
+        values.cancelable = args.getBoolean(SimpleAlertDialog.ARG_CANCELABLE, true);
+        values.canceledOnTouchOutside = args.getBoolean(
+                SimpleAlertDialog.ARG_CANCELED_ON_TOUCH_OUTSIDE, values.cancelable);
+        values.singleChoiceCheckedItem =
+                args.getInt(SimpleAlertDialog.ARG_SINGLE_CHOICE_CHECKED_ITEM, -1);
+        // Initial text is kept in the store when the payload is large
+        values.hasEditText = args.containsKey(SimpleAlertDialog.ARG_EDIT_TEXT_INPUT_TYPE)
+                && (args.containsKey(SimpleAlertDialog.ARG_EDIT_TEXT_INITIAL_TEXT)
+                || ItemStore.getHandle(args) != null);
+        values.editTextInitialText =
+                args.getCharSequence(SimpleAlertDialog.ARG_EDIT_TEXT_INITIAL_TEXT);
+        values.editTextInputType = args.getInt(SimpleAlertDialog.ARG_EDIT_TEXT_INPUT_TYPE);
+        values.useView = args.getBoolean(SimpleAlertDialog.ARG_USE_VIEW);
+        values.useAdapter = args.getBoolean(SimpleAlertDialog.ARG_USE_ADAPTER);
+        values.useLargeList = args.getBoolean(SimpleAlertDialog.ARG_USE_LARGE_LIST);
+        return new DialogSpec(values);
+    }
+
+    private synchronized boolean isStored() {
+        if (mStored < 0) {
+            mStored = ItemStore.isLarge(items, icons, hasEditText ? editTextInitialText : null)
+                    ? 1 : 0;
+        }
+        return mStored == 1;
+    }
+
+    /**
+     * Encodes the flags word and the resource IDs as varints, and the texts in a separate block.
+     * Payload in {@link com.simplealertdialog.ItemStore} is not encoded.
+     */
+    private void encode() {
+        final boolean stored = isStored();
+        int flags = 0;
+        if (themeResId != 0) {
+            flags |= FLAG_THEME;
+        }
+        if (title != null) {
+            flags |= FLAG_TITLE;
+        } else if (titleResId != 0) {
+            flags |= FLAG_TITLE_RES_ID;
+        }
+        if (icon != 0) {
+            flags |= FLAG_ICON;
+        }
+        if (message != null) {
+            flags |= FLAG_MESSAGE;
+        } else if (messageResId != 0) {
+            flags |= FLAG_MESSAGE_RES_ID;
+        }
+        if (positiveButton != null) {
+            flags |= FLAG_POSITIVE_BUTTON;
+        } else if (positiveButtonResId != 0) {
+            flags |= FLAG_POSITIVE_BUTTON_RES_ID;
+        }
+        if (neutralButton != null) {
+            flags |= FLAG_NEUTRAL_BUTTON;
+        } else if (neutralButtonResId != 0) {
+            flags |= FLAG_NEUTRAL_BUTTON_RES_ID;
+        }
+        if (negativeButton != null) {
+            flags |= FLAG_NEGATIVE_BUTTON;
+        } else if (negativeButtonResId != 0) {
+            flags |= FLAG_NEGATIVE_BUTTON_RES_ID;
+        }
+        if (items != null) {
+            if (!stored) {
+                flags |= FLAG_ITEMS;
+            }
+        } else if (itemsResId != 0) {
+            flags |= FLAG_ITEMS_RES_ID;
+        }
+        if (icons != null && !stored) {
+            flags |= FLAG_ICONS;
+        }
+        if (requestCode != 0) {
+            flags |= FLAG_REQUEST_CODE;
+        }
+        if (!cancelable) {
+            flags |= FLAG_NOT_CANCELABLE;
+        }
+        if (!canceledOnTouchOutside) {
+            flags |= FLAG_NOT_CANCELED_ON_TOUCH_OUTSIDE;
+        }
+        if (singleChoiceCheckedItem >= 0) {
+            flags |= FLAG_SINGLE_CHOICE_CHECKED_ITEM;
+        }
+        if (hasEditText) {
+            flags |= FLAG_EDIT_TEXT;
+            if (editTextInitialText != null && !stored) {
+                flags |= FLAG_EDIT_TEXT_INITIAL_TEXT;
+            }
+        }
+        if (useView) {
+            flags |= FLAG_USE_VIEW;
+        }
+        if (useAdapter) {
+            flags |= FLAG_USE_ADAPTER;
+        }
+        if (useLargeList) {
+            flags |= FLAG_USE_LARGE_LIST;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32);
+        writeVarint(out, flags);
+        if ((flags & FLAG_THEME) != 0) {
+            writeResId(out, themeResId);
+        }
+        if ((flags & FLAG_TITLE_RES_ID) != 0) {
+            writeResId(out, titleResId);
+        }
+        if ((flags & FLAG_ICON) != 0) {
+            writeResId(out, icon);
+        }
+        if ((flags & FLAG_MESSAGE_RES_ID) != 0) {
+            writeResId(out, messageResId);
+        }
+        if ((flags & FLAG_POSITIVE_BUTTON_RES_ID) != 0) {
+            writeResId(out, positiveButtonResId);
+        }
+        if ((flags & FLAG_NEUTRAL_BUTTON_RES_ID) != 0) {
+            writeResId(out, neutralButtonResId);
+        }
+        if ((flags & FLAG_NEGATIVE_BUTTON_RES_ID) != 0) {
+            writeResId(out, negativeButtonResId);
+        }
+        if ((flags & FLAG_ITEMS_RES_ID) != 0) {
+            writeResId(out, itemsResId);
+        }
+        if ((flags & FLAG_ICONS) != 0) {
+            writeVarint(out, icons.length);
+            for (int id : icons) {
+                writeResId(out, id);
+            }
+        }
+        if ((flags & FLAG_REQUEST_CODE) != 0) {
+            // ZigZag encoding keeps the small negative values short
+            writeVarint(out, (requestCode << 1) ^ (requestCode >> 31));
+        }
+        if ((flags & FLAG_SINGLE_CHOICE_CHECKED_ITEM) != 0) {
+            writeVarint(out, singleChoiceCheckedItem);
+        }
+        if ((flags & FLAG_EDIT_TEXT) != 0) {
+            writeVarint(out, editTextInputType);
+        }
+        mHeader = out.toByteArray();
+        mTexts = (flags & TEXT_FLAGS) == 0 ? null : encodeTexts(flags);
+    }
+
+    private byte[] encodeTexts(final int flags) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            if ((flags & FLAG_TITLE) != 0) {
+                TextUtils.writeToParcel(title, parcel, 0);
+            }
+            if ((flags & FLAG_MESSAGE) != 0) {
+                TextUtils.writeToParcel(message, parcel, 0);
+            }
+            if ((flags & FLAG_POSITIVE_BUTTON) != 0) {
+                TextUtils.writeToParcel(positiveButton, parcel, 0);
+            }
+            if ((flags & FLAG_NEUTRAL_BUTTON) != 0) {
+                TextUtils.writeToParcel(neutralButton, parcel, 0);
+            }
+            if ((flags & FLAG_NEGATIVE_BUTTON) != 0) {
+                TextUtils.writeToParcel(negativeButton, parcel, 0);
+            }
+            if ((flags & FLAG_ITEMS) != 0) {
+                parcel.writeInt(items.length);
+                for (CharSequence item : items) {
+                    TextUtils.writeToParcel(item, parcel, 0);
+                }
+            }
+            if ((flags & FLAG_EDIT_TEXT_INITIAL_TEXT) != 0) {
+                TextUtils.writeToParcel(editTextInitialText, parcel, 0);
+            }
+            return parcel.marshall();
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private static DialogSpec decode(final byte[] header, final byte[] texts) {
+        Values values = new Values();
+        int[] position = new int[1];
+        final int flags = readVarint(header, position);
+        if ((flags & FLAG_THEME) != 0) {
+            values.themeResId = readResId(header, position);
+        }
+        if ((flags & FLAG_TITLE_RES_ID) != 0) {
+            values.titleResId = readResId(header, position);
+        }
+        if ((flags & FLAG_ICON) != 0) {
+            values.icon = readResId(header, position);
+        }
+        if ((flags & FLAG_MESSAGE_RES_ID) != 0) {
+            values.messageResId = readResId(header, position);
+        }
+        if ((flags & FLAG_POSITIVE_BUTTON_RES_ID) != 0) {
+            values.positiveButtonResId = readResId(header, position);
+        }
+        if ((flags & FLAG_NEUTRAL_BUTTON_RES_ID) != 0) {
+            values.neutralButtonResId = readResId(header, position);
+        }
+        if ((flags & FLAG_NEGATIVE_BUTTON_RES_ID) != 0) {
+            values.negativeButtonResId = readResId(header, position);
+        }
+        if ((flags & FLAG_ITEMS_RES_ID) != 0) {
+            values.itemsResId = readResId(header, position);
+        }
+        if ((flags & FLAG_ICONS) != 0) {
+            values.icons = new int[readVarint(header, position)];
+            for (int i = 0; i < values.icons.length; i++) {
+                values.icons[i] = readResId(header, position);
+            }
+        }
+        if ((flags & FLAG_REQUEST_CODE) != 0) {
+            int zigZag = readVarint(header, position);
+            values.requestCode = (zigZag >>> 1) ^ -(zigZag & 1);
+        }
+        values.cancelable = (flags & FLAG_NOT_CANCELABLE) == 0;
+        values.canceledOnTouchOutside = (flags & FLAG_NOT_CANCELED_ON_TOUCH_OUTSIDE) == 0;
+        if ((flags & FLAG_SINGLE_CHOICE_CHECKED_ITEM) != 0) {
+            values.singleChoiceCheckedItem = readVarint(header, position);
+        }
+        if ((flags & FLAG_EDIT_TEXT) != 0) {
+            values.hasEditText = true;
+            values.editTextInputType = readVarint(header, position);
+        }
+        values.useView = (flags & FLAG_USE_VIEW) != 0;
+        values.useAdapter = (flags & FLAG_USE_ADAPTER) != 0;
+        values.useLargeList = (flags & FLAG_USE_LARGE_LIST) != 0;
+        if (texts != null) {
+            decodeTexts(values, flags, texts);
+        }
+        DialogSpec decoded = new DialogSpec(values);
+        // Encoded form is kept, so the restored values is not encoded again
+        decoded.mHeader = header;
+        decoded.mTexts = texts;
+        return decoded;
+    }
+
+    private static void decodeTexts(final Values values, final int flags, final byte[] texts) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            parcel.unmarshall(texts, 0, texts.length);
+            parcel.setDataPosition(0);
+            if ((flags & FLAG_TITLE) != 0) {
+                values.title = TextUtils.CHAR_SEQUENCE_CREATOR.createFromParcel(parcel);
+            }
+            if ((flags & FLAG_MESSAGE) != 0) {
+                values.message = TextUtils.CHAR_SEQUENCE_CREATOR.createFromParcel(parcel);
+            }
+            if ((flags & FLAG_POSITIVE_BUTTON) != 0) {
+                values.positiveButton = TextUtils.CHAR_SEQUENCE_CREATOR.createFromParcel(parcel);
+            }
+            if ((flags & FLAG_NEUTRAL_BUTTON) != 0) {
+                values.neutralButton = TextUtils.CHAR_SEQUENCE_CREATOR.createFromParcel(parcel);
+            }
+            if ((flags & FLAG_NEGATIVE_BUTTON) != 0) {
+                values.negativeButton = TextUtils.CHAR_SEQUENCE_CREATOR.createFromParcel(parcel);
+            }
+            if ((flags & FLAG_ITEMS) != 0) {
+                values.items = new CharSequence[parcel.readInt()];
+                for (int i = 0; i < values.items.length; i++) {
+                    values.items[i] = TextUtils.CHAR_SEQUENCE_CREATOR.createFromParcel(parcel);
+                }
+            }
+            if ((flags & FLAG_EDIT_TEXT_INITIAL_TEXT) != 0) {
+                values.editTextInitialText =
+                        TextUtils.CHAR_SEQUENCE_CREATOR.createFromParcel(parcel);
+            }
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private static void writeVarint(final ByteArrayOutputStream out, final int value) {
+        int v = value;
+        while ((v & ~0x7f) != 0) {
+            out.write((v & 0x7f) | 0x80);
+            v >>>= 7;
+        }
+        out.write(v);
+    }
+
+    private static int readVarint(final byte[] data, final int[] position) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = data[position[0]++];
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Resource IDs (0xPPTTEEEE) are too large for a short varint,
+     * so the package, the type and the entry are written separately.
+     */
+    private static void writeResId(final ByteArrayOutputStream out, final int resId) {
+        writeVarint(out, resId >>> 24);
+        writeVarint(out, (resId >>> 16) & 0xff);
+        writeVarint(out, resId & 0xffff);
+    }
+
+    private static int readResId(final byte[] data, final int[] position) {
+        int packageId = readVarint(data, position);
+        int typeId = readVarint(data, position);
+        return (packageId << 24) | (typeId << 16) | readVarint(data, position);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import android.app.Activity;
+import android.content.DialogInterface;
+
+/**
+ * Shows {@link com.simplealertdialog.SimpleAlertDialog} without {@code DialogFragment}.<br/>
+ * The dialog is built from {@link com.simplealertdialog.DialogSpec} directly,
+ * and the cancel event that {@code DialogFragment} handles for the fragment path
+ * is handled here.<br/>
+ * The dialog is returned to the caller, who may still hold it after the dismissal,
+ * so it is never recycled to {@link com.simplealertdialog.DialogPool}.
+ *
+ * @author Soichiro Kashima
+ */
+final class DirectDialog {
+
+    private DirectDialog() {
+    }
+
+    /**
+     * Creates the dialog and shows it.
+     *
+     * @param activity Owner {@code Activity} of the dialog
+     * @param target   Target fragment, or {@code null}
+     * @param spec     Styles of the dialog
+     * @return Shown dialog
+     */
+    static SimpleAlertDialog show(final Activity activity, final Object target,
+                                  final DialogSpec spec) {
+        InternalHelper<Object, Activity> helper = new InternalHelper<Object, Activity>() {
+            public Activity getActivity() {
+                return activity;
+            }
+
+            public Object getTargetFragment() {
+                return target;
+            }
+        };
+        final SimpleAlertDialog dialog = (SimpleAlertDialog) helper.createDialog(spec, null);
+        final DispatchTable table = helper.getDispatchTable();
+        // setCanceledOnTouchOutside(true) makes the dialog cancelable, so this must be later
+        dialog.setCancelable(spec.cancelable);
+        dialog.setOnCancelListener(new DialogInterface.OnCancelListener() {
+            @Override
+            public void onCancel(final DialogInterface d) {
+                // Canceling after the click is a duplicate event
+                if (dialog.tryDispatch()) {
+                    table.onCancel(dialog);
+                }
+            }
+        });
+        dialog.show();
+        return dialog;
+    }
+}
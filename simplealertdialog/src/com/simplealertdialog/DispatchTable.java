@@ -0,0 +1,278 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import android.view.View;
+
+/**
+ * Callback targets of the dialog resolved once when the dialog is created.<br/>
+ * Which listener interfaces the target {@code Fragment} and the {@code Activity}
+ * implement is kept as bitmasks, so the events are sent to the targets
+ * without checking their classes again.
+ * Methods annotated for the events are called through the
+ * {@link com.simplealertdialog.DialogCallbackDispatcher} generated for the class, if any,
+ * and the {@link com.simplealertdialog.DialogHandlers} registered to the class are called
+ * as well.
+ *
+ * @author Soichiro Kashima
+ */
+final class DispatchTable {
+
+    static final int ON_CLICK = 1;
+    static final int ON_NEUTRAL_BUTTON_CLICK = 1 << 1;
+    static final int ON_CANCEL = 1 << 2;
+    static final int ON_ITEM_CLICK = 1 << 3;
+    static final int VIEW_PROVIDER = 1 << 4;
+    static final int LIST_PROVIDER = 1 << 5;
+    static final int SINGLE_CHOICE_ARRAY_ITEM_PROVIDER = 1 << 6;
+
+    private final Object mFragment;
+    private final Object mActivity;
+    private final int mFragmentMask;
+    private final int mActivityMask;
+    private final DialogCallbackDispatcher<Object> mFragmentDispatcher;
+    private final DialogCallbackDispatcher<Object> mActivityDispatcher;
+    private final DialogCallbackDispatcher<Object> mFragmentHandlers;
+    private final DialogCallbackDispatcher<Object> mActivityHandlers;
+    private final int mDispatcherMask;
+    private final int mRequestCode;
+    private PendingDialogResult mPendingResult;
+
+    DispatchTable(final Object fragment, final Object activity, final int requestCode) {
+        mFragment = fragment;
+        mActivity = activity;
+        mFragmentMask = fragment == null ? 0 : HostCapabilities.get(fragment.getClass());
+        mActivityMask = activity == null ? 0 : HostCapabilities.get(activity.getClass());
+        mFragmentDispatcher = GeneratedDispatchers.get(fragment);
+        mActivityDispatcher = GeneratedDispatchers.get(activity);
+        mFragmentHandlers = fragment == null ? null : DialogHandlers.find(fragment.getClass());
+        mActivityHandlers = activity == null ? null : DialogHandlers.find(activity.getClass());
+        mDispatcherMask = toMask(mFragmentDispatcher) | toMask(mActivityDispatcher)
+                | toMask(mFragmentHandlers) | toMask(mActivityHandlers);
+        mRequestCode = requestCode;
+    }
+
+    /**
+     * Resolves the listener interfaces implemented by the class.<br/>
+     * This checks all of the interfaces, so use {@link HostCapabilities#get(Class)}
+     * to reuse the result.
+     *
+     * @param c Class of the target {@code Fragment} or the {@code Activity}
+     * @return Bitmask of the interfaces
+     */
+    static int resolve(final Class<?> c) {
+        int mask = 0;
+        if (SimpleAlertDialog.OnClickListener.class.isAssignableFrom(c)) {
+            mask |= ON_CLICK;
+        }
+        if (SimpleAlertDialog.OnNeutralButtonClickListener.class.isAssignableFrom(c)) {
+            mask |= ON_NEUTRAL_BUTTON_CLICK;
+        }
+        if (SimpleAlertDialog.OnCancelListener.class.isAssignableFrom(c)) {
+            mask |= ON_CANCEL;
+        }
+        if (SimpleAlertDialog.OnItemClickListener.class.isAssignableFrom(c)) {
+            mask |= ON_ITEM_CLICK;
+        }
+        if (SimpleAlertDialog.ViewProvider.class.isAssignableFrom(c)) {
+            mask |= VIEW_PROVIDER;
+        }
+        if (SimpleAlertDialog.ListProvider.class.isAssignableFrom(c)) {
+            mask |= LIST_PROVIDER;
+        }
+        if (SimpleAlertDialog.SingleChoiceArrayItemProvider.class.isAssignableFrom(c)) {
+            mask |= SINGLE_CHOICE_ARRAY_ITEM_PROVIDER;
+        }
+        return mask;
+    }
+
+    /**
+     * Converts the events handled by the dispatcher to the flags.
+     *
+     * @param dispatcher Generated dispatcher or handlers, or {@code null}
+     * @return Bitmask of the flags
+     */
+    static int toMask(final DialogCallbackDispatcher<Object> dispatcher) {
+        if (dispatcher == null) {
+            return 0;
+        }
+        int events = dispatcher.getEvents();
+        int mask = 0;
+        if ((events & (DialogCallbackDispatcher.EVENT_POSITIVE
+                | DialogCallbackDispatcher.EVENT_NEGATIVE)) != 0) {
+            mask |= ON_CLICK;
+        }
+        if ((events & DialogCallbackDispatcher.EVENT_NEUTRAL) != 0) {
+            mask |= ON_NEUTRAL_BUTTON_CLICK;
+        }
+        if ((events & DialogCallbackDispatcher.EVENT_CANCEL) != 0) {
+            mask |= ON_CANCEL;
+        }
+        if ((events & DialogCallbackDispatcher.EVENT_ITEM_CLICK) != 0) {
+            mask |= ON_ITEM_CLICK;
+        }
+        return mask;
+    }
+
+    boolean fragmentImplements(final int flag) {
+        return (mFragmentMask & flag) != 0;
+    }
+
+    boolean activityImplements(final int flag) {
+        return (mActivityMask & flag) != 0;
+    }
+
+    boolean anyImplements(final int flag) {
+        return ((mFragmentMask | mActivityMask | mDispatcherMask) & flag) != 0;
+    }
+
+    Object getFragment() {
+        return mFragment;
+    }
+
+    Object getActivity() {
+        return mActivity;
+    }
+
+    int getRequestCode() {
+        return mRequestCode;
+    }
+
+    void setPendingResult(final PendingDialogResult pendingResult) {
+        mPendingResult = pendingResult;
+    }
+
+    /**
+     * Returns whether the result of the dialog is waited by {@code showForResult()}.<br/>
+     * The pending result consumes the item clicks, so the items must be set
+     * even if no listener is implemented.
+     *
+     * @return {@code true} if the pending result exists
+     */
+    boolean hasPendingResult() {
+        return mPendingResult != null;
+    }
+
+    /**
+     * Completes the pending result as canceled when the dialog is removed
+     * without any events.
+     */
+    void onRemoved() {
+        if (mPendingResult != null) {
+            mPendingResult.complete(
+                    new DialogResult(DialogResult.CANCELED, mRequestCode, -1, null));
+        }
+    }
+
+    void onPositiveButtonClicked(final SimpleAlertDialog dialog) {
+        final View view = dialog.getView();
+        if (fragmentImplements(ON_CLICK)) {
+            ((SimpleAlertDialog.OnClickListener) mFragment)
+                    .onDialogPositiveButtonClicked(dialog, mRequestCode, view);
+        }
+        if (activityImplements(ON_CLICK)) {
+            ((SimpleAlertDialog.OnClickListener) mActivity)
+                    .onDialogPositiveButtonClicked(dialog, mRequestCode, view);
+        }
+        dispatch(DialogCallbackDispatcher.EVENT_POSITIVE, dialog, view, -1);
+    }
+
+    void onNeutralButtonClicked(final SimpleAlertDialog dialog) {
+        final View view = dialog.getView();
+        if (fragmentImplements(ON_NEUTRAL_BUTTON_CLICK)) {
+            ((SimpleAlertDialog.OnNeutralButtonClickListener) mFragment)
+                    .onDialogNeutralButtonClicked(dialog, mRequestCode, view);
+        }
+        if (activityImplements(ON_NEUTRAL_BUTTON_CLICK)) {
+            ((SimpleAlertDialog.OnNeutralButtonClickListener) mActivity)
+                    .onDialogNeutralButtonClicked(dialog, mRequestCode, view);
+        }
+        dispatch(DialogCallbackDispatcher.EVENT_NEUTRAL, dialog, view, -1);
+    }
+
+    void onNegativeButtonClicked(final SimpleAlertDialog dialog) {
+        final View view = dialog.getView();
+        if (fragmentImplements(ON_CLICK)) {
+            ((SimpleAlertDialog.OnClickListener) mFragment)
+                    .onDialogNegativeButtonClicked(dialog, mRequestCode, view);
+        }
+        if (activityImplements(ON_CLICK)) {
+            ((SimpleAlertDialog.OnClickListener) mActivity)
+                    .onDialogNegativeButtonClicked(dialog, mRequestCode, view);
+        }
+        dispatch(DialogCallbackDispatcher.EVENT_NEGATIVE, dialog, view, -1);
+    }
+
+    void onCancel(final SimpleAlertDialog dialog) {
+        final View view = dialog.getView();
+        if (fragmentImplements(ON_CANCEL)) {
+            ((SimpleAlertDialog.OnCancelListener) mFragment)
+                    .onDialogCancel(dialog, mRequestCode, view);
+        }
+        if (activityImplements(ON_CANCEL)) {
+            ((SimpleAlertDialog.OnCancelListener) mActivity)
+                    .onDialogCancel(dialog, mRequestCode, view);
+        }
+        dispatch(DialogCallbackDispatcher.EVENT_CANCEL, dialog, view, -1);
+    }
+
+    void onItemClick(final SimpleAlertDialog dialog, final int which) {
+        if (fragmentImplements(ON_ITEM_CLICK)) {
+            ((SimpleAlertDialog.OnItemClickListener) mFragment)
+                    .onItemClick(dialog, mRequestCode, which);
+        }
+        if (activityImplements(ON_ITEM_CLICK)) {
+            ((SimpleAlertDialog.OnItemClickListener) mActivity)
+                    .onItemClick(dialog, mRequestCode, which);
+        }
+        dispatch(DialogCallbackDispatcher.EVENT_ITEM_CLICK, dialog, dialog.getView(), which);
+    }
+
+    /**
+     * Completes the pending result with the item clicked in the list
+     * created by {@code ListProvider} or {@code SingleChoiceArrayItemProvider}.<br/>
+     * The click itself is sent to the provider by the dialog.
+     *
+     * @param dialog Dialog that received the event
+     * @param which  Position of the clicked item
+     */
+    void onProvidedItemClick(final SimpleAlertDialog dialog, final int which) {
+        if (mPendingResult != null) {
+            mPendingResult.complete(DialogResult.of(DialogCallbackDispatcher.EVENT_ITEM_CLICK,
+                    mRequestCode, dialog.getView(), which));
+        }
+    }
+
+    private void dispatch(final int event, final SimpleAlertDialog dialog, final View view,
+                          final int position) {
+        if (mFragmentDispatcher != null) {
+            mFragmentDispatcher.dispatch(mFragment, event, dialog, mRequestCode, view, position);
+        }
+        if (mActivityDispatcher != null) {
+            mActivityDispatcher.dispatch(mActivity, event, dialog, mRequestCode, view, position);
+        }
+        if (mFragmentHandlers != null) {
+            mFragmentHandlers.dispatch(mFragment, event, dialog, mRequestCode, view, position);
+        }
+        if (mActivityHandlers != null) {
+            mActivityHandlers.dispatch(mActivity, event, dialog, mRequestCode, view, position);
+        }
+        if (mPendingResult != null) {
+            mPendingResult.complete(DialogResult.of(event, mRequestCode, view, position));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import android.view.View;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Process-wide cache of the {@link com.simplealertdialog.DialogCallbackDispatcher}s
+ * generated for the classes of the callback targets.<br/>
+ * The dispatcher is obtained from the target through
+ * {@link com.simplealertdialog.DialogCallbackDispatcher.Provider} only once per class,
+ * and the events are dispatched through the same instance afterwards.
+ * No reflection is used, so the generated classes and the annotated methods
+ * can be renamed or inlined by ProGuard and R8.
+ *
+ * @author Soichiro Kashima
+ * @see com.simplealertdialog.DispatchTable
+ */
+final class GeneratedDispatchers {
+
+    private static final DialogCallbackDispatcher<Object> NONE = new NoDispatcher();
+
+    private static final Map<Class<?>, DialogCallbackDispatcher<Object>> sCache =
+            Collections.synchronizedMap(
+                    new WeakHashMap<Class<?>, DialogCallbackDispatcher<Object>>());
+
+    private GeneratedDispatchers() {
+    }
+
+    /**
+     * Returns the dispatcher generated for the class of the target.
+     *
+     * @param host Callback target
+     * @return Dispatcher, or {@code null} if the target does not provide it
+     */
+    @SuppressWarnings("unchecked")
+    static DialogCallbackDispatcher<Object> get(final Object host) {
+        if (!(host instanceof DialogCallbackDispatcher.Provider)) {
+            return null;
+        }
+        Class<?> c = host.getClass();
+        DialogCallbackDispatcher<Object> dispatcher = sCache.get(c);
+        if (dispatcher == null) {
+            // Creating twice on the race is harmless: the result is the same
+            dispatcher = (DialogCallbackDispatcher<Object>)
+                    ((DialogCallbackDispatcher.Provider) host).getDialogCallbackDispatcher();
+            if (dispatcher == null) {
+                dispatcher = NONE;
+            }
+            sCache.put(c, dispatcher);
+        }
+        return dispatcher == NONE ? null : dispatcher;
+    }
+
+    static int size() {
+        return sCache.size();
+    }
+
+    static void clear() {
+        sCache.clear();
+    }
+
+    /**
+     * Marker of the classes whose provider returns {@code null}.
+     */
+    private static final class NoDispatcher implements DialogCallbackDispatcher<Object> {
+
+        @Override
+        public int getEvents() {
+            return 0;
+        }
+
+        @Override
+        public boolean dispatch(final Object host, final int event,
+                                final SimpleAlertDialog dialog, final int requestCode,
+                                final View view, final int position) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Process-wide cache of the listener interfaces implemented by the classes of the
+ * callback targets ({@code Activity} and target {@code Fragment}).<br/>
+ * Interfaces of each class are checked only once per process.
+ * Classes are weakly referenced, so they can be unloaded.
+ *
+ * @author Soichiro Kashima
+ * @see com.simplealertdialog.DispatchTable
+ */
+final class HostCapabilities {
+
+    private static final Map<Class<?>, Integer> sCache =
+            Collections.synchronizedMap(new WeakHashMap<Class<?>, Integer>());
+
+    private HostCapabilities() {
+    }
+
+    /**
+     * Returns the bitmask of the interfaces implemented by the class.
+     *
+     * @param c Class of the callback target
+     * @return Bitmask of {@code DispatchTable} flags
+     */
+    static int get(final Class<?> c) {
+        Integer mask = sCache.get(c);
+        if (mask == null) {
+            // Resolving twice on the race is harmless: the result is the same
+            mask = DispatchTable.resolve(c);
+            sCache.put(c, mask);
+        }
+        return mask;
+    }
+
+    static int size() {
+        return sCache.size();
+    }
+
+    static void clear() {
+        sCache.clear();
+    }
+}
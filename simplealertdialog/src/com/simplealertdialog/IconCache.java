@@ -0,0 +1,201 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.simplealertdialog;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Process-wide LRU cache of the icons of the list items.<br/>
+ * {@code Drawable.ConstantState} of each icon is kept for the pair of the resource ID
+ * and the {@link ResourceScope}, which covers the package, the density and the configuration
+ * such as the night mode and the layout direction. So the bitmap is decoded only once
+ * and shared by all of the dialogs, and the variants of the icon never collide.
+ * Each row gets its own {@code Drawable} created from the state.<br/>
+ * The cache is limited by the estimated size of the bitmaps.
+ *
+ * @author Soichiro Kashima
+ */
+public final class IconCache {
+
+    private static final int DEFAULT_MAX_BYTES = 1024 * 1024;
+
+    private static final class Entry {
+        final Drawable.ConstantState state;
+        final int bytes;
+
+        Entry(final Drawable.ConstantState state, final int bytes) {
+            this.state = state;
+            this.bytes = bytes;
+        }
+    }
+
+    private static final LinkedHashMap<Long, Entry> sCache =
+            new LinkedHashMap<Long, Entry>(16, 0.75f, true);
+    private static int sMaxBytes = DEFAULT_MAX_BYTES;
+    private static int sBytes;
+    private static int sHitCount;
+    private static int sMissCount;
+    private static int sEvictionCount;
+
+    private IconCache() {
+    }
+
+    /**
+     * Returns the new icon created from the cached state,
+     * loading the icon only on the first call for the same scope of the resources.
+     *
+     * @param context   Context to load the icon
+     * @param iconResId Drawable resource ID, or {@code 0} for no icon
+     * @return New icon, or {@code null} if {@code iconResId} is {@code 0}
+     */
+    @SuppressWarnings("deprecation")
+    static Drawable newIcon(final Context context, final int iconResId) {
+        if (iconResId == 0) {
+            return null;
+        }
+        Resources res = context.getResources();
+        Long key = ResourceScope.keyOf(ResourceScope.of(context), iconResId);
+        synchronized (IconCache.class) {
+            Entry entry = sCache.get(key);
+            if (entry != null) {
+                sHitCount++;
+                return entry.state.newDrawable(res);
+            }
+            sMissCount++;
+        }
+        Drawable icon = res.getDrawable(iconResId);
+        Drawable.ConstantState state = icon.getConstantState();
+        if (state == null) {
+            // Cannot be shared
+            return icon;
+        }
+        int bytes = sizeOf(icon);
+        synchronized (IconCache.class) {
+            if (bytes <= sMaxBytes && !sCache.containsKey(key)) {
+                sCache.put(key, new Entry(state, bytes));
+                sBytes += bytes;
+                trimToSize();
+            }
+        }
+        return state.newDrawable(res);
+    }
+
+    /**
+     * Sets the maximum size of the cached icons.<br/>
+     * Least recently used icons are evicted when the cache exceeds this.
+     *
+     * @param maxBytes Maximum estimated size in bytes, or {@code 0} to disable the cache
+     */
+    public static synchronized void setMaxBytes(final int maxBytes) {
+        sMaxBytes = Math.max(0, maxBytes);
+        trimToSize();
+    }
+
+    /**
+     * Removes all of the cached icons.<br/>
+     * Counters are not reset.
+     */
+    public static synchronized void clear() {
+        sCache.clear();
+        sBytes = 0;
+    }
+
+    /**
+     * Returns the number of the cached icons.
+     *
+     * @return Number of the entries
+     */
+    public static synchronized int size() {
+        return sCache.size();
+    }
+
+    /**
+     * Returns the estimated size of the cached icons.<br/>
+     * The size of the bitmap is used for {@code BitmapDrawable},
+     * and 4 bytes for each pixel of the intrinsic size for the others.
+     *
+     * @return Size in bytes
+     */
+    public static synchronized int getSizeInBytes() {
+        return sBytes;
+    }
+
+    /**
+     * Returns how many times the icons were found in the cache.
+     *
+     * @return Hit count
+     */
+    public static synchronized int getHitCount() {
+        return sHitCount;
+    }
+
+    /**
+     * Returns how many times the icons had to be loaded from the resources.
+     *
+     * @return Miss count
+     */
+    public static synchronized int getMissCount() {
+        return sMissCount;
+    }
+
+    /**
+     * Returns the ratio of the hits to all of the requests.
+     *
+     * @return Hit ratio from {@code 0} to {@code 1}, or {@code 0} if no icons were requested
+     */
+    public static synchronized float getHitRatio() {
+        int total = sHitCount + sMissCount;
+        return total == 0 ? 0 : (float) sHitCount / total;
+    }
+
+    /**
+     * Returns how many icons were evicted to keep the maximum size.
+     *
+     * @return Eviction count
+     */
+    public static synchronized int getEvictionCount() {
+        return sEvictionCount;
+    }
+
+    private static void trimToSize() {
+        Iterator<Map.Entry<Long, Entry>> it = sCache.entrySet().iterator();
+        while (sMaxBytes < sBytes && it.hasNext()) {
+            sBytes -= it.next().getValue().bytes;
+            it.remove();
+            sEvictionCount++;
+        }
+    }
+
+    private static int sizeOf(final Drawable icon) {
+        if (icon instanceof BitmapDrawable) {
+            Bitmap bitmap = ((BitmapDrawable) icon).getBitmap();
+            if (bitmap != null) {
+                return bitmap.getRowBytes() * bitmap.getHeight();
+            }
+        }
+        return Math.max(0, icon.getIntrinsicWidth()) * Math.max(0, icon.getIntrinsicHeight()) * 4;
+    }
+}
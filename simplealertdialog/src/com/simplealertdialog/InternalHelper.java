@@ -16,11 +16,9 @@
 
 package com.simplealertdialog;
 
-import android.annotation.TargetApi;
 import android.app.Dialog;
 import android.content.Context;
 import android.content.DialogInterface;
-import android.os.Build;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -34,335 +32,309 @@ import android.widget.EditText;
  * @param <A> Activity class
  */
 abstract class InternalHelper<F, A extends Context> {
+    private DispatchTable mDispatchTable;
+    private String mItemStoreHandle;
+
     public abstract A getActivity();
 
     public abstract F getTargetFragment();
 
     public Dialog createDialog(Bundle args) {
-        final SimpleAlertDialog dialog = newInstance(args);
-        setTitle(args, dialog);
-        setIcon(args, dialog);
-        setMessage(args, dialog);
-        setEditText(args, dialog);
-        final int requestCode = getRequestCode(args);
-        setView(args, dialog, requestCode);
-        setItems(args, dialog, requestCode);
-        setAdapter(args, dialog, requestCode);
-        setSingleChoiceItems(args, dialog, requestCode);
-        setPositiveButton(args, dialog, requestCode);
-        setNeutralButton(args, dialog, requestCode);
-        setNegativeButton(args, dialog, requestCode);
-        setCancelable(args, dialog);
-        return dialog;
+        return createDialog(DialogSpec.fromArguments(args), args);
     }
 
-    public boolean hasItemClickListener() {
-        return (fragmentImplements(SimpleAlertDialog.OnItemClickListener.class)
-                || activityImplements(SimpleAlertDialog.OnItemClickListener.class));
+    /**
+     * Creates the dialog.
+     *
+     * @param spec Styles of the dialog
+     * @param args Arguments of the dialog fragment which has the values for each fragment
+     *             in addition to the {@code spec}, or {@code null}
+     * @return Created dialog
+     */
+    public Dialog createDialog(DialogSpec spec, Bundle args) {
+        final SimpleAlertDialog dialog = newInstance(spec);
+        final int requestCode = spec.requestCode;
+        mItemStoreHandle = ItemStore.getHandle(args);
+        // Callback targets are resolved only once for this dialog
+        mDispatchTable = new DispatchTable(getTargetFragment(), getActivity(), requestCode);
+        if (args != null && args.containsKey(SimpleAlertDialog.ARG_RESULT_TOKEN)) {
+            mDispatchTable.setPendingResult(
+                    PendingDialogResult.find(args.getString(SimpleAlertDialog.ARG_RESULT_TOKEN)));
+        }
+        setTitle(spec, dialog);
+        setIcon(spec, dialog);
+        setMessage(spec, dialog);
+        setEditText(spec, dialog);
+        setView(spec, dialog, requestCode);
+        setItems(spec, dialog);
+        setAdapter(spec, dialog, requestCode);
+        setSingleChoiceItems(spec, dialog, requestCode);
+        setLargeList(spec, dialog);
+        setPositiveButton(spec, dialog);
+        setNeutralButton(spec, dialog);
+        setNegativeButton(spec, dialog);
+        setCancelable(spec, dialog);
+        return dialog;
     }
 
-    public boolean hasListProvider(Bundle args) {
-        boolean useAdapter = false;
-        if (has(args, SimpleAlertDialog.ARG_USE_ADAPTER)) {
-            useAdapter = args.getBoolean(SimpleAlertDialog.ARG_USE_ADAPTER);
+    /**
+     * Returns the callback targets of the dialog.<br/>
+     * Events of the dialog that are not handled by the listeners of the dialog
+     * (e.g. cancel) should be sent through this.
+     *
+     * @return Callback targets resolved by {@link #createDialog(DialogSpec, android.os.Bundle)}
+     */
+    public DispatchTable getDispatchTable() {
+        if (mDispatchTable == null) {
+            mDispatchTable = new DispatchTable(getTargetFragment(), getActivity(), 0);
         }
-        return useAdapter
-                && (fragmentImplements(SimpleAlertDialog.ListProvider.class)
-                || activityImplements(SimpleAlertDialog.ListProvider.class));
+        return mDispatchTable;
     }
 
-    public boolean hasSingleChoiceArrayItemProvider(Bundle args) {
-        int singleChoiceCheckedItem = -1;
-        if (has(args, SimpleAlertDialog.ARG_SINGLE_CHOICE_CHECKED_ITEM)) {
-            singleChoiceCheckedItem = args.getInt(SimpleAlertDialog.ARG_SINGLE_CHOICE_CHECKED_ITEM);
-        }
-        return singleChoiceCheckedItem >= 0
-                && (fragmentImplements(SimpleAlertDialog.SingleChoiceArrayItemProvider.class)
-                || activityImplements(SimpleAlertDialog.SingleChoiceArrayItemProvider.class));
+    public boolean hasItemClickListener() {
+        DispatchTable table = getDispatchTable();
+        return table.anyImplements(DispatchTable.ON_ITEM_CLICK) || table.hasPendingResult();
     }
 
-    private SimpleAlertDialog newInstance(Bundle args) {
-        return hasTheme(args)
-                ? new SimpleAlertDialog(getActivity(), args.getInt(SimpleAlertDialog.ARG_THEME_RES_ID))
-                : new SimpleAlertDialog(getActivity());
+    public boolean hasListProvider(DialogSpec spec) {
+        return spec.useAdapter && getDispatchTable().anyImplements(DispatchTable.LIST_PROVIDER);
     }
 
-    private boolean has(Bundle args, String key) {
-        return args != null && args.containsKey(key);
+    public boolean hasSingleChoiceArrayItemProvider(DialogSpec spec) {
+        return spec.singleChoiceCheckedItem >= 0
+                && getDispatchTable().anyImplements(DispatchTable.SINGLE_CHOICE_ARRAY_ITEM_PROVIDER);
     }
 
-    private boolean hasTheme(Bundle args) {
-        return has(args, SimpleAlertDialog.ARG_THEME_RES_ID);
+    private SimpleAlertDialog newInstance(DialogSpec spec) {
+        SimpleAlertDialog pooled = DialogPool.obtain(getActivity(), spec.themeResId);
+        if (pooled != null) {
+            return pooled;
+        }
+        return spec.themeResId != 0
+                ? new SimpleAlertDialog(getActivity(), spec.themeResId)
+                : new SimpleAlertDialog(getActivity());
     }
 
-    private void setTitle(Bundle args, SimpleAlertDialog dialog) {
-        if (has(args, SimpleAlertDialog.ARG_TITLE)) {
-            dialog.setTitle(args.getCharSequence(SimpleAlertDialog.ARG_TITLE));
-        } else if (has(args, SimpleAlertDialog.ARG_TITLE_RES_ID)) {
-            dialog.setTitle(args.getInt(SimpleAlertDialog.ARG_TITLE_RES_ID));
+    private ItemStore.Entry getStoredEntry() {
+        if (mItemStoreHandle == null) {
+            return null;
         }
+        return ItemStore.get(getActivity(), mItemStoreHandle);
     }
 
-    private void setIcon(Bundle args, SimpleAlertDialog dialog) {
-        if (has(args, SimpleAlertDialog.ARG_ICON)) {
-            dialog.setIcon(args.getInt(SimpleAlertDialog.ARG_ICON));
+    private void setTitle(DialogSpec spec, SimpleAlertDialog dialog) {
+        if (spec.title != null) {
+            dialog.setTitle(spec.title);
+        } else if (spec.titleResId != 0) {
+            dialog.setTitle(spec.titleResId);
         }
     }
 
-    private void setMessage(Bundle args, SimpleAlertDialog dialog) {
-        if (has(args, SimpleAlertDialog.ARG_MESSAGE)) {
-            dialog.setMessage(args.getCharSequence(SimpleAlertDialog.ARG_MESSAGE));
-        } else if (has(args, SimpleAlertDialog.ARG_MESSAGE_RES_ID)) {
-            dialog.setMessage(args.getInt(SimpleAlertDialog.ARG_MESSAGE_RES_ID));
+    private void setIcon(DialogSpec spec, SimpleAlertDialog dialog) {
+        if (spec.icon != 0) {
+            dialog.setIcon(spec.icon);
         }
     }
 
-    private int getRequestCode(Bundle args) {
-        if (has(args, SimpleAlertDialog.ARG_REQUEST_CODE)) {
-            return args.getInt(SimpleAlertDialog.ARG_REQUEST_CODE);
+    private void setMessage(DialogSpec spec, SimpleAlertDialog dialog) {
+        if (spec.message != null) {
+            dialog.setMessage(spec.message);
+        } else if (spec.messageResId != 0) {
+            dialog.setMessage(spec.messageResId);
         }
-        return 0;
     }
 
-    private void setEditText(Bundle args, SimpleAlertDialog dialog) {
-        if (!has(args, SimpleAlertDialog.ARG_EDIT_TEXT_INITIAL_TEXT)
-                || !has(args, SimpleAlertDialog.ARG_EDIT_TEXT_INPUT_TYPE)) {
+    private void setEditText(DialogSpec spec, SimpleAlertDialog dialog) {
+        if (!spec.hasEditText) {
             return;
         }
+        CharSequence initialText = spec.editTextInitialText;
+        if (initialText == null) {
+            ItemStore.Entry entry = getStoredEntry();
+            initialText = entry == null ? null : entry.editText;
+        }
         View view = LayoutInflater.from(getActivity()).inflate(R.layout.sad__dialog_view_editor, null);
         EditText editText = (EditText) view.findViewById(android.R.id.text1);
-        editText.setText(args.getCharSequence(SimpleAlertDialog.ARG_EDIT_TEXT_INITIAL_TEXT));
-        editText.setInputType(args.getInt(SimpleAlertDialog.ARG_EDIT_TEXT_INPUT_TYPE));
+        editText.setText(initialText);
+        editText.setInputType(spec.editTextInputType);
         dialog.setView(view);
     }
 
-    private void setView(Bundle args, SimpleAlertDialog dialog, int requestCode) {
-        if (!has(args, SimpleAlertDialog.ARG_USE_VIEW) || !args.getBoolean(SimpleAlertDialog.ARG_USE_VIEW)) {
+    private void setView(DialogSpec spec, SimpleAlertDialog dialog, int requestCode) {
+        if (!spec.useView) {
             return;
         }
-        if (fragmentImplements(SimpleAlertDialog.ViewProvider.class)) {
-            dialog.setView(((SimpleAlertDialog.ViewProvider) getTargetFragment())
+        final DispatchTable table = getDispatchTable();
+        if (table.fragmentImplements(DispatchTable.VIEW_PROVIDER)) {
+            dialog.setView(((SimpleAlertDialog.ViewProvider) table.getFragment())
                     .onCreateView(dialog, requestCode));
         }
-        if (activityImplements(SimpleAlertDialog.ViewProvider.class)) {
-            dialog.setView(((SimpleAlertDialog.ViewProvider) getActivity())
+        if (table.activityImplements(DispatchTable.VIEW_PROVIDER)) {
+            dialog.setView(((SimpleAlertDialog.ViewProvider) table.getActivity())
                     .onCreateView(dialog, requestCode));
         }
     }
 
-    @TargetApi(Build.VERSION_CODES.FROYO)
-    private void setItems(Bundle args, final SimpleAlertDialog dialog, final int requestCode) {
+    private void setItems(DialogSpec spec, final SimpleAlertDialog dialog) {
         if (!hasItemClickListener()) {
             return;
         }
+        // Stored items are restored here, only when they are used
+        ItemStore.Entry entry = getStoredEntry();
         CharSequence[] items;
-        if (has(args, SimpleAlertDialog.ARG_ITEMS) && Build.VERSION_CODES.ECLAIR <= Build.VERSION.SDK_INT) {
-            items = args.getCharSequenceArray(SimpleAlertDialog.ARG_ITEMS);
-        } else if (has(args, SimpleAlertDialog.ARG_ITEMS_RES_ID)) {
-            items = getActivity().getResources().getTextArray(args.getInt(SimpleAlertDialog.ARG_ITEMS_RES_ID));
+        if (spec.items != null) {
+            items = spec.items;
+        } else if (entry != null && entry.items != null) {
+            items = entry.items;
+        } else if (spec.itemsResId != 0) {
+            // Resolved lazily by the adapter for each visible row
+            items = null;
         } else {
             return;
         }
-        int[] icons = null;
-        if (has(args, SimpleAlertDialog.ARG_ICONS)) {
-            icons = args.getIntArray(SimpleAlertDialog.ARG_ICONS);
+        int[] icons = spec.icons;
+        if (icons == null && entry != null) {
+            icons = entry.icons;
         }
-        if (fragmentImplements(SimpleAlertDialog.OnItemClickListener.class)
-                || activityImplements(SimpleAlertDialog.OnItemClickListener.class)) {
-            AdapterView.OnItemClickListener listener = new AdapterView.OnItemClickListener() {
-                @Override
-                public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
-                    if (fragmentImplements(SimpleAlertDialog.OnItemClickListener.class)) {
-                        ((SimpleAlertDialog.OnItemClickListener) getTargetFragment())
-                                .onItemClick(dialog, requestCode, position);
-                    }
-                    if (activityImplements(SimpleAlertDialog.OnItemClickListener.class)) {
-                        ((SimpleAlertDialog.OnItemClickListener) getActivity())
-                                .onItemClick(dialog, requestCode, position);
-                    }
-                }
-            };
+        final DispatchTable table = getDispatchTable();
+        AdapterView.OnItemClickListener listener = new AdapterView.OnItemClickListener() {
+            @Override
+            public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
+                table.onItemClick(dialog, position);
+            }
+        };
+        if (items == null) {
             if (icons == null) {
-                dialog.setItems(items, listener);
+                dialog.setItems(spec.itemsResId, listener);
             } else {
-                dialog.setItems(items, icons, listener);
+                dialog.setItems(spec.itemsResId, icons, listener);
             }
+        } else if (icons == null) {
+            dialog.setItems(items, listener);
+        } else {
+            dialog.setItems(items, icons, listener);
         }
     }
 
-    private void setAdapter(Bundle args, final SimpleAlertDialog dialog, final int requestCode) {
-        if (!hasListProvider(args)) {
+    private void setAdapter(DialogSpec spec, final SimpleAlertDialog dialog, final int requestCode) {
+        if (!hasListProvider(spec)) {
             return;
         }
-        if (fragmentImplements(SimpleAlertDialog.ListProvider.class)) {
-            dialog.setAdapter(((SimpleAlertDialog.ListProvider) getTargetFragment())
-                            .onCreateList(dialog, requestCode),
+        final DispatchTable table = getDispatchTable();
+        if (table.fragmentImplements(DispatchTable.LIST_PROVIDER)) {
+            final SimpleAlertDialog.ListProvider provider =
+                    (SimpleAlertDialog.ListProvider) table.getFragment();
+            dialog.setAdapter(provider.onCreateList(dialog, requestCode),
                     new AdapterView.OnItemClickListener() {
                         @Override
                         public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
-                            if (fragmentImplements(SimpleAlertDialog.ListProvider.class)) {
-                                ((SimpleAlertDialog.ListProvider) getTargetFragment())
-                                        .onListItemClick(dialog, requestCode, position);
-                            }
+                            provider.onListItemClick(dialog, requestCode, position);
+                            table.onProvidedItemClick(dialog, position);
                         }
                     });
         }
-        if (activityImplements(SimpleAlertDialog.ListProvider.class)) {
-            dialog.setAdapter(((SimpleAlertDialog.ListProvider) getActivity())
-                            .onCreateList(dialog, requestCode),
+        if (table.activityImplements(DispatchTable.LIST_PROVIDER)) {
+            final SimpleAlertDialog.ListProvider provider =
+                    (SimpleAlertDialog.ListProvider) table.getActivity();
+            dialog.setAdapter(provider.onCreateList(dialog, requestCode),
                     new AdapterView.OnItemClickListener() {
                         @Override
                         public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
-                            if (activityImplements(SimpleAlertDialog.ListProvider.class)) {
-                                ((SimpleAlertDialog.ListProvider) getActivity())
-                                        .onListItemClick(dialog, requestCode, position);
-                            }
+                            provider.onListItemClick(dialog, requestCode, position);
+                            table.onProvidedItemClick(dialog, position);
                         }
                     });
         }
     }
 
-    private void setSingleChoiceItems(Bundle args, final SimpleAlertDialog dialog, final int requestCode) {
-        if (!hasSingleChoiceArrayItemProvider(args)) {
+    private void setSingleChoiceItems(DialogSpec spec, final SimpleAlertDialog dialog, final int requestCode) {
+        if (!hasSingleChoiceArrayItemProvider(spec)) {
             return;
         }
-        int checkedItem = args.getInt(SimpleAlertDialog.ARG_SINGLE_CHOICE_CHECKED_ITEM);
-        if (fragmentImplements(SimpleAlertDialog.SingleChoiceArrayItemProvider.class)) {
-            dialog.setSingleChoiceItems(
-                    ((SimpleAlertDialog.SingleChoiceArrayItemProvider) getTargetFragment())
-                            .onCreateSingleChoiceArray(dialog, requestCode),
-                    checkedItem,
-                    new AdapterView.OnItemClickListener() {
-                        @Override
-                        public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
-                            if (fragmentImplements(SimpleAlertDialog.SingleChoiceArrayItemProvider.class)) {
-                                ((SimpleAlertDialog.SingleChoiceArrayItemProvider) getTargetFragment())
-                                        .onSingleChoiceArrayItemClick(dialog, requestCode, position);
-                            }
-                        }
-                    });
+        int checkedItem = spec.singleChoiceCheckedItem;
+        final DispatchTable table = getDispatchTable();
+        if (table.fragmentImplements(DispatchTable.SINGLE_CHOICE_ARRAY_ITEM_PROVIDER)) {
+            setSingleChoiceItems(dialog, requestCode, checkedItem, table,
+                    (SimpleAlertDialog.SingleChoiceArrayItemProvider) table.getFragment());
         }
-        if (activityImplements(SimpleAlertDialog.SingleChoiceArrayItemProvider.class)) {
-            dialog.setSingleChoiceItems(
-                    ((SimpleAlertDialog.SingleChoiceArrayItemProvider) getActivity())
-                            .onCreateSingleChoiceArray(dialog, requestCode),
-                    checkedItem,
-                    new AdapterView.OnItemClickListener() {
-                        @Override
-                        public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
-                            if (activityImplements(SimpleAlertDialog.SingleChoiceArrayItemProvider.class)) {
-                                ((SimpleAlertDialog.SingleChoiceArrayItemProvider) getActivity())
-                                        .onSingleChoiceArrayItemClick(dialog, requestCode, position);
-                            }
-                        }
-                    });
+        if (table.activityImplements(DispatchTable.SINGLE_CHOICE_ARRAY_ITEM_PROVIDER)) {
+            setSingleChoiceItems(dialog, requestCode, checkedItem, table,
+                    (SimpleAlertDialog.SingleChoiceArrayItemProvider) table.getActivity());
         }
     }
 
-    private void setPositiveButton(Bundle args, SimpleAlertDialog dialog, final int requestCode) {
-        CharSequence positiveButton = null;
-        if (has(args, SimpleAlertDialog.ARG_POSITIVE_BUTTON)) {
-            positiveButton = args.getCharSequence(SimpleAlertDialog.ARG_POSITIVE_BUTTON);
-        } else if (has(args, SimpleAlertDialog.ARG_POSITIVE_BUTTON_RES_ID)) {
-            positiveButton = getActivity().getString(args.getInt(SimpleAlertDialog.ARG_POSITIVE_BUTTON_RES_ID));
+    private void setSingleChoiceItems(final SimpleAlertDialog dialog, final int requestCode,
+                                      int checkedItem, final DispatchTable table,
+                                      final SimpleAlertDialog.SingleChoiceArrayItemProvider provider) {
+        dialog.setSingleChoiceItems(provider.onCreateSingleChoiceArray(dialog, requestCode),
+                checkedItem,
+                new AdapterView.OnItemClickListener() {
+                    @Override
+                    public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
+                        provider.onSingleChoiceArrayItemClick(dialog, requestCode, position);
+                        table.onProvidedItemClick(dialog, position);
+                    }
+                });
+    }
+
+    private void setLargeList(DialogSpec spec, SimpleAlertDialog dialog) {
+        if (spec.useLargeList) {
+            dialog.setLargeList(true);
+        }
+    }
+
+    private void setPositiveButton(DialogSpec spec, SimpleAlertDialog dialog) {
+        CharSequence positiveButton = spec.positiveButton;
+        if (positiveButton == null && spec.positiveButtonResId != 0) {
+            positiveButton = LabelCache.getText(getActivity(), spec.positiveButtonResId);
         }
         if (positiveButton == null) {
             return;
         }
+        final DispatchTable table = getDispatchTable();
         dialog.setPositiveButton(positiveButton, new DialogInterface.OnClickListener() {
             @Override
             public void onClick(final DialogInterface dialog, final int which) {
-                if (fragmentImplements(SimpleAlertDialog.OnClickListener.class)) {
-                    ((SimpleAlertDialog.OnClickListener) getTargetFragment())
-                            .onDialogPositiveButtonClicked((SimpleAlertDialog) dialog,
-                                    requestCode,
-                                    ((SimpleAlertDialog) dialog).getView());
-                }
-                if (activityImplements(SimpleAlertDialog.OnClickListener.class)) {
-                    ((SimpleAlertDialog.OnClickListener) getActivity())
-                            .onDialogPositiveButtonClicked((SimpleAlertDialog) dialog,
-                                    requestCode,
-                                    ((SimpleAlertDialog) dialog).getView());
-                }
+                table.onPositiveButtonClicked((SimpleAlertDialog) dialog);
             }
         });
     }
 
-    private void setNeutralButton(Bundle args, SimpleAlertDialog dialog, final int requestCode) {
-        CharSequence neutralButton = null;
-        if (has(args, SimpleAlertDialog.ARG_NEUTRAL_BUTTON)) {
-            neutralButton = args.getCharSequence(SimpleAlertDialog.ARG_NEUTRAL_BUTTON);
-        } else if (has(args, SimpleAlertDialog.ARG_NEUTRAL_BUTTON_RES_ID)) {
-            neutralButton = getActivity().getString(args.getInt(SimpleAlertDialog.ARG_NEUTRAL_BUTTON_RES_ID));
+    private void setNeutralButton(DialogSpec spec, SimpleAlertDialog dialog) {
+        CharSequence neutralButton = spec.neutralButton;
+        if (neutralButton == null && spec.neutralButtonResId != 0) {
+            neutralButton = LabelCache.getText(getActivity(), spec.neutralButtonResId);
         }
         if (neutralButton == null) {
             return;
         }
+        final DispatchTable table = getDispatchTable();
         dialog.setNeutralButton(neutralButton, new DialogInterface.OnClickListener() {
             @Override
             public void onClick(final DialogInterface dialog, final int which) {
-                if (fragmentImplements(SimpleAlertDialog.OnNeutralButtonClickListener.class)) {
-                    ((SimpleAlertDialog.OnNeutralButtonClickListener) getTargetFragment())
-                            .onDialogNeutralButtonClicked((SimpleAlertDialog) dialog,
-                                    requestCode,
-                                    ((SimpleAlertDialog) dialog).getView());
-                }
-                if (activityImplements(SimpleAlertDialog.OnNeutralButtonClickListener.class)) {
-                    ((SimpleAlertDialog.OnNeutralButtonClickListener) getActivity())
-                            .onDialogNeutralButtonClicked((SimpleAlertDialog) dialog,
-                                    requestCode,
-                                    ((SimpleAlertDialog) dialog).getView());
-                }
+                table.onNeutralButtonClicked((SimpleAlertDialog) dialog);
             }
         });
     }
 
-    private void setNegativeButton(Bundle args, SimpleAlertDialog dialog, final int requestCode) {
-        CharSequence negativeButton = null;
-        if (has(args, SimpleAlertDialog.ARG_NEGATIVE_BUTTON)) {
-            negativeButton = args.getCharSequence(SimpleAlertDialog.ARG_NEGATIVE_BUTTON);
-        } else if (has(args, SimpleAlertDialog.ARG_NEGATIVE_BUTTON_RES_ID)) {
-            negativeButton = getActivity().getString(args.getInt(SimpleAlertDialog.ARG_NEGATIVE_BUTTON_RES_ID));
+    private void setNegativeButton(DialogSpec spec, SimpleAlertDialog dialog) {
+        CharSequence negativeButton = spec.negativeButton;
+        if (negativeButton == null && spec.negativeButtonResId != 0) {
+            negativeButton = LabelCache.getText(getActivity(), spec.negativeButtonResId);
         }
         if (negativeButton == null) {
             return;
         }
+        final DispatchTable table = getDispatchTable();
         dialog.setNegativeButton(negativeButton, new DialogInterface.OnClickListener() {
             @Override
             public void onClick(final DialogInterface dialog, final int which) {
-                if (fragmentImplements(SimpleAlertDialog.OnClickListener.class)) {
-                    ((SimpleAlertDialog.OnClickListener) getTargetFragment())
-                            .onDialogNegativeButtonClicked((SimpleAlertDialog) dialog,
-                                    requestCode,
-                                    ((SimpleAlertDialog) dialog).getView());
-                }
-                if (activityImplements(SimpleAlertDialog.OnClickListener.class)) {
-                    ((SimpleAlertDialog.OnClickListener) getActivity())
-                            .onDialogNegativeButtonClicked((SimpleAlertDialog) dialog,
-                                    requestCode,
-                                    ((SimpleAlertDialog) dialog).getView());
-                }
+                table.onNegativeButtonClicked((SimpleAlertDialog) dialog);
             }
         });
     }
 
-    private void setCancelable(Bundle args, SimpleAlertDialog dialog) {
-        boolean cancelable = true;
-        if (has(args, SimpleAlertDialog.ARG_CANCELABLE)) {
-            cancelable = args.getBoolean(SimpleAlertDialog.ARG_CANCELABLE);
-        }
-        boolean canceledOnTouchOutside = cancelable;
-        if (cancelable && has(args, SimpleAlertDialog.ARG_CANCELED_ON_TOUCH_OUTSIDE)) {
-            canceledOnTouchOutside = args.getBoolean(SimpleAlertDialog.ARG_CANCELED_ON_TOUCH_OUTSIDE);
-        }
-        dialog.setCanceledOnTouchOutside(canceledOnTouchOutside);
-    }
-
-    private boolean fragmentImplements(Class<?> c) {
-        return getTargetFragment() != null && c != null && c.isAssignableFrom(getTargetFragment().getClass());
-    }
-
-    private boolean activityImplements(Class<?> c) {
-        return getActivity() != null && c != null && c.isAssignableFrom(getActivity().getClass());
+    private void setCancelable(DialogSpec spec, SimpleAlertDialog dialog) {
+        dialog.setCanceledOnTouchOutside(spec.cancelable && spec.canceledOnTouchOutside);
     }
 }
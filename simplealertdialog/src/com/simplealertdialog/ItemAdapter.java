@@ -0,0 +1,250 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.drawable.Drawable;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.CheckedTextView;
+import android.widget.TextView;
+
+/**
+ * List adapter for the items set by {@code setItems()} and {@code setSingleChoiceItems()}.<br/>
+ * Styles are applied only when the row view is created,
+ * and the recycled row views are bound through the holder without any allocation.
+ * The items of the array resource are resolved for each position when they are bound first,
+ * so the long localized arrays cost only the visible rows.
+ * The array is released when the dialog is dismissed, and obtained again
+ * only if the unresolved items are used after that.
+ *
+ * @author Soichiro Kashima
+ */
+final class ItemAdapter extends BaseAdapter {
+
+    private static final class ViewHolder {
+        final TextView text;
+        int iconResId;
+
+        ViewHolder(final TextView text) {
+            this.text = text;
+        }
+    }
+
+    private final Context mContext;
+    private final Resources mResources;
+    private final LayoutInflater mInflater;
+    private final int mLayoutResId;
+    private final CharSequence[] mItems;
+    private final int mItemsResId;
+    private TypedArray mItemsArray;
+    private int mUnresolvedCount;
+    private final int[] mIconResIds;
+    private final int mCount;
+    private final int mIconPadding;
+    private int mTextAppearance;
+    private int mCheckMarkResId;
+    private Drawable mBackground;
+    private boolean mHasPadding;
+    private int mPaddingLeft;
+    private int mPaddingRight;
+
+    /**
+     * Creates the adapter.
+     *
+     * @param context     Context of the dialog
+     * @param layoutResId Layout of the row which has {@code android.R.id.text1}
+     * @param items       Items to show
+     * @param iconResIds  Icons of the items, or {@code null} if the items have no icons
+     */
+    ItemAdapter(final Context context, final int layoutResId, final CharSequence[] items,
+                final int[] iconResIds) {
+        this(context, layoutResId, items, 0, iconResIds);
+    }
+
+    /**
+     * Creates the adapter for the items of the array resource.<br/>
+     * The array is not loaded here, and each item is resolved when it is used first.
+     *
+     * @param context     Context of the dialog
+     * @param layoutResId Layout of the row which has {@code android.R.id.text1}
+     * @param itemsResId  Array resource of the items to show
+     * @param iconResIds  Icons of the items, or {@code null} if the items have no icons
+     */
+    ItemAdapter(final Context context, final int layoutResId, final int itemsResId,
+                final int[] iconResIds) {
+        this(context, layoutResId, null, itemsResId, iconResIds);
+    }
+
+    private ItemAdapter(final Context context, final int layoutResId, final CharSequence[] items,
+                        final int itemsResId, final int[] iconResIds) {
+        mContext = context;
+        mResources = context.getResources();
+        mInflater = LayoutInflater.from(context);
+        mLayoutResId = layoutResId;
+        mItemsResId = itemsResId;
+        if (itemsResId == 0) {
+            mItems = items;
+        } else {
+            mItemsArray = mResources.obtainTypedArray(itemsResId);
+            mItems = new CharSequence[mItemsArray.length()];
+            mUnresolvedCount = mItems.length;
+        }
+        mIconResIds = iconResIds;
+        if (iconResIds == null) {
+            mCount = mItems.length;
+            mIconPadding = 0;
+        } else {
+            mCount = Math.min(mItems.length, iconResIds.length);
+            mIconPadding = (int) (8 * mResources.getDisplayMetrics().density);
+        }
+    }
+
+    ItemAdapter setTextAppearance(final int resId) {
+        mTextAppearance = resId;
+        return this;
+    }
+
+    ItemAdapter setCheckMark(final int resId) {
+        mCheckMarkResId = resId;
+        return this;
+    }
+
+    ItemAdapter setBackground(final Drawable background) {
+        mBackground = background;
+        return this;
+    }
+
+    ItemAdapter setHorizontalPadding(final int left, final int right) {
+        mHasPadding = true;
+        mPaddingLeft = left;
+        mPaddingRight = right;
+        return this;
+    }
+
+    @Override
+    public int getCount() {
+        return mCount;
+    }
+
+    @Override
+    public CharSequence getItem(final int position) {
+        CharSequence item = mItems[position];
+        if (item == null && mItemsResId != 0) {
+            if (mItemsArray == null) {
+                // Used again after the release
+                mItemsArray = mResources.obtainTypedArray(mItemsResId);
+            }
+            item = mItemsArray.getText(position);
+            if (item == null) {
+                // Cached as the empty text so that it is resolved only once
+                item = "";
+            }
+            mItems[position] = item;
+            mUnresolvedCount--;
+            if (mUnresolvedCount == 0) {
+                // Every item is cached, so the array is no longer needed
+                release();
+            }
+        }
+        return item;
+    }
+
+    @Override
+    public long getItemId(final int position) {
+        return position;
+    }
+
+    @Override
+    public boolean hasStableIds() {
+        return true;
+    }
+
+    @Override
+    public View getView(final int position, View convertView, final ViewGroup parent) {
+        ViewHolder holder;
+        if (convertView == null) {
+            convertView = mInflater.inflate(mLayoutResId, parent, false);
+            holder = new ViewHolder((TextView) convertView.findViewById(android.R.id.text1));
+            onCreateRow(holder.text);
+            convertView.setTag(holder);
+        } else {
+            holder = (ViewHolder) convertView.getTag();
+        }
+        holder.text.setText(getItem(position));
+        if (mIconResIds != null) {
+            bindIcon(holder, mIconResIds[position]);
+        }
+        return convertView;
+    }
+
+    /**
+     * Returns how many items of the array resource have been resolved.
+     *
+     * @return Resolved item count, or the item count if the items are not from the resource
+     */
+    int getResolvedCount() {
+        return mItems.length - mUnresolvedCount;
+    }
+
+    boolean isReleased() {
+        return mItemsArray == null;
+    }
+
+    /**
+     * Releases the array resource.<br/>
+     * Resolved items are kept, and the array is obtained again
+     * if the unresolved items are used after this.
+     */
+    void release() {
+        if (mItemsArray != null) {
+            mItemsArray.recycle();
+            mItemsArray = null;
+        }
+    }
+
+    private void onCreateRow(final TextView text) {
+        if (mTextAppearance != 0) {
+            text.setTextAppearance(text.getContext(), mTextAppearance);
+        }
+        if (mCheckMarkResId != 0 && text instanceof CheckedTextView) {
+            ((CheckedTextView) text).setCheckMarkDrawable(mCheckMarkResId);
+        }
+        if (mBackground != null) {
+            SimpleAlertDialog.setBackground(text, mBackground);
+        }
+        if (mHasPadding) {
+            text.setPadding(mPaddingLeft, 0, mPaddingRight, 0);
+        }
+        if (mIconResIds != null) {
+            text.setCompoundDrawablePadding(mIconPadding);
+        }
+    }
+
+    private void bindIcon(final ViewHolder holder, final int iconResId) {
+        if (holder.iconResId == iconResId) {
+            return;
+        }
+        holder.iconResId = iconResId;
+        holder.text.setCompoundDrawablesWithIntrinsicBounds(
+                IconCache.newIcon(mContext, iconResId), null, null, null);
+    }
+}
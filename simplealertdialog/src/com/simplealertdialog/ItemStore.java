@@ -0,0 +1,432 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import android.annotation.TargetApi;
+import android.app.Activity;
+import android.content.Context;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Parcel;
+import android.text.TextUtils;
+import android.util.Log;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Store of the large arguments (items, icons and initial text of the {@code EditText})
+ * which are kept outside of the fragment arguments.<br/>
+ * The arguments {@code Bundle} has only the handle of the entry, so the large payload is not
+ * parceled every time the fragment is saved and restored.
+ * Entries are kept in memory and written to the cache directory when the fragment
+ * saves its state, so that they can be restored after the process is killed.
+ * <p/>
+ * Until a fragment takes the arguments, the entry is referenced only through the handle
+ * in the arguments, so the arguments that are never shown do not leave the entry.
+ * Writing is done on a background thread in the order of the requests,
+ * because the payload can be hundreds of kilobytes.
+ * If the process is killed before the entry is written, it is lost like the other
+ * unsaved state, and the dialog is restored without the stored payload.
+ *
+ * @author Soichiro Kashima
+ */
+final class ItemStore {
+
+    /**
+     * Estimated size in bytes of the payload to be stored outside of the {@code Bundle}.
+     */
+    static final int THRESHOLD_BYTES = 16 * 1024;
+
+    private static final String TAG = "SimpleAlertDialog";
+    private static final String DIR_NAME = "sad__items";
+    private static final long STALE_MILLIS = 24 * 60 * 60 * 1000L;
+
+    // Entries owned by the fragments: removed when the fragments will never be restored
+    private static final Map<String, Entry> sEntries = new HashMap<String, Entry>();
+    // Entries not owned yet: the key is the handle instance put into the arguments
+    private static final Map<String, Entry> sUnowned = new WeakHashMap<String, Entry>();
+    private static ExecutorService sWriter;
+    private static boolean sStaleFilesDeleted;
+
+    /**
+     * Large arguments of the dialog.
+     */
+    static final class Entry {
+        final CharSequence[] items;
+        final int[] icons;
+        final CharSequence editText;
+        boolean saved;
+
+        Entry(final CharSequence[] items, final int[] icons, final CharSequence editText) {
+            this.items = items;
+            this.icons = icons;
+            this.editText = editText;
+        }
+    }
+
+    private ItemStore() {
+    }
+
+    /**
+     * Returns whether the payload is too large to be put into the {@code Bundle}.
+     *
+     * @param items    Items of the list, or {@code null}
+     * @param icons    Icons of the items, or {@code null}
+     * @param editText Initial text of the {@code EditText}, or {@code null}
+     * @return {@code true} if the payload should be stored
+     */
+    static boolean isLarge(final CharSequence[] items, final int[] icons,
+                           final CharSequence editText) {
+        long bytes = 0;
+        if (items != null) {
+            for (CharSequence item : items) {
+                bytes += item == null ? 4 : 4 + item.length() * 2;
+            }
+        }
+        if (icons != null) {
+            bytes += icons.length * 4;
+        }
+        if (editText != null) {
+            bytes += editText.length() * 2;
+        }
+        return THRESHOLD_BYTES < bytes;
+    }
+
+    /**
+     * Stores the entry.<br/>
+     * The entry is kept only while the returned handle is referenced,
+     * until {@link #own(android.os.Bundle)} is called.
+     *
+     * @param entry Entry to store
+     * @return Handle of the entry to be put into the {@code Bundle}
+     */
+    static String put(final Entry entry) {
+        String handle = UUID.randomUUID().toString();
+        synchronized (ItemStore.class) {
+            sUnowned.put(handle, entry);
+        }
+        return handle;
+    }
+
+    /**
+     * Keeps the entry until {@link #release(android.app.Activity, boolean, android.os.Bundle)}.
+     * <br/>
+     * Call this when the fragment is created with the arguments.
+     *
+     * @param args Arguments of the fragment
+     */
+    static void own(final Bundle args) {
+        String handle = getHandle(args);
+        if (handle == null) {
+            return;
+        }
+        synchronized (ItemStore.class) {
+            Entry entry = sUnowned.remove(handle);
+            if (entry != null) {
+                sEntries.put(handle, entry);
+            }
+        }
+    }
+
+    /**
+     * Returns the handle of the stored entry in the arguments.
+     *
+     * @param args Arguments of the dialog
+     * @return Handle of the entry, or {@code null} if the arguments have no stored entry
+     */
+    static String getHandle(final Bundle args) {
+        return args == null ? null : args.getString(SimpleAlertDialog.ARG_ITEM_STORE);
+    }
+
+    /**
+     * Returns the entry.<br/>
+     * If the entry is not in memory because the process has been killed,
+     * it is read from the cache directory.
+     *
+     * @param context Context to access the cache directory
+     * @param handle  Handle of the entry
+     * @return Entry, or {@code null} if the entry has been lost
+     */
+    static Entry get(final Context context, final String handle) {
+        if (handle == null) {
+            return null;
+        }
+        synchronized (ItemStore.class) {
+            Entry entry = find(handle);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        Entry entry = read(context, handle);
+        if (entry != null) {
+            synchronized (ItemStore.class) {
+                sEntries.put(handle, entry);
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Writes the entry to the cache directory on the background thread
+     * if it has not been written yet.<br/>
+     * Call this when the fragment saves its state.
+     *
+     * @param context Context to access the cache directory
+     * @param handle  Handle of the entry
+     */
+    static void save(final Context context, final String handle) {
+        if (context == null || handle == null) {
+            return;
+        }
+        final Entry entry;
+        final boolean deleteStaleFiles;
+        synchronized (ItemStore.class) {
+            entry = find(handle);
+            if (entry == null || entry.saved) {
+                return;
+            }
+            entry.saved = true;
+            deleteStaleFiles = !sStaleFilesDeleted;
+            sStaleFilesDeleted = true;
+        }
+        final File dir = getDir(context);
+        getWriter().execute(new Runnable() {
+            @Override
+            public void run() {
+                write(dir, handle, entry, deleteStaleFiles);
+            }
+        });
+    }
+
+    /**
+     * Waits for the entries requested to be saved before to be written.
+     */
+    static void waitForWrites() {
+        try {
+            getWriter().submit(new Runnable() {
+                @Override
+                public void run() {
+                }
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to wait for the writes", e);
+        }
+    }
+
+    /**
+     * Removes the entry when the fragment will never be restored.
+     *
+     * @param activity Activity of the fragment
+     * @param removing {@code true} if the fragment is being removed
+     * @param args     Arguments of the fragment
+     */
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB)
+    static void release(final Activity activity, final boolean removing, final Bundle args) {
+        String handle = getHandle(args);
+        if (handle == null) {
+            return;
+        }
+        boolean finishing = activity == null || activity.isFinishing()
+                && (Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB
+                || !activity.isChangingConfigurations());
+        if (!removing && !finishing) {
+            return;
+        }
+        synchronized (ItemStore.class) {
+            sEntries.remove(handle);
+            sUnowned.remove(handle);
+        }
+        if (activity != null) {
+            File file = new File(getDir(activity), handle);
+            if (file.exists() && !file.delete()) {
+                Log.w(TAG, "Failed to delete " + file);
+            }
+        }
+    }
+
+    static synchronized int size() {
+        return sEntries.size() + sUnowned.size();
+    }
+
+    static synchronized int getOwnedCount() {
+        return sEntries.size();
+    }
+
+    static synchronized void clear() {
+        sEntries.clear();
+        sUnowned.clear();
+    }
+
+    private static Entry find(final String handle) {
+        Entry entry = sEntries.get(handle);
+        return entry != null ? entry : sUnowned.get(handle);
+    }
+
+    private static synchronized ExecutorService getWriter() {
+        if (sWriter == null) {
+            sWriter = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable r) {
+                    Thread thread = new Thread(r, "SimpleAlertDialog-ItemStore");
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }
+            });
+        }
+        return sWriter;
+    }
+
+    /**
+     * Writes the entry to the temporary file and renames it,
+     * so that the partially written file is never read.
+     */
+    private static void write(final File dir, final String handle, final Entry entry,
+                              final boolean deleteStaleFiles) {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            return;
+        }
+        if (deleteStaleFiles) {
+            deleteStaleFiles(dir);
+        }
+        File tmp = new File(dir, handle + ".tmp");
+        Parcel parcel = Parcel.obtain();
+        FileOutputStream out = null;
+        try {
+            writeEntry(parcel, entry);
+            out = new FileOutputStream(tmp);
+            out.write(parcel.marshall());
+            out.close();
+            out = null;
+            if (!tmp.renameTo(new File(dir, handle))) {
+                throw new IOException("Failed to rename " + tmp);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to save items", e);
+            tmp.delete();
+        } finally {
+            parcel.recycle();
+            closeQuietly(out);
+        }
+    }
+
+    private static Entry read(final Context context, final String handle) {
+        if (context == null) {
+            return null;
+        }
+        File file = new File(getDir(context), handle);
+        if (!file.isFile()) {
+            return null;
+        }
+        Parcel parcel = Parcel.obtain();
+        FileInputStream in = null;
+        try {
+            byte[] data = new byte[(int) file.length()];
+            in = new FileInputStream(file);
+            int offset = 0;
+            while (offset < data.length) {
+                int read = in.read(data, offset, data.length - offset);
+                if (read < 0) {
+                    throw new IOException("Unexpected end of " + file);
+                }
+                offset += read;
+            }
+            parcel.unmarshall(data, 0, data.length);
+            parcel.setDataPosition(0);
+            Entry entry = readEntry(parcel);
+            entry.saved = true;
+            return entry;
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to restore items", e);
+            return null;
+        } finally {
+            parcel.recycle();
+            closeQuietly(in);
+        }
+    }
+
+    private static void writeEntry(final Parcel parcel, final Entry entry) {
+        if (entry.items == null) {
+            parcel.writeInt(-1);
+        } else {
+            parcel.writeInt(entry.items.length);
+            for (CharSequence item : entry.items) {
+                TextUtils.writeToParcel(item, parcel, 0);
+            }
+        }
+        parcel.writeIntArray(entry.icons);
+        TextUtils.writeToParcel(entry.editText, parcel, 0);
+    }
+
+    private static Entry readEntry(final Parcel parcel) {
+        CharSequence[] items = null;
+        int length = parcel.readInt();
+        if (0 <= length) {
+            items = new CharSequence[length];
+            for (int i = 0; i < length; i++) {
+                items[i] = TextUtils.CHAR_SEQUENCE_CREATOR.createFromParcel(parcel);
+            }
+        }
+        int[] icons = parcel.createIntArray();
+        CharSequence editText = TextUtils.CHAR_SEQUENCE_CREATOR.createFromParcel(parcel);
+        return new Entry(items, icons, editText);
+    }
+
+    private static File getDir(final Context context) {
+        return new File(context.getCacheDir(), DIR_NAME);
+    }
+
+    /**
+     * Deletes the files which are left by the dialogs that have never been restored.<br/>
+     * This lists the directory, so it is done only for the first write in the process.
+     */
+    private static void deleteStaleFiles(final File dir) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (File file : files) {
+            if (STALE_MILLIS < now - file.lastModified()) {
+                file.delete();
+            }
+        }
+    }
+
+    private static void closeQuietly(final Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
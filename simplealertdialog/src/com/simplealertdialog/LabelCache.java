@@ -0,0 +1,143 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.simplealertdialog;
+
+import android.content.Context;
+import android.content.res.Resources;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Process-wide LRU cache of the texts of the titles, messages and buttons
+ * set with the resource IDs.<br/>
+ * Entries are keyed by the resource ID and the {@link ResourceScope} of the {@code Resources}.
+ * So the same resource ID of the other package never collides, and the texts of the
+ * different configurations, such as another locale, are cached side by side
+ * without dropping each other.
+ * The texts of the configuration no longer used are evicted as the least recently used.
+ *
+ * @author Soichiro Kashima
+ */
+public final class LabelCache {
+
+    private static final int DEFAULT_MAX_SIZE = 64;
+
+    private static final Map<Long, CharSequence> sCache =
+            new LinkedHashMap<Long, CharSequence>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<Long, CharSequence> eldest) {
+                    if (sMaxSize < size()) {
+                        sEvictionCount++;
+                        return true;
+                    }
+                    return false;
+                }
+            };
+    private static int sMaxSize = DEFAULT_MAX_SIZE;
+    private static int sHitCount;
+    private static int sMissCount;
+    private static int sEvictionCount;
+
+    private LabelCache() {
+    }
+
+    /**
+     * Returns the text of the resource, loading it only on the first call
+     * for the same package and configuration.
+     *
+     * @param context Context to load the text
+     * @param resId   String resource ID
+     * @return Text of the resource
+     */
+    static CharSequence getText(final Context context, final int resId) {
+        Resources res = context.getResources();
+        Long key = ResourceScope.keyOf(ResourceScope.of(context), resId);
+        synchronized (LabelCache.class) {
+            CharSequence text = sCache.get(key);
+            if (text != null) {
+                sHitCount++;
+                return text;
+            }
+            sMissCount++;
+        }
+        CharSequence text = res.getText(resId);
+        synchronized (LabelCache.class) {
+            sCache.put(key, text);
+        }
+        return text;
+    }
+
+    /**
+     * Sets the maximum number of the cached texts.<br/>
+     * Least recently used texts are evicted when the cache exceeds this.
+     *
+     * @param maxSize Maximum number of the entries, or {@code 0} to disable the cache
+     */
+    public static synchronized void setMaxSize(final int maxSize) {
+        sMaxSize = Math.max(0, maxSize);
+        while (sMaxSize < sCache.size()) {
+            sCache.remove(sCache.keySet().iterator().next());
+            sEvictionCount++;
+        }
+    }
+
+    /**
+     * Removes all of the cached texts.<br/>
+     * Counters are not reset.
+     */
+    public static synchronized void clear() {
+        sCache.clear();
+    }
+
+    /**
+     * Returns the number of the cached texts.
+     *
+     * @return Number of the entries
+     */
+    public static synchronized int size() {
+        return sCache.size();
+    }
+
+    /**
+     * Returns how many times the texts were found in the cache.
+     *
+     * @return Hit count
+     */
+    public static synchronized int getHitCount() {
+        return sHitCount;
+    }
+
+    /**
+     * Returns how many times the texts had to be loaded from the resources.
+     *
+     * @return Miss count
+     */
+    public static synchronized int getMissCount() {
+        return sMissCount;
+    }
+
+    /**
+     * Returns how many texts were evicted to keep the maximum size.
+     *
+     * @return Eviction count
+     */
+    public static synchronized int getEvictionCount() {
+        return sEvictionCount;
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import android.os.Bundle;
+import android.os.Parcel;
+import android.text.TextUtils;
+import android.util.Log;
+
+/**
+ * Opt-in measurement of the parceled size of the dialogs.<br/>
+ * When a {@link com.simplealertdialog.ParcelSizeMonitor.Sink} is set, the size of
+ * the arguments is reported when they are created, and the size of the arguments and
+ * the saved state is reported when the dialog fragments save their state.
+ * Both of them are sent through the binder transaction whose buffer is limited to 1MB
+ * for the whole process, so large dialogs can crash the app with
+ * {@code TransactionTooLargeException}.
+ * <p/>
+ * With the strict threshold, {@code IllegalStateException} is thrown when the size
+ * exceeds it. Use this only for the debug builds.
+ *
+ * @author Soichiro Kashima
+ */
+public final class ParcelSizeMonitor {
+
+    /**
+     * The arguments of the dialog have been created.
+     */
+    public static final int SOURCE_ARGUMENTS = 1;
+
+    /**
+     * The dialog fragment has saved its state.
+     */
+    public static final int SOURCE_SAVED_STATE = 2;
+
+    /**
+     * Sink which writes the reports to the log.
+     */
+    public static final Sink LOG_SINK = new Sink() {
+        @Override
+        public void onMeasured(final Report report) {
+            Log.i(TAG, report.toString());
+        }
+    };
+
+    private static final String TAG = "SimpleAlertDialog";
+
+    private static Sink sSink;
+    private static int sStrictThreshold;
+
+    /**
+     * Receiver of the measured sizes.
+     */
+    public interface Sink {
+        /**
+         * Called on the main thread when the size of the dialog is measured.
+         *
+         * @param report Measured sizes
+         */
+        void onMeasured(Report report);
+    }
+
+    /**
+     * Measured sizes of the dialog in bytes.
+     */
+    public static final class Report {
+        private final int mSource;
+        private final int mRequestCode;
+        private final int mArgumentsBytes;
+        private final int mSavedStateBytes;
+        private final int mItemsBytes;
+        private final int mMessageBytes;
+        private final int mEditTextBytes;
+
+        Report(final int source, final int requestCode, final int argumentsBytes,
+               final int savedStateBytes, final int itemsBytes, final int messageBytes,
+               final int editTextBytes) {
+            mSource = source;
+            mRequestCode = requestCode;
+            mArgumentsBytes = argumentsBytes;
+            mSavedStateBytes = savedStateBytes;
+            mItemsBytes = itemsBytes;
+            mMessageBytes = messageBytes;
+            mEditTextBytes = editTextBytes;
+        }
+
+        /**
+         * Returns when the size is measured.
+         *
+         * @return {@link #SOURCE_ARGUMENTS} or {@link #SOURCE_SAVED_STATE}
+         */
+        public int getSource() {
+            return mSource;
+        }
+
+        /**
+         * Returns the request code of the dialog.
+         *
+         * @return Request code
+         */
+        public int getRequestCode() {
+            return mRequestCode;
+        }
+
+        /**
+         * Returns the size of the arguments and the saved state.
+         *
+         * @return Total size in bytes
+         */
+        public int getTotalBytes() {
+            return mArgumentsBytes + mSavedStateBytes;
+        }
+
+        /**
+         * Returns the size of the arguments.
+         *
+         * @return Size in bytes
+         */
+        public int getArgumentsBytes() {
+            return mArgumentsBytes;
+        }
+
+        /**
+         * Returns the size of the state saved by the dialog fragment,
+         * including the state of the views in the dialog.
+         *
+         * @return Size in bytes, or {@code 0} for {@link #SOURCE_ARGUMENTS}
+         */
+        public int getSavedStateBytes() {
+            return mSavedStateBytes;
+        }
+
+        /**
+         * Returns the size of the items in the arguments.
+         *
+         * @return Size in bytes, or {@code 0} if the items are not in the arguments
+         */
+        public int getItemsBytes() {
+            return mItemsBytes;
+        }
+
+        /**
+         * Returns the size of the message in the arguments.
+         *
+         * @return Size in bytes
+         */
+        public int getMessageBytes() {
+            return mMessageBytes;
+        }
+
+        /**
+         * Returns the size of the initial text of the {@code EditText} in the arguments.
+         *
+         * @return Size in bytes
+         */
+        public int getEditTextBytes() {
+            return mEditTextBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "Dialog " + mRequestCode
+                    + (mSource == SOURCE_ARGUMENTS ? " arguments: " : " saved state: ")
+                    + getTotalBytes() + " bytes (arguments=" + mArgumentsBytes
+                    + ", savedState=" + mSavedStateBytes + ", items=" + mItemsBytes
+                    + ", message=" + mMessageBytes + ", editText=" + mEditTextBytes + ")";
+        }
+    }
+
+    private ParcelSizeMonitor() {
+    }
+
+    /**
+     * Sets the receiver of the measured sizes.
+     *
+     * @param sink Receiver such as {@link #LOG_SINK}, or {@code null} to stop measuring
+     */
+    public static synchronized void setSink(final Sink sink) {
+        sSink = sink;
+    }
+
+    /**
+     * Sets the threshold of the strict mode.<br/>
+     * When the size of the arguments and the saved state exceeds this,
+     * {@code IllegalStateException} is thrown after the report is sent to the sink.
+     *
+     * @param bytes Threshold in bytes, or {@code 0} to disable the strict mode
+     */
+    public static synchronized void setStrictThreshold(final int bytes) {
+        sStrictThreshold = Math.max(0, bytes);
+    }
+
+    /**
+     * Returns whether the sizes are measured.
+     *
+     * @return {@code true} if the sink or the strict threshold is set
+     */
+    public static synchronized boolean isEnabled() {
+        return sSink != null || 0 < sStrictThreshold;
+    }
+
+    /**
+     * Measures the created arguments.
+     *
+     * @param args Arguments of the dialog
+     */
+    static void onArgumentsCreated(final Bundle args) {
+        if (isEnabled()) {
+            report(measure(SOURCE_ARGUMENTS, args, null));
+        }
+    }
+
+    /**
+     * Measures the arguments and the saved state of the dialog fragment.
+     *
+     * @param args     Arguments of the dialog fragment, or {@code null}
+     * @param outState State saved by the dialog fragment
+     */
+    static void onSaveInstanceState(final Bundle args, final Bundle outState) {
+        if (isEnabled()) {
+            report(measure(SOURCE_SAVED_STATE, args, outState));
+        }
+    }
+
+    private static Report measure(final int source, final Bundle args, final Bundle outState) {
+        DialogSpec spec = DialogSpec.fromArguments(args);
+        // Stored payload is not in the arguments
+        boolean stored = ItemStore.getHandle(args) != null;
+        return new Report(source, spec.requestCode, sizeOf(args), sizeOf(outState),
+                stored ? 0 : sizeOf(spec.items), sizeOf(spec.message),
+                stored ? 0 : sizeOf(spec.editTextInitialText));
+    }
+
+    private static void report(final Report report) {
+        Sink sink;
+        int threshold;
+        synchronized (ParcelSizeMonitor.class) {
+            sink = sSink;
+            threshold = sStrictThreshold;
+        }
+        if (sink != null) {
+            sink.onMeasured(report);
+        }
+        if (0 < threshold && threshold < report.getTotalBytes()) {
+            throw new IllegalStateException(report + " exceeds the threshold "
+                    + threshold + " bytes");
+        }
+    }
+
+    private static int sizeOf(final Bundle bundle) {
+        if (bundle == null) {
+            return 0;
+        }
+        Parcel parcel = Parcel.obtain();
+        try {
+            parcel.writeBundle(bundle);
+            return parcel.dataSize();
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private static int sizeOf(final CharSequence text) {
+        if (text == null) {
+            return 0;
+        }
+        Parcel parcel = Parcel.obtain();
+        try {
+            TextUtils.writeToParcel(text, parcel, 0);
+            return parcel.dataSize();
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private static int sizeOf(final CharSequence[] texts) {
+        if (texts == null) {
+            return 0;
+        }
+        Parcel parcel = Parcel.obtain();
+        try {
+            parcel.writeInt(texts.length);
+            for (CharSequence text : texts) {
+                TextUtils.writeToParcel(text, parcel, 0);
+            }
+            return parcel.dataSize();
+        } finally {
+            parcel.recycle();
+        }
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+/**
+ * Result of the dialog that will be available when the dialog is closed.<br/>
+ * This is returned by {@code showForResult()} of the builders, and the work after the dialog
+ * can be chained without implementing the listener interfaces:
+ * <pre>
+ * new SimpleAlertDialogSupportFragment.Builder()
+ *     .setMessage("Delete this file?")
+ *     .setPositiveButton(android.R.string.ok)
+ *     .setNegativeButton(android.R.string.cancel)
+ *     .showForResult(getSupportFragmentManager(), "dialog")
+ *     .then(new PendingDialogResult.Callback() {
+ *         public void onResult(DialogResult result) {
+ *             if (result.isPositive()) {
+ *                 delete();
+ *             }
+ *         }
+ *     });
+ * </pre>
+ * The dialog finds this object by the token in its arguments, so the result is delivered
+ * even if the dialog is recreated by the configuration change.
+ * If the process is killed while the dialog is shown, this object is lost with the process
+ * and the restored dialog sends its events only to the listener interfaces.
+ * Callbacks must not hold the {@code Activity} that may be recreated.<br/>
+ * The dialog is completed with {@link DialogResult#CANCELED} when it is removed without
+ * clicking the buttons or the items.
+ * This object is registered to the process until it is completed. It is also completed as
+ * canceled when the {@code FragmentManager} that holds the dialog has been garbage collected,
+ * for example when the transaction is lost or the {@code Activity} destroyed in background
+ * is never recreated. This is checked when the next result is created,
+ * so callbacks holding the {@code Activity} keep it, and themselves, until they are called.
+ *
+ * @author Soichiro Kashima
+ */
+public final class PendingDialogResult {
+
+    /**
+     * Callback for the result of the dialog.
+     */
+    public interface Callback {
+        /**
+         * Called when the dialog is closed.
+         *
+         * @param result Result of the dialog
+         */
+        void onResult(DialogResult result);
+    }
+
+    private static final Map<String, PendingDialogResult> sPending =
+            new HashMap<String, PendingDialogResult>();
+    private static Executor sMainThreadExecutor;
+
+    private final String mToken;
+    private final ArrayList<Executor> mExecutors = new ArrayList<Executor>();
+    private final ArrayList<Callback> mCallbacks = new ArrayList<Callback>();
+    private DialogResult mResult;
+    private WeakReference<Object> mManager;
+    private int mRequestCode;
+
+    private PendingDialogResult(final String token) {
+        mToken = token;
+    }
+
+    /**
+     * Creates the pending result and registers it until the result is set.
+     *
+     * @return Pending result
+     */
+    static PendingDialogResult create() {
+        cancelOrphans();
+        PendingDialogResult result = new PendingDialogResult(UUID.randomUUID().toString());
+        synchronized (sPending) {
+            sPending.put(result.mToken, result);
+        }
+        return result;
+    }
+
+    /**
+     * Binds this result to the {@code FragmentManager} that holds the dialog.
+     *
+     * @param manager     {@code FragmentManager} of the dialog
+     * @param requestCode Request code of the dialog
+     */
+    void bind(final Object manager, final int requestCode) {
+        synchronized (sPending) {
+            mManager = manager == null ? null : new WeakReference<Object>(manager);
+            mRequestCode = requestCode;
+        }
+    }
+
+    /**
+     * Binds the pending result of the dialog to the {@code FragmentManager}
+     * that the dialog is attached to, which is the new one after the recreation.
+     *
+     * @param manager {@code FragmentManager} of the dialog
+     * @param args    Arguments of the dialog, or {@code null}
+     */
+    static void onAttached(final Object manager, final Bundle args) {
+        if (args == null) {
+            return;
+        }
+        PendingDialogResult result = find(args.getString(SimpleAlertDialog.ARG_RESULT_TOKEN));
+        if (result != null) {
+            result.bind(manager, DialogSpec.requestCodeOf(args));
+        }
+    }
+
+    /**
+     * Completes the results whose {@code FragmentManager} has been garbage collected
+     * as canceled, because their dialogs will never be created.
+     */
+    static void cancelOrphans() {
+        ArrayList<PendingDialogResult> orphans = null;
+        synchronized (sPending) {
+            for (PendingDialogResult result : sPending.values()) {
+                if (result.mManager != null && result.mManager.get() == null) {
+                    if (orphans == null) {
+                        orphans = new ArrayList<PendingDialogResult>();
+                    }
+                    orphans.add(result);
+                }
+            }
+        }
+        if (orphans == null) {
+            return;
+        }
+        for (PendingDialogResult result : orphans) {
+            result.complete(new DialogResult(DialogResult.CANCELED, result.mRequestCode, -1, null));
+        }
+    }
+
+    /**
+     * Finds the pending result for the dialog.
+     *
+     * @param token Token in the arguments of the dialog, or {@code null}
+     * @return Pending result, or {@code null} if it is not found or already completed
+     */
+    static PendingDialogResult find(final String token) {
+        if (token == null) {
+            return null;
+        }
+        synchronized (sPending) {
+            return sPending.get(token);
+        }
+    }
+
+    /**
+     * Completes the pending result of the dialog as canceled.<br/>
+     * Call this when the dialog is removed before it is created.
+     *
+     * @param args Arguments of the dialog, or {@code null}
+     */
+    static void cancel(final Bundle args) {
+        if (args == null) {
+            return;
+        }
+        PendingDialogResult result = find(args.getString(SimpleAlertDialog.ARG_RESULT_TOKEN));
+        if (result != null) {
+            result.complete(new DialogResult(DialogResult.CANCELED,
+                    DialogSpec.requestCodeOf(args), -1, null));
+        }
+    }
+
+    /**
+     * Unregisters this result without completing it.<br/>
+     * Call this when the dialog could not be shown.
+     */
+    void discard() {
+        synchronized (sPending) {
+            sPending.remove(mToken);
+        }
+    }
+
+    static int size() {
+        synchronized (sPending) {
+            return sPending.size();
+        }
+    }
+
+    String getToken() {
+        return mToken;
+    }
+
+    /**
+     * Returns whether the dialog has been closed.
+     *
+     * @return {@code true} if the result is available
+     */
+    public synchronized boolean isDone() {
+        return mResult != null;
+    }
+
+    /**
+     * Returns the result without waiting for it.
+     *
+     * @return Result, or {@code null} if the dialog has not been closed
+     */
+    public synchronized DialogResult getResult() {
+        return mResult;
+    }
+
+    /**
+     * Calls the callback on the main thread when the dialog is closed.
+     *
+     * @param callback Callback for the result
+     * @return This object
+     */
+    public PendingDialogResult then(final Callback callback) {
+        return then(getMainThreadExecutor(), callback);
+    }
+
+    /**
+     * Calls the callback on the {@code executor} when the dialog is closed.<br/>
+     * If the dialog has already been closed, the callback is passed to the {@code executor}
+     * immediately.
+     *
+     * @param executor Executor to call the callback
+     * @param callback Callback for the result
+     * @return This object
+     */
+    public PendingDialogResult then(final Executor executor, final Callback callback) {
+        if (executor == null || callback == null) {
+            throw new IllegalArgumentException("executor and callback must not be null");
+        }
+        DialogResult result;
+        synchronized (this) {
+            result = mResult;
+            if (result == null) {
+                mExecutors.add(executor);
+                mCallbacks.add(callback);
+                return this;
+            }
+        }
+        deliver(executor, callback, result);
+        return this;
+    }
+
+    /**
+     * Sets the result and calls the callbacks.<br/>
+     * Only the first result is used.
+     *
+     * @param result Result of the dialog
+     */
+    void complete(final DialogResult result) {
+        ArrayList<Executor> executors;
+        ArrayList<Callback> callbacks;
+        synchronized (this) {
+            if (mResult != null) {
+                return;
+            }
+            mResult = result;
+            executors = new ArrayList<Executor>(mExecutors);
+            callbacks = new ArrayList<Callback>(mCallbacks);
+            mExecutors.clear();
+            mCallbacks.clear();
+        }
+        synchronized (sPending) {
+            sPending.remove(mToken);
+        }
+        for (int i = 0; i < callbacks.size(); i++) {
+            deliver(executors.get(i), callbacks.get(i), result);
+        }
+    }
+
+    private static void deliver(final Executor executor, final Callback callback,
+                                final DialogResult result) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                callback.onResult(result);
+            }
+        });
+    }
+
+    private static synchronized Executor getMainThreadExecutor() {
+        if (sMainThreadExecutor == null) {
+            final Handler handler = new Handler(Looper.getMainLooper());
+            sMainThreadExecutor = new Executor() {
+                @Override
+                public void execute(final Runnable command) {
+                    handler.post(command);
+                }
+            };
+        }
+        return sMainThreadExecutor;
+    }
+}
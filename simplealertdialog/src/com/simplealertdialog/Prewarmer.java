@@ -0,0 +1,84 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import android.content.Context;
+import android.util.Log;
+import android.util.TypedValue;
+import android.view.ContextThemeWrapper;
+import android.view.LayoutInflater;
+
+/**
+ * Background task to resolve the styles and to load the resources
+ * of the dialog before the first dialog is shown.
+ *
+ * @see com.simplealertdialog.SimpleAlertDialog#prewarm(android.content.Context, int...)
+ */
+final class Prewarmer implements Runnable {
+
+    private static final String TAG = "SimpleAlertDialog";
+
+    private final Context mContext;
+    private final int[] mThemeResIds;
+
+    Prewarmer(final Context context, final int[] themeResIds) {
+        mContext = context;
+        mThemeResIds = themeResIds == null || themeResIds.length == 0
+                ? new int[]{0} : themeResIds.clone();
+    }
+
+    /**
+     * Starts prewarming on a new low priority thread.
+     */
+    void start() {
+        Thread thread = new Thread(this, "SimpleAlertDialog-prewarm");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        for (int themeResId : mThemeResIds) {
+            Context context = new ContextThemeWrapper(mContext, resolveTheme(themeResId));
+            // Decodes the drawables of the chrome and keeps them in the cache
+            StyleCache.obtain(context, themeResId);
+            try {
+                // Loads the classes and the layout resources.
+                // The views are discarded because they can't be attached on another thread.
+                LayoutInflater.from(context).inflate(R.layout.sad__dialog_simple, null);
+            } catch (RuntimeException e) {
+                // Some views might require the main thread. Styles have already been cached.
+                Log.w(TAG, "Failed to prewarm layout for theme " + themeResId, e);
+            }
+        }
+    }
+
+    /**
+     * Resolves the theme as {@code Dialog} does when the theme is not specified.
+     */
+    private int resolveTheme(final int themeResId) {
+        if (themeResId != 0) {
+            return themeResId;
+        }
+        TypedValue value = new TypedValue();
+        if (mContext.getTheme().resolveAttribute(android.R.attr.dialogTheme, value, true)
+                && value.resourceId != 0) {
+            return value.resourceId;
+        }
+        return android.R.style.Theme_Dialog;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.text.TextUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Scope of the resources shared by the process-wide caches of the resources.<br/>
+ * Resources of the same package, configuration and density have the same scope ID,
+ * so the same resource ID always resolves to the same value in a scope.
+ * Caches key their entries by the scope ID and the resource ID, so the resources of
+ * the other package, locale, night mode or layout direction never collide.<br/>
+ * IDs are never reused, so the entries of the old scopes are never found again.
+ *
+ * @author Soichiro Kashima
+ */
+final class ResourceScope {
+
+    private static final Map<Resources, ResourceScope> sScopes =
+            new WeakHashMap<Resources, ResourceScope>();
+    private static final Map<ResourceScope, ResourceScope> sIds =
+            new HashMap<ResourceScope, ResourceScope>();
+    private static int sLastId;
+
+    private final String mPackageName;
+    private final Configuration mConfiguration;
+    private final int mDensityDpi;
+    private int mId;
+
+    private ResourceScope(final String packageName, final Configuration configuration,
+                          final int densityDpi) {
+        mPackageName = packageName;
+        mConfiguration = new Configuration(configuration);
+        mDensityDpi = densityDpi;
+    }
+
+    /**
+     * Returns the ID of the scope of the resources of the context.<br/>
+     * The same ID is returned for the resources of the same package, configuration and density,
+     * and a new ID is assigned when the configuration of the resources is changed.
+     *
+     * @param context Context to load the resources
+     * @return ID of the scope
+     */
+    static int of(final Context context) {
+        return of(context.getPackageName(), context.getResources());
+    }
+
+    /**
+     * Returns the ID of the scope of the resources.
+     *
+     * @param packageName Package of the resources
+     * @param res         Resources to load the values
+     * @return ID of the scope
+     * @see #of(android.content.Context)
+     */
+    static synchronized int of(final String packageName, final Resources res) {
+        Configuration config = res.getConfiguration();
+        int densityDpi = res.getDisplayMetrics().densityDpi;
+        ResourceScope scope = sScopes.get(res);
+        if (scope == null || !scope.matches(packageName, config, densityDpi)) {
+            ResourceScope newScope = new ResourceScope(packageName, config, densityDpi);
+            scope = sIds.get(newScope);
+            if (scope == null) {
+                scope = newScope;
+                scope.mId = ++sLastId;
+                sIds.put(scope, scope);
+            }
+            sScopes.put(res, scope);
+        }
+        return scope.mId;
+    }
+
+    /**
+     * Creates the key of the cache entry.
+     *
+     * @param scopeId ID of the scope
+     * @param resId   Resource ID
+     * @return Key unique for the pair
+     */
+    static Long keyOf(final int scopeId, final int resId) {
+        return ((long) scopeId << 32) | (resId & 0xffffffffL);
+    }
+
+    private boolean matches(final String packageName, final Configuration configuration,
+                            final int densityDpi) {
+        return TextUtils.equals(mPackageName, packageName)
+                && mDensityDpi == densityDpi
+                && mConfiguration.diff(configuration) == 0;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (!(o instanceof ResourceScope)) {
+            return false;
+        }
+        ResourceScope other = (ResourceScope) o;
+        return TextUtils.equals(mPackageName, other.mPackageName)
+                && mDensityDpi == other.mDensityDpi
+                && mConfiguration.equals(other.mConfiguration);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = mPackageName == null ? 0 : mPackageName.hashCode();
+        result = 31 * result + mConfiguration.hashCode();
+        return 31 * result + mDensityDpi;
+    }
+}
@@ -17,11 +17,11 @@
 package com.simplealertdialog;
 
 import android.annotation.TargetApi;
+import android.app.Activity;
 import android.app.Dialog;
 import android.content.Context;
 import android.content.DialogInterface;
 import android.content.res.Resources;
-import android.content.res.TypedArray;
 import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
 import android.os.Build;
@@ -31,14 +31,9 @@ import android.text.TextUtils;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.AdapterView;
-import android.widget.ArrayAdapter;
-import android.widget.CheckedTextView;
-import android.widget.FrameLayout;
-import android.widget.ImageView;
 import android.widget.LinearLayout;
 import android.widget.ListAdapter;
 import android.widget.ListView;
-import android.widget.TextView;
 
 /**
  * <p>Dialog managed by {@link com.simplealertdialog.SimpleAlertDialogFragment}
@@ -262,16 +257,6 @@ public class SimpleAlertDialog extends Dialog {
                                           final int position);
     }
 
-    private class IconListItem {
-        public int iconResId;
-        public CharSequence text;
-
-        public IconListItem(final int iconResId, CharSequence text) {
-            this.iconResId = iconResId;
-            this.text = text;
-        }
-    }
-
     static final String ARG_THEME_RES_ID = "argThemeResId";
     static final String ARG_TITLE = "argTitle";
     static final String ARG_TITLE_RES_ID = "argTitleResId";
@@ -295,6 +280,12 @@ public class SimpleAlertDialog extends Dialog {
     static final String ARG_EDIT_TEXT_INITIAL_TEXT = "argEditTextInitialText";
     static final String ARG_EDIT_TEXT_INPUT_TYPE = "argEditTextInputType";
     static final String ARG_USE_ADAPTER = "argUseAdapter";
+    static final String ARG_USE_LARGE_LIST = "argUseLargeList";
+    static final String ARG_ITEM_STORE = "argItemStore";
+    static final String ARG_RESULT_TOKEN = "argResultToken";
+    static final String ARG_QUEUED = "argQueued";
+    static final String ARG_QUEUE_PRIORITY = "argQueuePriority";
+    static final String ARG_SPEC = "argSpec";
 
     private CharSequence mMessage;
     private CharSequence mTitle;
@@ -310,6 +301,16 @@ public class SimpleAlertDialog extends Dialog {
     private boolean mSingleChoice = true;
     private int mCheckedItem;
     private AdapterView.OnItemClickListener mListItemListener;
+    private boolean mLargeList;
+    private boolean mWindowLargeList;
+    private DialogChrome mChrome;
+    private int mTitlePaddingLeft;
+    private boolean mDirty;
+    private boolean mDispatched;
+    private final Context mOwnerContext;
+    private final int mThemeResId;
+
+    private static int sSuppressedEventCount;
 
     private int mListChoiceIndicatorSingle;
     private int mTitleTextStyle;
@@ -335,7 +336,9 @@ public class SimpleAlertDialog extends Dialog {
      */
     public SimpleAlertDialog(Context context, int themeResId) {
         super(context, themeResId);
-        obtainStyles();
+        mOwnerContext = context;
+        mThemeResId = themeResId;
+        obtainStyles(themeResId);
     }
 
     /**
@@ -346,91 +349,135 @@ public class SimpleAlertDialog extends Dialog {
      */
     public SimpleAlertDialog(Context context) {
         super(context);
-        obtainStyles();
+        mOwnerContext = context;
+        mThemeResId = 0;
+        obtainStyles(0);
+    }
+
+    /**
+     * Prepares the dialog resources on a background thread.<br/>
+     * Call this while the application is starting (e.g. {@code Application#onCreate()}
+     * or {@code Activity#onCreate()}) so that the first dialog is shown as fast as
+     * the later ones: styles of the themes are resolved and cached,
+     * background drawables are decoded and the layout resources are loaded.<br/>
+     * Prewarming is done for the theme of the {@code context}, so pass the
+     * {@code Activity} if it has its own {@code simpleAlertDialogStyle}.
+     *
+     * @param context     Context to resolve the themes
+     * @param themeResIds Theme resource IDs set by {@code Builder#setTheme(int)}.
+     *                    If none are passed, the default theme is prewarmed.
+     */
+    public static void prewarm(final Context context, final int... themeResIds) {
+        if (context == null) {
+            return;
+        }
+        new Prewarmer(context, themeResIds).start();
     }
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         requestWindowFeature(android.view.Window.FEATURE_NO_TITLE);
-        setContentView(R.layout.sad__dialog_simple);
+        setContentChrome(mChrome == null ? createChrome() : mChrome);
         getWindow()
                 .setBackgroundDrawable(new ColorDrawable(android.graphics.Color.TRANSPARENT));
+        bind();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        // Dismissed: the rows of the items will not be bound until this is shown again
+        if (mAdapter instanceof ItemAdapter) {
+            ((ItemAdapter) mAdapter).release();
+        }
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        // Accept the first event of each showing
+        mDispatched = false;
+        if (mDirty) {
+            // Reused from the DialogPool: onCreate() is not called again
+            if (!hasSections(mChrome)) {
+                setContentChrome(createChrome());
+            }
+            bind();
+        }
+    }
+
+    /**
+     * Applies the contents to the chrome.<br/>
+     * This can be called again after {@link #reset()}, so every view is
+     * set to be visible or gone.
+     */
+    private void bind() {
+        mDirty = false;
+        final DialogChrome chrome = mChrome;
+        final boolean hasTitle = !TextUtils.isEmpty(mTitle);
 
         // Background
-        setBackground(R.id.header, mBackgroundTop);
-        setBackground(R.id.bar_wrapper, mBackgroundMiddle);
-        setBackground(R.id.body, mBackgroundBottom);
+        setBackground(chrome.header, mBackgroundTop);
+        setBackground(chrome.barWrapper, mBackgroundMiddle);
+        setBackground(chrome.body, hasTitle ? mBackgroundBottom : mBackgroundFull);
 
         // Title
-        if (TextUtils.isEmpty(mTitle)) {
-            findViewById(R.id.header).setVisibility(View.GONE);
-            findViewById(R.id.bar_wrapper).setVisibility(View.GONE);
-            findViewById(R.id.title).setVisibility(View.GONE);
-            findViewById(R.id.icon).setVisibility(View.GONE);
-            setBackground(R.id.body, mBackgroundFull);
-        } else {
-            ((TextView) findViewById(R.id.title)).setText(mTitle);
+        setVisible(chrome.header, hasTitle);
+        setVisible(chrome.barWrapper, hasTitle);
+        setVisible(chrome.title, hasTitle);
+        setVisible(chrome.icon, hasTitle && mIcon > 0);
+        if (hasTitle) {
+            chrome.title.setText(mTitle);
             if (mTitleTextStyle != 0) {
-                ((TextView) findViewById(R.id.title)).setTextAppearance(getContext(),
-                        mTitleTextStyle);
+                chrome.title.setTextAppearance(getContext(), mTitleTextStyle);
             }
             if (mIcon > 0) {
-                ((ImageView) findViewById(R.id.icon)).setImageResource(mIcon);
-                findViewById(R.id.title).setPadding(
-                        findViewById(R.id.title).getPaddingLeft() / 2,
-                        findViewById(R.id.title).getPaddingTop(),
-                        findViewById(R.id.title).getPaddingRight(),
-                        findViewById(R.id.title).getPaddingBottom());
-            } else {
-                findViewById(R.id.icon).setVisibility(View.GONE);
+                chrome.icon.setImageResource(mIcon);
             }
-            setBackground(R.id.bar, mTitleSeparatorBackground);
+            chrome.title.setPadding(
+                    mIcon > 0 ? mTitlePaddingLeft / 2 : mTitlePaddingLeft,
+                    chrome.title.getPaddingTop(),
+                    chrome.title.getPaddingRight(),
+                    chrome.title.getPaddingBottom());
+            setBackground(chrome.bar, mTitleSeparatorBackground);
             if (mTitleSeparatorHeight == 0) {
                 mTitleSeparatorHeight = getContext().getResources().getDimensionPixelSize(
                         R.dimen.sad__dialog_title_separator_height);
             }
-            FrameLayout.LayoutParams lpBar = new FrameLayout.LayoutParams(
-                    getMatchParent(),
-                    mTitleSeparatorHeight);
-            findViewById(R.id.bar).setLayoutParams(lpBar);
-            findViewById(R.id.bar).requestLayout();
-            LinearLayout.LayoutParams lpBarWrapper = new LinearLayout.LayoutParams(
-                    getMatchParent(),
-                    mTitleSeparatorHeight);
-            findViewById(R.id.bar_wrapper).setLayoutParams(lpBarWrapper);
-            findViewById(R.id.bar_wrapper).requestLayout();
+            // Not laid out yet, so changing the height is enough
+            chrome.bar.getLayoutParams().height = mTitleSeparatorHeight;
+            chrome.barWrapper.getLayoutParams().height = mTitleSeparatorHeight;
         }
 
         // Message
-        if (TextUtils.isEmpty(mMessage)) {
-            findViewById(R.id.message).setVisibility(View.GONE);
-        } else {
-            ((TextView) findViewById(R.id.message)).setText(mMessage);
+        setVisible(chrome.message, !TextUtils.isEmpty(mMessage));
+        if (!TextUtils.isEmpty(mMessage)) {
+            chrome.message.setText(mMessage);
             if (mMessageTextStyle != 0) {
-                ((TextView) findViewById(R.id.message)).setTextAppearance(getContext(),
-                        mMessageTextStyle);
+                chrome.message.setTextAppearance(getContext(), mMessageTextStyle);
             }
         }
 
         // Custom View
+        if (chrome.view != null) {
+            chrome.view.removeAllViews();
+        }
+        setVisible(chrome.view, mView != null);
         if (mView != null) {
-            LinearLayout group = (LinearLayout) findViewById(R.id.view);
             LinearLayout.LayoutParams lp = new LinearLayout.LayoutParams(
                     getMatchParent(),
                     LinearLayout.LayoutParams.WRAP_CONTENT);
-            group.addView(mView, lp);
-        } else {
-            findViewById(R.id.view).setVisibility(View.GONE);
+            chrome.view.addView(mView, lp);
         }
 
         // Custom Adapter
+        setVisible(chrome.list, mAdapter != null);
         if (mAdapter != null) {
-            ListView list = (ListView) findViewById(R.id.list);
+            ListView list = chrome.list;
             list.setAdapter(mAdapter);
-            if (mSingleChoice) {
-                list.setChoiceMode(ListView.CHOICE_MODE_SINGLE);
-            }
+            applyListMode(chrome);
+            list.setChoiceMode(mSingleChoice ? ListView.CHOICE_MODE_SINGLE : ListView.CHOICE_MODE_NONE);
             if (mSingleChoice && 0 <= mCheckedItem && mCheckedItem < mAdapter.getCount()) {
                 list.setItemChecked(mCheckedItem, true);
                 list.setSelectionFromTop(mCheckedItem, 0);
@@ -438,31 +485,34 @@ public class SimpleAlertDialog extends Dialog {
             list.setOnItemClickListener(new AdapterView.OnItemClickListener() {
                 @Override
                 public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
+                    if (!tryDispatch()) {
+                        return;
+                    }
                     if (mListItemListener != null) {
                         mListItemListener.onItemClick(parent, view, position, id);
                     }
                     dismiss();
                 }
             });
-        } else {
-            findViewById(R.id.list).setVisibility(View.GONE);
         }
 
         // Positive Button
-        boolean hasPositiveButton = false;
+        final boolean hasPositiveButton = hasPositiveButton();
+        setVisible(chrome.buttonPositive, hasPositiveButton);
         if (mPositiveButtonText != null) {
-            hasPositiveButton = true;
-            ((TextView) findViewById(R.id.button_positive_label)).setText(mPositiveButtonText);
+            chrome.buttonPositiveLabel.setText(mPositiveButtonText);
             if (mButtonTextStyle != 0) {
-                ((TextView) findViewById(R.id.button_positive_label)).setTextAppearance(
-                        getContext(), mButtonTextStyle);
+                chrome.buttonPositiveLabel.setTextAppearance(getContext(), mButtonTextStyle);
             }
         }
-        if (mPositiveButtonListener != null) {
-            hasPositiveButton = true;
-            findViewById(R.id.button_positive).setOnClickListener(new View.OnClickListener() {
+        if (hasPositiveButton) {
+            chrome.buttonPositive.setOnClickListener(mPositiveButtonListener == null ? null
+                    : new View.OnClickListener() {
                 @Override
                 public void onClick(final View v) {
+                    if (!tryDispatch()) {
+                        return;
+                    }
                     if (mPositiveButtonListener != null) {
                         mPositiveButtonListener.onClick(SimpleAlertDialog.this, 0);
                     }
@@ -470,25 +520,24 @@ public class SimpleAlertDialog extends Dialog {
                 }
             });
         }
-        if (!hasPositiveButton) {
-            findViewById(R.id.button_positive).setVisibility(View.GONE);
-        }
 
         // Neutral Button
-        boolean hasNeutralButton = false;
+        final boolean hasNeutralButton = hasNeutralButton();
+        setVisible(chrome.buttonNeutral, hasNeutralButton);
         if (mNeutralButtonText != null) {
-            hasNeutralButton = true;
-            ((TextView) findViewById(R.id.button_neutral_label)).setText(mNeutralButtonText);
+            chrome.buttonNeutralLabel.setText(mNeutralButtonText);
             if (mButtonTextStyle != 0) {
-                ((TextView) findViewById(R.id.button_neutral_label)).setTextAppearance(
-                        getContext(), mButtonTextStyle);
+                chrome.buttonNeutralLabel.setTextAppearance(getContext(), mButtonTextStyle);
             }
         }
-        if (mNeutralButtonListener != null) {
-            hasNeutralButton = true;
-            findViewById(R.id.button_neutral).setOnClickListener(new View.OnClickListener() {
+        if (hasNeutralButton) {
+            chrome.buttonNeutral.setOnClickListener(mNeutralButtonListener == null ? null
+                    : new View.OnClickListener() {
                 @Override
                 public void onClick(final View v) {
+                    if (!tryDispatch()) {
+                        return;
+                    }
                     if (mNeutralButtonListener != null) {
                         mNeutralButtonListener.onClick(SimpleAlertDialog.this, 0);
                     }
@@ -496,25 +545,24 @@ public class SimpleAlertDialog extends Dialog {
                 }
             });
         }
-        if (!hasNeutralButton) {
-            findViewById(R.id.button_neutral).setVisibility(View.GONE);
-        }
 
         // Negative Button
-        boolean hasNegativeButton = false;
+        final boolean hasNegativeButton = hasNegativeButton();
+        setVisible(chrome.buttonNegative, hasNegativeButton);
         if (mNegativeButtonText != null) {
-            hasNegativeButton = true;
-            ((TextView) findViewById(R.id.button_negative_label)).setText(mNegativeButtonText);
+            chrome.buttonNegativeLabel.setText(mNegativeButtonText);
             if (mButtonTextStyle != 0) {
-                ((TextView) findViewById(R.id.button_negative_label)).setTextAppearance(
-                        getContext(), mButtonTextStyle);
+                chrome.buttonNegativeLabel.setTextAppearance(getContext(), mButtonTextStyle);
             }
         }
-        if (mNegativeButtonListener != null) {
-            hasNegativeButton = true;
-            findViewById(R.id.button_negative).setOnClickListener(new View.OnClickListener() {
+        if (hasNegativeButton) {
+            chrome.buttonNegative.setOnClickListener(mNegativeButtonListener == null ? null
+                    : new View.OnClickListener() {
                 @Override
                 public void onClick(final View v) {
+                    if (!tryDispatch()) {
+                        return;
+                    }
                     if (mNegativeButtonListener != null) {
                         mNegativeButtonListener.onClick(SimpleAlertDialog.this, 1);
                     }
@@ -522,27 +570,107 @@ public class SimpleAlertDialog extends Dialog {
                 }
             });
         }
-        if (!hasNegativeButton) {
-            findViewById(R.id.button_negative).setVisibility(View.GONE);
-        }
 
-        if (!hasPositiveButton && !hasNegativeButton) {
-            findViewById(R.id.button_divider_top).setVisibility(View.GONE);
-            findViewById(R.id.button_divider).setVisibility(View.GONE);
-        } else if (!hasPositiveButton || !hasNegativeButton) {
-            findViewById(R.id.button_divider).setVisibility(View.GONE);
-            setBackground(R.id.button_divider_top, mButtonTopDividerBackground);
-        } else {
-            setBackground(R.id.button_divider_top, mButtonTopDividerBackground);
-            setBackground(R.id.button_divider, mButtonVerticalDividerBackground);
+        setVisible(chrome.buttonDividerTop, hasPositiveButton || hasNegativeButton);
+        setVisible(chrome.buttonDivider, hasPositiveButton && hasNegativeButton);
+        if (hasPositiveButton || hasNegativeButton) {
+            setBackground(chrome.buttonDividerTop, mButtonTopDividerBackground);
         }
+        if (hasPositiveButton && hasNegativeButton) {
+            setBackground(chrome.buttonDivider, mButtonVerticalDividerBackground);
+        }
+        setVisible(chrome.buttonDividerNeutral, hasNeutralButton);
         if (hasNeutralButton) {
-            setBackground(R.id.button_divider_neutral, mButtonVerticalDividerBackground);
-        } else {
-            findViewById(R.id.button_divider_neutral).setVisibility(View.GONE);
+            setBackground(chrome.buttonDividerNeutral, mButtonVerticalDividerBackground);
         }
     }
 
+    /**
+     * Clears the contents and the listeners to reuse this dialog
+     * from the {@link com.simplealertdialog.DialogPool}.<br/>
+     * The contents are applied again when this dialog is shown next time.
+     */
+    void reset() {
+        mMessage = null;
+        mTitle = null;
+        mIcon = 0;
+        mPositiveButtonText = null;
+        mNeutralButtonText = null;
+        mNegativeButtonText = null;
+        mPositiveButtonListener = null;
+        mNeutralButtonListener = null;
+        mNegativeButtonListener = null;
+        if (mView != null && mView.getParent() instanceof ViewGroup) {
+            ((ViewGroup) mView.getParent()).removeView(mView);
+        }
+        mView = null;
+        if (mAdapter instanceof ItemAdapter) {
+            ((ItemAdapter) mAdapter).release();
+        }
+        mAdapter = null;
+        mSingleChoice = true;
+        mCheckedItem = 0;
+        mListItemListener = null;
+        final boolean wasLargeList = mLargeList;
+        mLargeList = false;
+        if (mChrome != null && mChrome.list != null) {
+            if (wasLargeList) {
+                applyListMode(mChrome);
+            }
+            mChrome.list.setAdapter(null);
+            mChrome.list.clearChoices();
+        }
+        // Listeners set by the DialogFragment
+        setOnCancelListener(null);
+        setOnDismissListener(null);
+        mDispatched = false;
+        mDirty = true;
+    }
+
+    /**
+     * Lets only the first event of the dialog be dispatched.<br/>
+     * Rapid taps can deliver more clicks before the dialog is dismissed,
+     * so the later events are dropped and counted until the dialog is shown again.
+     *
+     * @return {@code true} if the event should be dispatched
+     */
+    boolean tryDispatch() {
+        if (mDispatched) {
+            synchronized (SimpleAlertDialog.class) {
+                sSuppressedEventCount++;
+            }
+            return false;
+        }
+        mDispatched = true;
+        return true;
+    }
+
+    /**
+     * Returns how many duplicate events were dropped because the dialog had already
+     * received the click or the cancel event.
+     *
+     * @return Suppressed event count
+     */
+    public static synchronized int getSuppressedEventCount() {
+        return sSuppressedEventCount;
+    }
+
+    Context getOwnerContext() {
+        return mOwnerContext;
+    }
+
+    int getThemeResId() {
+        return mThemeResId;
+    }
+
+    AdapterView.OnItemClickListener getListItemListener() {
+        return mListItemListener;
+    }
+
+    ListAdapter getListAdapter() {
+        return mAdapter;
+    }
+
     public void setMessage(final CharSequence message) {
         if (message == null) {
             return;
@@ -551,7 +679,7 @@ public class SimpleAlertDialog extends Dialog {
     }
 
     public void setMessage(final int resId) {
-        setMessage(getContext().getText(resId));
+        setMessage(LabelCache.getText(getContext(), resId));
     }
 
     @Override
@@ -564,7 +692,7 @@ public class SimpleAlertDialog extends Dialog {
 
     @Override
     public void setTitle(final int resId) {
-        setTitle(getContext().getText(resId));
+        setTitle(LabelCache.getText(getContext(), resId));
     }
 
     public void setIcon(final int resId) {
@@ -587,20 +715,11 @@ public class SimpleAlertDialog extends Dialog {
 
     public void setItems(final CharSequence[] items,
                          final AdapterView.OnItemClickListener listener) {
-        mAdapter = new ArrayAdapter<CharSequence>(getContext(), android.R.layout.simple_list_item_1, items) {
-            @Override
-            public View getView(int position, View convertView, ViewGroup parent) {
-                View view = super.getView(position, convertView, parent);
-                if (view != null) {
-                    TextView tv = (TextView) view.findViewById(android.R.id.text1);
-                    if (mListItemTextStyle != 0) {
-                        tv.setTextAppearance(getContext(), mListItemTextStyle);
-                    }
-                    tv.setText(items[position]);
-                }
-                return view;
-            }
-        };
+        if (items == null) {
+            return;
+        }
+        mAdapter = new ItemAdapter(getContext(), android.R.layout.simple_list_item_1, items, null)
+                .setTextAppearance(mListItemTextStyle);
         mListItemListener = listener;
     }
 
@@ -610,27 +729,46 @@ public class SimpleAlertDialog extends Dialog {
         if (iconResIds == null || items == null) {
             return;
         }
-        final IconListItem[] iconListItems = new IconListItem[Math.min(iconResIds.length, items.length)];
-        for (int i = 0; i < iconResIds.length && i < items.length; i++) {
-            iconListItems[i] = new IconListItem(iconResIds[i], items[i]);
-        }
-        mAdapter = new ArrayAdapter<IconListItem>(getContext(), android.R.layout.simple_list_item_1, iconListItems) {
-            @Override
-            public View getView(int position, View convertView, ViewGroup parent) {
-                View view = super.getView(position, convertView, parent);
-                if (view != null) {
-                    TextView tv = (TextView) view.findViewById(android.R.id.text1);
-                    if (mListItemTextStyle != 0) {
-                        tv.setTextAppearance(getContext(), mListItemTextStyle);
-                    }
-                    tv.setText(iconListItems[position].text);
-                    tv.setCompoundDrawablesWithIntrinsicBounds(iconListItems[position].iconResId, 0, 0, 0);
-                    int padding = (int) (8 * getContext().getResources().getDisplayMetrics().density);
-                    tv.setCompoundDrawablePadding(padding);
-                }
-                return view;
-            }
-        };
+        mAdapter = new ItemAdapter(getContext(), android.R.layout.simple_list_item_1, items,
+                iconResIds)
+                .setTextAppearance(mListItemTextStyle);
+        mListItemListener = listener;
+    }
+
+    /**
+     * Sets the items of the array resource.<br/>
+     * Each item is resolved when it is shown first,
+     * so only the visible items are loaded from the long array.
+     *
+     * @param resId    Array resource of the items
+     * @param listener Listener of the item click
+     */
+    public void setItems(final int resId, final AdapterView.OnItemClickListener listener) {
+        if (resId == 0) {
+            return;
+        }
+        mAdapter = new ItemAdapter(getContext(), android.R.layout.simple_list_item_1, resId, null)
+                .setTextAppearance(mListItemTextStyle);
+        mListItemListener = listener;
+    }
+
+    /**
+     * Sets the items of the array resource with the icons.<br/>
+     * Each item is resolved when it is shown first,
+     * so only the visible items are loaded from the long array.
+     *
+     * @param resId      Array resource of the items
+     * @param iconResIds Icons of the items
+     * @param listener   Listener of the item click
+     */
+    public void setItems(final int resId, final int[] iconResIds,
+                         final AdapterView.OnItemClickListener listener) {
+        if (iconResIds == null || resId == 0) {
+            return;
+        }
+        mAdapter = new ItemAdapter(getContext(), android.R.layout.simple_list_item_1, resId,
+                iconResIds)
+                .setTextAppearance(mListItemTextStyle);
         mListItemListener = listener;
     }
 
@@ -648,37 +786,35 @@ public class SimpleAlertDialog extends Dialog {
         if (items == null) {
             return;
         }
-        mAdapter = new ArrayAdapter<CharSequence>(getContext(),
-                android.R.layout.simple_list_item_single_choice, items) {
-            @Override
-            public View getView(int position, View convertView, ViewGroup parent) {
-                View view = super.getView(position, convertView, parent);
-                if (view != null) {
-                    CheckedTextView c = (CheckedTextView) view.findViewById(android.R.id.text1);
-                    if (mListChoiceIndicatorSingle != 0) {
-                        c.setCheckMarkDrawable(mListChoiceIndicatorSingle);
-                    }
-                    if (mListItemTextStyle != 0) {
-                        c.setTextAppearance(getContext(), mListItemTextStyle);
-                    }
-                    setBackground(c, mListSelectorBackground);
-                    if (Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB) {
-                        Resources res = getContext().getResources();
-                        c.setPadding(
-                                res.getDimensionPixelSize(R.dimen.sad__simple_list_item_padding_left),
-                                0,
-                                res.getDimensionPixelSize(R.dimen.sad__simple_list_item_padding_right),
-                                0);
-                    }
-                }
-                return view;
-            }
-        };
+        ItemAdapter adapter = new ItemAdapter(getContext(),
+                android.R.layout.simple_list_item_single_choice, items, null)
+                .setTextAppearance(mListItemTextStyle)
+                .setCheckMark(mListChoiceIndicatorSingle)
+                .setBackground(mListSelectorBackground);
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB) {
+            Resources res = getContext().getResources();
+            adapter.setHorizontalPadding(
+                    res.getDimensionPixelSize(R.dimen.sad__simple_list_item_padding_left),
+                    res.getDimensionPixelSize(R.dimen.sad__simple_list_item_padding_right));
+        }
+        mAdapter = adapter;
         mSingleChoice = true;
         mCheckedItem = checkedItem;
         mListItemListener = listener;
     }
 
+    /**
+     * Sets the list to the large list mode for the items of thousands of entries.<br/>
+     * The dialog fills the height of the window so that the list is measured with the exact
+     * height, and only the visible rows are created.
+     * Fast scroll is enabled to jump through the list.
+     *
+     * @param largeList {@code true} to use the large list mode
+     */
+    public void setLargeList(final boolean largeList) {
+        mLargeList = largeList;
+    }
+
     public void setPositiveButton(final CharSequence text,
                                   final DialogInterface.OnClickListener listener) {
         if (text == null) {
@@ -690,7 +826,7 @@ public class SimpleAlertDialog extends Dialog {
 
     public void setPositiveButton(final int resId,
                                   final DialogInterface.OnClickListener listener) {
-        setPositiveButton(getContext().getText(resId), listener);
+        setPositiveButton(LabelCache.getText(getContext(), resId), listener);
     }
 
     public void setNeutralButton(final CharSequence text,
@@ -704,7 +840,7 @@ public class SimpleAlertDialog extends Dialog {
 
     public void setNeutralButton(final int resId,
                                   final DialogInterface.OnClickListener listener) {
-        setNeutralButton(getContext().getText(resId), listener);
+        setNeutralButton(LabelCache.getText(getContext(), resId), listener);
     }
 
     public void setNegativeButton(final CharSequence text,
@@ -718,63 +854,135 @@ public class SimpleAlertDialog extends Dialog {
 
     public void setNegativeButton(final int resId,
                                   final DialogInterface.OnClickListener listener) {
-        setNegativeButton(getContext().getText(resId), listener);
+        setNegativeButton(LabelCache.getText(getContext(), resId), listener);
     }
 
-    private void obtainStyles() {
-        TypedArray a = getContext().getTheme().obtainStyledAttributes(null,
-                R.styleable.SimpleAlertDialogStyle, R.attr.simpleAlertDialogStyle,
-                R.style.Theme_SimpleAlertDialog);
-
-        mListChoiceIndicatorSingle = a.getResourceId(
-                R.styleable.SimpleAlertDialogStyle_sadListChoiceIndicatorSingle, 0);
-        mTitleTextStyle = a.getResourceId(R.styleable.SimpleAlertDialogStyle_sadTitleTextStyle, 0);
-        mMessageTextStyle = a.getResourceId(R.styleable.SimpleAlertDialogStyle_sadMessageTextStyle,
-                0);
-        mButtonTextStyle = a
-                .getResourceId(R.styleable.SimpleAlertDialogStyle_sadButtonTextStyle, 0);
-        mListItemTextStyle = a.getResourceId(
-                R.styleable.SimpleAlertDialogStyle_sadListItemTextStyle,
-                0);
-        mListSelectorBackground = a
-                .getDrawable(R.styleable.SimpleAlertDialogStyle_sadListSelectorBackground);
-        mTitleSeparatorBackground = a
-                .getDrawable(R.styleable.SimpleAlertDialogStyle_sadTitleSeparatorBackground);
-        mTitleSeparatorHeight = a.getLayoutDimension(
-                R.styleable.SimpleAlertDialogStyle_sadTitleSeparatorHeight,
-                getContext().getResources().getDimensionPixelSize(
-                        R.dimen.sad__dialog_title_separator_height));
-        mButtonTopDividerBackground = a
-                .getDrawable(R.styleable.SimpleAlertDialogStyle_sadButtonTopDividerBackground);
-        mButtonVerticalDividerBackground = a
-                .getDrawable(R.styleable.SimpleAlertDialogStyle_sadButtonVerticalDividerBackground);
-        mBackgroundFull = a.getDrawable(R.styleable.SimpleAlertDialogStyle_sadBackgroundFull);
-        mBackgroundTop = a.getDrawable(R.styleable.SimpleAlertDialogStyle_sadBackgroundTop);
-        mBackgroundMiddle = a.getDrawable(R.styleable.SimpleAlertDialogStyle_sadBackgroundMiddle);
-        mBackgroundBottom = a.getDrawable(R.styleable.SimpleAlertDialogStyle_sadBackgroundBottom);
-
-        a.recycle();
+    private void obtainStyles(final int themeResId) {
+        StyleCache.Styles styles = StyleCache.obtain(getContext(), themeResId);
+        mListChoiceIndicatorSingle = styles.listChoiceIndicatorSingle;
+        mTitleTextStyle = styles.titleTextStyle;
+        mMessageTextStyle = styles.messageTextStyle;
+        mButtonTextStyle = styles.buttonTextStyle;
+        mListItemTextStyle = styles.listItemTextStyle;
+        mListSelectorBackground = styles.listSelectorBackground;
+        mTitleSeparatorBackground = styles.titleSeparatorBackground;
+        mTitleSeparatorHeight = styles.titleSeparatorHeight;
+        mButtonTopDividerBackground = styles.buttonTopDividerBackground;
+        mButtonVerticalDividerBackground = styles.buttonVerticalDividerBackground;
+        mBackgroundFull = styles.backgroundFull;
+        mBackgroundTop = styles.backgroundTop;
+        mBackgroundMiddle = styles.backgroundMiddle;
+        mBackgroundBottom = styles.backgroundBottom;
     }
 
-    private void setBackground(final int resId, final Drawable d) {
-        if (resId == 0 || d == null) {
-            return;
+    private DialogChrome createChrome() {
+        if (DialogChromeBuilder.isAvailable(getContext())) {
+            return new DialogChromeBuilder(getContext())
+                    .setTitle(!TextUtils.isEmpty(mTitle), mIcon > 0)
+                    .setMessage(!TextUtils.isEmpty(mMessage))
+                    .setView(mView != null)
+                    .setList(mAdapter != null)
+                    .setButtons(hasPositiveButton(), hasNeutralButton(), hasNegativeButton())
+                    .build();
+        }
+        return DialogChrome.find(getLayoutInflater().inflate(R.layout.sad__dialog_simple, null));
+    }
+
+    /**
+     * Applies the layout for the normal list or the large list.<br/>
+     * In the large list mode, the frame fills the window and the list takes the remaining
+     * height of the content, so the list never measures its rows to wrap its content.
+     */
+    private void applyListMode(final DialogChrome chrome) {
+        final int height = mLargeList ? getMatchParent() : ViewGroup.LayoutParams.WRAP_CONTENT;
+        chrome.root.getLayoutParams().height = height;
+        chrome.body.getLayoutParams().height = height;
+        LinearLayout.LayoutParams lp = (LinearLayout.LayoutParams) chrome.list.getLayoutParams();
+        lp.height = mLargeList ? 0 : ViewGroup.LayoutParams.WRAP_CONTENT;
+        lp.weight = mLargeList ? 1 : 0;
+        chrome.list.setFastScrollEnabled(mLargeList);
+        // Drawing caches of the rows are not worth creating during the long fling
+        chrome.list.setScrollingCacheEnabled(!mLargeList);
+        if (mWindowLargeList != mLargeList) {
+            // Window attributes are dispatched to the window manager on every change,
+            // so they are only touched when entering or leaving the large list mode
+            mWindowLargeList = mLargeList;
+            getWindow().setLayout(getWindow().getAttributes().width, height);
         }
-        View view = findViewById(resId);
-        setBackground(view, d);
     }
 
+    private void setContentChrome(final DialogChrome chrome) {
+        if (mChrome != chrome) {
+            mChrome = chrome;
+            mTitlePaddingLeft = chrome.title == null ? 0 : chrome.title.getPaddingLeft();
+        }
+        setContentView(chrome.root, new ViewGroup.LayoutParams(
+                getMatchParent(), ViewGroup.LayoutParams.WRAP_CONTENT));
+    }
+
+    /**
+     * Returns whether the chrome has all of the sections used by the current contents.
+     * The chrome built in code for the previous contents may lack some of them.
+     */
+    private boolean hasSections(final DialogChrome chrome) {
+        final boolean hasTitle = !TextUtils.isEmpty(mTitle);
+        return (!hasTitle || chrome.header != null)
+                && (!hasTitle || mIcon <= 0 || chrome.icon != null)
+                && (TextUtils.isEmpty(mMessage) || chrome.message != null)
+                && (mView == null || chrome.view != null)
+                && (mAdapter == null || chrome.list != null)
+                && (!hasPositiveButton() || chrome.buttonPositive != null)
+                && (!hasNeutralButton() || chrome.buttonNeutral != null)
+                && (!hasNegativeButton() || chrome.buttonNegative != null)
+                && (!hasPositiveButton() || !hasNegativeButton() || chrome.buttonDivider != null);
+    }
+
+    private boolean hasPositiveButton() {
+        return mPositiveButtonText != null || mPositiveButtonListener != null;
+    }
+
+    private boolean hasNeutralButton() {
+        return mNeutralButtonText != null || mNeutralButtonListener != null;
+    }
+
+    private boolean hasNegativeButton() {
+        return mNegativeButtonText != null || mNegativeButtonListener != null;
+    }
+
+    /**
+     * Shows or hides the view if it exists.
+     * Views of the unused sections are not created when the chrome is built in code.
+     */
+    private void setVisible(final View view, final boolean visible) {
+        if (view != null) {
+            view.setVisibility(visible ? View.VISIBLE : View.GONE);
+        }
+    }
+
+    /**
+     * Sets the background created from the source, sharing its {@code ConstantState}.<br/>
+     * If the view already has the background created from the same source
+     * (e.g. the chrome of the dialog reused from the pool), this does nothing.
+     * The source itself is never set, because one drawable cannot be attached to many views.
+     *
+     * @param view   Target view
+     * @param source Source drawable
+     */
     @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
     @SuppressWarnings("deprecation")
-    private void setBackground(final View view, final Drawable d) {
-        if (view == null || d == null) {
+    static void setBackground(final View view, final Drawable source) {
+        if (view == null || source == null || source.getConstantState() == null) {
+            return;
+        }
+        if (view.getTag(R.id.sad__background_source) == source) {
             return;
         }
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
-            view.setBackground(d.getConstantState().newDrawable());
+            view.setBackground(source.getConstantState().newDrawable());
         } else {
-            view.setBackgroundDrawable(d.getConstantState().newDrawable());
+            view.setBackgroundDrawable(source.getConstantState().newDrawable());
         }
+        view.setTag(R.id.sad__background_source, source);
     }
 
     @SuppressWarnings("deprecation")
@@ -819,6 +1027,8 @@ public class SimpleAlertDialog extends Dialog {
         private int mEditTextInputType;
         private boolean mUseView;
         private boolean mUseAdapter;
+        private boolean mUseLargeList;
+        private String mResultToken;
 
         /**
          * Sets the theme of the dialog.
@@ -1114,69 +1324,132 @@ public class SimpleAlertDialog extends Dialog {
             return this;
         }
 
+        /**
+         * Sets the list of the dialog to the large list mode.<br/>
+         * Use this for the items of thousands of entries set by {@code setItems()}
+         * or provided by {@link com.simplealertdialog.SimpleAlertDialog.SingleChoiceArrayItemProvider}.
+         * The dialog fills the height of the screen, only the visible rows are created,
+         * and fast scroll is enabled.
+         *
+         * @param useLargeList {@code true} to use the large list mode
+         * @return Builder itself
+         */
+        public Builder<T, F> setUseLargeList(final boolean useLargeList) {
+            mUseLargeList = useLargeList;
+            return this;
+        }
+
         /**
          * Creates the arguments of the {@code SimpleAlertDialog} as a {@code Bundle}.<br/>
          * In most cases, you don't have to call this method directly.
+         * The arguments have a key for each style; the fragments created by {@link #create()}
+         * have the compact form of {@link com.simplealertdialog.DialogSpec} instead.
          *
          * @return Created arguments bundle
          */
-        @TargetApi(Build.VERSION_CODES.FROYO)
         public Bundle createArguments() {
-            Bundle args = new Bundle();
-            if (mThemeResId > 0) {
-                args.putInt(SimpleAlertDialog.ARG_THEME_RES_ID, mThemeResId);
-            }
-            if (mTitle != null) {
-                args.putCharSequence(SimpleAlertDialog.ARG_TITLE, mTitle);
-            } else if (mTitleResId > 0) {
-                args.putInt(SimpleAlertDialog.ARG_TITLE_RES_ID, mTitleResId);
-            }
-            if (mIcon > 0) {
-                args.putInt(SimpleAlertDialog.ARG_ICON, mIcon);
-            }
-            if (mMessage != null) {
-                args.putCharSequence(SimpleAlertDialog.ARG_MESSAGE, mMessage);
-            } else if (mMessageResId > 0) {
-                args.putInt(SimpleAlertDialog.ARG_MESSAGE_RES_ID, mMessageResId);
-            }
-            if (mPositiveButton != null) {
-                args.putCharSequence(SimpleAlertDialog.ARG_POSITIVE_BUTTON, mPositiveButton);
-            } else if (mPositiveButtonResId > 0) {
-                args.putInt(SimpleAlertDialog.ARG_POSITIVE_BUTTON_RES_ID, mPositiveButtonResId);
-            }
-            if (mNeutralButton != null) {
-                args.putCharSequence(SimpleAlertDialog.ARG_NEUTRAL_BUTTON, mNeutralButton);
-            } else if (mNeutralButtonResId > 0) {
-                args.putInt(SimpleAlertDialog.ARG_NEUTRAL_BUTTON_RES_ID, mNeutralButtonResId);
-            }
-            if (mNegativeButton != null) {
-                args.putCharSequence(SimpleAlertDialog.ARG_NEGATIVE_BUTTON, mNegativeButton);
-            } else if (mNegativeButtonResId > 0) {
-                args.putInt(SimpleAlertDialog.ARG_NEGATIVE_BUTTON_RES_ID, mNegativeButtonResId);
-            }
-            if (mItems != null && Build.VERSION_CODES.ECLAIR <= Build.VERSION.SDK_INT) {
-                args.putCharSequenceArray(SimpleAlertDialog.ARG_ITEMS, mItems);
-            } else if (mItemsResId > 0) {
-                args.putInt(SimpleAlertDialog.ARG_ITEMS_RES_ID, mItemsResId);
-            }
-            if (mIcons != null) {
-                args.putIntArray(SimpleAlertDialog.ARG_ICONS, mIcons);
-            }
-            args.putBoolean(SimpleAlertDialog.ARG_CANCELABLE, mCancelable);
-            args.putBoolean(SimpleAlertDialog.ARG_CANCELED_ON_TOUCH_OUTSIDE,
-                    mCanceledOnTouchOutside);
-            if (mSingleChoiceCheckedItem >= 0) {
-                args.putInt(SimpleAlertDialog.ARG_SINGLE_CHOICE_CHECKED_ITEM,
-                        mSingleChoiceCheckedItem);
+            Bundle args = toSpec().toLegacyArguments();
+            ParcelSizeMonitor.onArgumentsCreated(args);
+            return args;
+        }
+
+        /**
+         * Creates the new dialog and shows it directly, without {@code DialogFragment}.<br/>
+         * This skips the fragment transaction and the arguments {@code Bundle},
+         * so the dialog appears faster, but {@code FragmentManager} does not manage it:
+         * the dialog is not restored after the configuration change or the process death,
+         * and the caller must dismiss it before the {@code Activity} is destroyed
+         * to avoid leaking its window.
+         * Events are sent to the target fragment and the {@code activity} as usual.
+         * The dialog is owned by the caller, so it is not recycled to
+         * {@link com.simplealertdialog.DialogPool} when it is dismissed.
+         *
+         * @param activity {@code Activity} to show the dialog
+         * @return Shown dialog
+         */
+        public SimpleAlertDialog showDirect(final Activity activity) {
+            return DirectDialog.show(activity, getTarget(), toSpec());
+        }
+
+        /**
+         * Creates the immutable styles of the dialog set by this builder.<br/>
+         * Use this instead of {@link #create()} to show the same dialog many times.
+         * The target fragment is not included.
+         *
+         * @return Styles of the dialog
+         * @see com.simplealertdialog.SimpleAlertDialogFragment#newInstance(DialogSpec)
+         * @see com.simplealertdialog.SimpleAlertDialogSupportFragment#newInstance(DialogSpec)
+         */
+        public DialogSpec build() {
+            DialogSpec.Values values = toValues();
+            // Builder can be changed after building
+            if (values.items != null) {
+                values.items = values.items.clone();
             }
-            if (mEditTextInitialText != null || 0 < mEditTextInputType) {
-                args.putCharSequence(SimpleAlertDialog.ARG_EDIT_TEXT_INITIAL_TEXT, mEditTextInitialText);
-                args.putInt(SimpleAlertDialog.ARG_EDIT_TEXT_INPUT_TYPE, mEditTextInputType);
+            if (values.icons != null) {
+                values.icons = values.icons.clone();
             }
-            args.putBoolean(SimpleAlertDialog.ARG_USE_VIEW, mUseView);
-            args.putBoolean(SimpleAlertDialog.ARG_USE_ADAPTER, mUseAdapter);
-            args.putInt(SimpleAlertDialog.ARG_REQUEST_CODE, mRequestCode);
-            return args;
+            return new DialogSpec(values);
+        }
+
+        /**
+         * Returns the target fragment set by {@link #setTargetFragment(Object)}.
+         *
+         * @return Target fragment, or {@code null}
+         */
+        Object getTarget() {
+            return null;
+        }
+
+        /**
+         * Creates the styles of the dialog set by this builder.<br/>
+         * Unlike {@link #build()}, the arrays are shared with this builder.
+         *
+         * @return Styles of the dialog
+         */
+        DialogSpec toSpec() {
+            return new DialogSpec(toValues());
+        }
+
+        private DialogSpec.Values toValues() {
+            DialogSpec.Values values = new DialogSpec.Values();
+            values.themeResId = mThemeResId;
+            values.title = mTitle;
+            values.titleResId = mTitleResId;
+            values.icon = mIcon;
+            values.message = mMessage;
+            values.messageResId = mMessageResId;
+            values.positiveButton = mPositiveButton;
+            values.positiveButtonResId = mPositiveButtonResId;
+            values.neutralButton = mNeutralButton;
+            values.neutralButtonResId = mNeutralButtonResId;
+            values.negativeButton = mNegativeButton;
+            values.negativeButtonResId = mNegativeButtonResId;
+            values.items = mItems;
+            values.itemsResId = mItemsResId;
+            values.icons = mIcons;
+            values.requestCode = mRequestCode;
+            values.cancelable = mCancelable;
+            values.canceledOnTouchOutside = mCanceledOnTouchOutside;
+            values.singleChoiceCheckedItem = mSingleChoiceCheckedItem;
+            values.hasEditText = mEditTextInitialText != null || 0 < mEditTextInputType;
+            values.editTextInitialText = mEditTextInitialText;
+            values.editTextInputType = mEditTextInputType;
+            values.useView = mUseView;
+            values.useAdapter = mUseAdapter;
+            values.useLargeList = mUseLargeList;
+            values.resultToken = mResultToken;
+            return values;
+        }
+
+        /**
+         * Sets the token of the pending result completed by the dialog.
+         *
+         * @param token Token of {@link com.simplealertdialog.PendingDialogResult},
+         *              or {@code null}
+         */
+        void setResultToken(final String token) {
+            mResultToken = token;
         }
 
         /**
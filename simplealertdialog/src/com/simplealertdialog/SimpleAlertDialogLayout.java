@@ -0,0 +1,225 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Vertical layout for the frame of the {@link com.simplealertdialog.SimpleAlertDialog}.<br/>
+ * This works like a vertical {@code LinearLayout} that has one weighted child,
+ * but each child is measured only once:
+ * the fixed children (header, separator, footer) are measured first,
+ * then the flexible child (marked with {@code sadLayoutFlexible}) takes
+ * the remaining height.<br/>
+ * Children with {@code match_parent} width are measured again only when
+ * the width of this layout is not exactly specified by the parent.
+ *
+ * @author Soichiro Kashima
+ */
+public class SimpleAlertDialogLayout extends ViewGroup {
+
+    /**
+     * Layout parameters for the children of the {@link SimpleAlertDialogLayout}.
+     */
+    public static class LayoutParams extends ViewGroup.MarginLayoutParams {
+        /**
+         * {@code true} if the child takes the remaining height.
+         */
+        public boolean flexible;
+
+        public LayoutParams(final Context c, final AttributeSet attrs) {
+            super(c, attrs);
+            TypedArray a = c.obtainStyledAttributes(attrs, R.styleable.SimpleAlertDialogLayout_Layout);
+            flexible = a.getBoolean(R.styleable.SimpleAlertDialogLayout_Layout_sadLayoutFlexible, false);
+            a.recycle();
+        }
+
+        public LayoutParams(final int width, final int height) {
+            super(width, height);
+        }
+
+        public LayoutParams(final int width, final int height, final boolean flexible) {
+            super(width, height);
+            this.flexible = flexible;
+        }
+
+        public LayoutParams(final ViewGroup.LayoutParams source) {
+            super(source);
+        }
+    }
+
+    public SimpleAlertDialogLayout(final Context context) {
+        super(context);
+    }
+
+    public SimpleAlertDialogLayout(final Context context, final AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    public SimpleAlertDialogLayout(final Context context, final AttributeSet attrs,
+                                   final int defStyle) {
+        super(context, attrs, defStyle);
+    }
+
+    @Override
+    protected void onMeasure(final int widthMeasureSpec, final int heightMeasureSpec) {
+        final int widthMode = MeasureSpec.getMode(widthMeasureSpec);
+        final int widthSize = MeasureSpec.getSize(widthMeasureSpec);
+        final int heightMode = MeasureSpec.getMode(heightMeasureSpec);
+        final int heightSize = MeasureSpec.getSize(heightMeasureSpec);
+        final int paddingHorizontal = getPaddingLeft() + getPaddingRight();
+        final int paddingVertical = getPaddingTop() + getPaddingBottom();
+        final int count = getChildCount();
+
+        // Fixed children: measureChildWithMargins() adds the padding by itself
+        int usedHeight = 0;
+        int maxWidth = 0;
+        View flexibleChild = null;
+        for (int i = 0; i < count; i++) {
+            final View child = getChildAt(i);
+            if (child.getVisibility() == GONE) {
+                continue;
+            }
+            final LayoutParams lp = (LayoutParams) child.getLayoutParams();
+            if (lp.flexible && flexibleChild == null) {
+                flexibleChild = child;
+                continue;
+            }
+            measureChildWithMargins(child, widthMeasureSpec, 0, heightMeasureSpec, usedHeight);
+            usedHeight += child.getMeasuredHeight() + lp.topMargin + lp.bottomMargin;
+            maxWidth = Math.max(maxWidth, child.getMeasuredWidth() + lp.leftMargin + lp.rightMargin);
+        }
+
+        // Flexible child takes the remaining height
+        if (flexibleChild != null) {
+            final LayoutParams lp = (LayoutParams) flexibleChild.getLayoutParams();
+            final int childWidthMeasureSpec = getChildMeasureSpec(widthMeasureSpec,
+                    paddingHorizontal + lp.leftMargin + lp.rightMargin, lp.width);
+            final int margins = lp.topMargin + lp.bottomMargin;
+            final int childHeightMeasureSpec;
+            if (heightMode == MeasureSpec.UNSPECIFIED) {
+                childHeightMeasureSpec = lp.height > 0
+                        ? MeasureSpec.makeMeasureSpec(lp.height, MeasureSpec.EXACTLY)
+                        : MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
+            } else {
+                final int remaining = Math.max(0,
+                        heightSize - paddingVertical - usedHeight - margins);
+                if (lp.height > 0) {
+                    childHeightMeasureSpec = MeasureSpec.makeMeasureSpec(
+                            Math.min(lp.height, remaining), MeasureSpec.EXACTLY);
+                } else if (heightMode == MeasureSpec.EXACTLY
+                        && lp.height != LayoutParams.WRAP_CONTENT) {
+                    childHeightMeasureSpec = MeasureSpec.makeMeasureSpec(remaining,
+                            MeasureSpec.EXACTLY);
+                } else {
+                    // Same as the weighted child of the LinearLayout: wrap, but shrink to fit
+                    childHeightMeasureSpec = MeasureSpec.makeMeasureSpec(remaining,
+                            MeasureSpec.AT_MOST);
+                }
+            }
+            flexibleChild.measure(childWidthMeasureSpec, childHeightMeasureSpec);
+            usedHeight += flexibleChild.getMeasuredHeight() + margins;
+            maxWidth = Math.max(maxWidth,
+                    flexibleChild.getMeasuredWidth() + lp.leftMargin + lp.rightMargin);
+        }
+
+        // Resolve the size of this layout
+        int width;
+        if (widthMode == MeasureSpec.EXACTLY) {
+            width = widthSize;
+        } else {
+            width = Math.max(maxWidth + paddingHorizontal, getSuggestedMinimumWidth());
+            if (widthMode == MeasureSpec.AT_MOST) {
+                width = Math.min(width, widthSize);
+            }
+        }
+        int height = Math.max(usedHeight + paddingVertical, getSuggestedMinimumHeight());
+        if (heightMode == MeasureSpec.EXACTLY) {
+            height = heightSize;
+        } else if (heightMode == MeasureSpec.AT_MOST) {
+            height = Math.min(height, heightSize);
+        }
+        setMeasuredDimension(width, height);
+
+        if (widthMode != MeasureSpec.EXACTLY) {
+            forceUniformWidth(width - paddingHorizontal);
+        }
+    }
+
+    /**
+     * Measures {@code match_parent} children again with the resolved width.
+     */
+    private void forceUniformWidth(final int width) {
+        final int count = getChildCount();
+        for (int i = 0; i < count; i++) {
+            final View child = getChildAt(i);
+            if (child.getVisibility() == GONE) {
+                continue;
+            }
+            final LayoutParams lp = (LayoutParams) child.getLayoutParams();
+            final int childWidth = width - lp.leftMargin - lp.rightMargin;
+            if (lp.width == LayoutParams.MATCH_PARENT && child.getMeasuredWidth() != childWidth) {
+                child.measure(MeasureSpec.makeMeasureSpec(childWidth, MeasureSpec.EXACTLY),
+                        MeasureSpec.makeMeasureSpec(child.getMeasuredHeight(), MeasureSpec.EXACTLY));
+            }
+        }
+    }
+
+    @Override
+    protected void onLayout(final boolean changed, final int l, final int t, final int r,
+                            final int b) {
+        final int left = getPaddingLeft();
+        int top = getPaddingTop();
+        final int count = getChildCount();
+        for (int i = 0; i < count; i++) {
+            final View child = getChildAt(i);
+            if (child.getVisibility() == GONE) {
+                continue;
+            }
+            final LayoutParams lp = (LayoutParams) child.getLayoutParams();
+            top += lp.topMargin;
+            final int childLeft = left + lp.leftMargin;
+            child.layout(childLeft, top,
+                    childLeft + child.getMeasuredWidth(), top + child.getMeasuredHeight());
+            top += child.getMeasuredHeight() + lp.bottomMargin;
+        }
+    }
+
+    @Override
+    public LayoutParams generateLayoutParams(final AttributeSet attrs) {
+        return new LayoutParams(getContext(), attrs);
+    }
+
+    @Override
+    protected LayoutParams generateDefaultLayoutParams() {
+        return new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.WRAP_CONTENT);
+    }
+
+    @Override
+    protected LayoutParams generateLayoutParams(final ViewGroup.LayoutParams p) {
+        return new LayoutParams(p);
+    }
+
+    @Override
+    protected boolean checkLayoutParams(final ViewGroup.LayoutParams p) {
+        return p instanceof LayoutParams;
+    }
+}
@@ -22,6 +22,7 @@ import android.os.Bundle;
 import android.support.v4.app.DialogFragment;
 import android.support.v4.app.Fragment;
 import android.support.v4.app.FragmentActivity;
+import android.support.v4.app.FragmentManager;
 
 /**
  * Simple alert dialog fragment based on the android.support.v4 library.<br/>
@@ -33,20 +34,48 @@ import android.support.v4.app.FragmentActivity;
  */
 public class SimpleAlertDialogSupportFragment extends DialogFragment {
 
+    private DispatchTable mDispatchTable;
+
     /**
      * Default constructor.
      */
     public SimpleAlertDialogSupportFragment() {
     }
 
+    /**
+     * Creates the new dialog fragment with the styles built by
+     * {@link com.simplealertdialog.SimpleAlertDialog.Builder#build()}.<br/>
+     * The same {@code spec} can be used for many fragments.
+     *
+     * @param spec Styles of the dialog
+     * @return Dialog fragment instance
+     */
+    public static SimpleAlertDialogSupportFragment newInstance(final DialogSpec spec) {
+        SimpleAlertDialogSupportFragment fragment = new SimpleAlertDialogSupportFragment();
+        fragment.setArguments(spec.toArguments());
+        return fragment;
+    }
+
+    @Override
+    public void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        // Stored payload is kept until this fragment will never be restored
+        ItemStore.own(getArguments());
+        // Result waits for this manager, not the one before the recreation
+        PendingDialogResult.onAttached(getFragmentManager(), getArguments());
+        // Restored after the recreation: the new dialogs in the queue wait for this
+        if (savedInstanceState != null) {
+            DialogQueue.onRestored(getFragmentManager(), this, getTag(), getArguments());
+        }
+    }
+
     @Override
     public Dialog onCreateDialog(Bundle savedInstanceState) {
         Bundle args = getArguments();
+        DialogSpec spec = DialogSpec.fromArguments(args);
         // Cancelable must be set to DialogFragment
-        if (args != null && args.containsKey(SimpleAlertDialog.ARG_CANCELABLE)) {
-            setCancelable(args.getBoolean(SimpleAlertDialog.ARG_CANCELABLE, true));
-        }
-        return new InternalHelper<Fragment, FragmentActivity>() {
+        setCancelable(spec.cancelable);
+        InternalHelper<Fragment, FragmentActivity> helper = new InternalHelper<Fragment, FragmentActivity>() {
             public FragmentActivity getActivity() {
                 return SimpleAlertDialogSupportFragment.this.getActivity();
             }
@@ -54,31 +83,54 @@ public class SimpleAlertDialogSupportFragment extends DialogFragment {
             public Fragment getTargetFragment() {
                 return SimpleAlertDialogSupportFragment.this.getTargetFragment();
             }
-        }.createDialog(args);
+        };
+        Dialog dialog = helper.createDialog(spec, args);
+        mDispatchTable = helper.getDispatchTable();
+        return dialog;
     }
 
     @Override
-    public void onCancel(DialogInterface dialog) {
-        super.onCancel(dialog);
-        int requestCode = 0;
-        Bundle args = getArguments();
-        if (args != null && args.containsKey(SimpleAlertDialog.ARG_CANCELABLE)) {
-            requestCode = args.getInt(SimpleAlertDialog.ARG_REQUEST_CODE);
+    public void onDestroyView() {
+        Dialog dialog = getDialog();
+        super.onDestroyView();
+        // Dismissed by super, so it can be reused by the next dialog
+        if (dialog instanceof SimpleAlertDialog && DialogPool.canRecycle(getActivity())) {
+            DialogPool.recycle((SimpleAlertDialog) dialog);
+        }
+    }
+
+    @Override
+    public void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        // Stored items must survive the process death with the arguments
+        ItemStore.save(getActivity(), ItemStore.getHandle(getArguments()));
+        ParcelSizeMonitor.onSaveInstanceState(getArguments(), outState);
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        ItemStore.release(getActivity(), isRemoving(), getArguments());
+        // Recreated dialog completes the result after the configuration change
+        if (isRemoving() || getActivity() == null || getActivity().isFinishing()) {
+            if (mDispatchTable != null) {
+                mDispatchTable.onRemoved();
+            } else {
+                // Removed before the dialog is created
+                PendingDialogResult.cancel(getArguments());
+            }
         }
-        Fragment targetFragment = getTargetFragment();
-        if (targetFragment != null
-                && targetFragment instanceof SimpleAlertDialog.OnCancelListener) {
-            ((SimpleAlertDialog.OnCancelListener) targetFragment)
-                    .onDialogCancel((SimpleAlertDialog) dialog,
-                            requestCode,
-                            ((SimpleAlertDialog) dialog).getView());
+        if (isRemoving()) {
+            DialogQueue.onRemoved(getFragmentManager(), getArguments());
         }
-        if (getActivity() != null
-                && getActivity() instanceof SimpleAlertDialog.OnCancelListener) {
-            ((SimpleAlertDialog.OnCancelListener) getActivity())
-                    .onDialogCancel((SimpleAlertDialog) dialog,
-                            requestCode,
-                            ((SimpleAlertDialog) dialog).getView());
+    }
+
+    @Override
+    public void onCancel(DialogInterface dialog) {
+        super.onCancel(dialog);
+        // Canceling after the click is a duplicate event
+        if (mDispatchTable != null && ((SimpleAlertDialog) dialog).tryDispatch()) {
+            mDispatchTable.onCancel((SimpleAlertDialog) dialog);
         }
     }
 
@@ -97,16 +149,45 @@ public class SimpleAlertDialogSupportFragment extends DialogFragment {
             return this;
         }
 
+        @Override
+        Object getTarget() {
+            return mTargetFragment;
+        }
+
         @Override
         public SimpleAlertDialogSupportFragment create() {
-            Bundle args = createArguments();
-            SimpleAlertDialogSupportFragment fragment = new SimpleAlertDialogSupportFragment();
-            fragment.setArguments(args);
+            SimpleAlertDialogSupportFragment fragment = newInstance(toSpec());
             if (mTargetFragment != null) {
                 fragment.setTargetFragment(mTargetFragment, 0);
             }
             return fragment;
         }
+
+        /**
+         * Creates the new dialog and shows it.<br/>
+         * The returned object completes when the dialog is closed,
+         * in addition to the listener interfaces.
+         *
+         * @param manager {@code FragmentManager} to show the dialog
+         * @param tag     Tag of the dialog fragment
+         * @return Pending result of the dialog
+         */
+        public PendingDialogResult showForResult(final FragmentManager manager, final String tag) {
+            PendingDialogResult result = PendingDialogResult.create();
+            setResultToken(result.getToken());
+            try {
+                SimpleAlertDialogSupportFragment fragment = create();
+                result.bind(manager, DialogSpec.requestCodeOf(fragment.getArguments()));
+                fragment.show(manager, tag);
+            } catch (RuntimeException e) {
+                // Never completed, so it must not be kept
+                result.discard();
+                throw e;
+            } finally {
+                setResultToken(null);
+            }
+            return result;
+        }
     }
 
 }
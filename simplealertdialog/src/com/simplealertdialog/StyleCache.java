@@ -0,0 +1,254 @@
+/*
+ * Copyright 2014 Soichiro Kashima
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.simplealertdialog;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.util.TypedValue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Process-wide cache of the resolved {@code SimpleAlertDialogStyle} attributes.<br/>
+ * Each entry is an immutable snapshot keyed by the dialog theme, the style
+ * referenced by {@code simpleAlertDialogStyle}, the {@code sad*} attributes set
+ * directly on the context theme and the density, UI mode and locale
+ * of the configuration.<br/>
+ * Entries are dropped when a different configuration is observed.
+ *
+ * @author Soichiro Kashima
+ */
+public final class StyleCache {
+
+    /**
+     * Immutable snapshot of the dialog styles.<br/>
+     * Drawables are only used as a source of {@code ConstantState},
+     * so they must not be attached to views directly.
+     */
+    static final class Styles {
+        final int listChoiceIndicatorSingle;
+        final int titleTextStyle;
+        final int messageTextStyle;
+        final int buttonTextStyle;
+        final int listItemTextStyle;
+        final Drawable listSelectorBackground;
+        final Drawable titleSeparatorBackground;
+        final int titleSeparatorHeight;
+        final Drawable buttonTopDividerBackground;
+        final Drawable buttonVerticalDividerBackground;
+        final Drawable backgroundFull;
+        final Drawable backgroundTop;
+        final Drawable backgroundMiddle;
+        final Drawable backgroundBottom;
+
+        Styles(final Context context) {
+            TypedArray a = context.getTheme().obtainStyledAttributes(null,
+                    R.styleable.SimpleAlertDialogStyle, R.attr.simpleAlertDialogStyle,
+                    R.style.Theme_SimpleAlertDialog);
+
+            listChoiceIndicatorSingle = a.getResourceId(
+                    R.styleable.SimpleAlertDialogStyle_sadListChoiceIndicatorSingle, 0);
+            titleTextStyle = a.getResourceId(R.styleable.SimpleAlertDialogStyle_sadTitleTextStyle, 0);
+            messageTextStyle = a.getResourceId(R.styleable.SimpleAlertDialogStyle_sadMessageTextStyle,
+                    0);
+            buttonTextStyle = a
+                    .getResourceId(R.styleable.SimpleAlertDialogStyle_sadButtonTextStyle, 0);
+            listItemTextStyle = a.getResourceId(
+                    R.styleable.SimpleAlertDialogStyle_sadListItemTextStyle,
+                    0);
+            listSelectorBackground = a
+                    .getDrawable(R.styleable.SimpleAlertDialogStyle_sadListSelectorBackground);
+            titleSeparatorBackground = a
+                    .getDrawable(R.styleable.SimpleAlertDialogStyle_sadTitleSeparatorBackground);
+            titleSeparatorHeight = a.getLayoutDimension(
+                    R.styleable.SimpleAlertDialogStyle_sadTitleSeparatorHeight,
+                    context.getResources().getDimensionPixelSize(
+                            R.dimen.sad__dialog_title_separator_height));
+            buttonTopDividerBackground = a
+                    .getDrawable(R.styleable.SimpleAlertDialogStyle_sadButtonTopDividerBackground);
+            buttonVerticalDividerBackground = a
+                    .getDrawable(R.styleable.SimpleAlertDialogStyle_sadButtonVerticalDividerBackground);
+            backgroundFull = a.getDrawable(R.styleable.SimpleAlertDialogStyle_sadBackgroundFull);
+            backgroundTop = a.getDrawable(R.styleable.SimpleAlertDialogStyle_sadBackgroundTop);
+            backgroundMiddle = a.getDrawable(R.styleable.SimpleAlertDialogStyle_sadBackgroundMiddle);
+            backgroundBottom = a.getDrawable(R.styleable.SimpleAlertDialogStyle_sadBackgroundBottom);
+
+            a.recycle();
+        }
+    }
+
+    private static final class Key {
+        private final int mThemeResId;
+        private final int mStyleResId;
+        private final int[] mThemeValues;
+        private final int mDensityDpi;
+        private final int mUiMode;
+        private final Locale mLocale;
+
+        Key(final int themeResId, final int styleResId, final int[] themeValues,
+            final int densityDpi, final int uiMode, final Locale locale) {
+            mThemeResId = themeResId;
+            mStyleResId = styleResId;
+            mThemeValues = themeValues;
+            mDensityDpi = densityDpi;
+            mUiMode = uiMode;
+            mLocale = locale;
+        }
+
+        boolean hasSameConfiguration(final Key other) {
+            return other != null
+                    && mDensityDpi == other.mDensityDpi
+                    && mUiMode == other.mUiMode
+                    && (mLocale == null ? other.mLocale == null : mLocale.equals(other.mLocale));
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return mThemeResId == other.mThemeResId
+                    && mStyleResId == other.mStyleResId
+                    && Arrays.equals(mThemeValues, other.mThemeValues)
+                    && hasSameConfiguration(other);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mThemeResId;
+            result = 31 * result + mStyleResId;
+            result = 31 * result + Arrays.hashCode(mThemeValues);
+            result = 31 * result + mDensityDpi;
+            result = 31 * result + mUiMode;
+            result = 31 * result + (mLocale != null ? mLocale.hashCode() : 0);
+            return result;
+        }
+    }
+
+    private static final Map<Key, Styles> sCache = new HashMap<Key, Styles>();
+    private static Key sLastKey;
+    private static int sHitCount;
+    private static int sMissCount;
+
+    private StyleCache() {
+    }
+
+    /**
+     * Returns the styles for the dialog context, resolving them only on the first call
+     * for the same theme and configuration.
+     *
+     * @param context    Themed context of the dialog
+     * @param themeResId Theme resource ID passed to the dialog, or 0 for the default theme
+     * @return Resolved styles
+     */
+    static Styles obtain(final Context context, final int themeResId) {
+        Key key = newKey(context, themeResId);
+        synchronized (StyleCache.class) {
+            if (!key.hasSameConfiguration(sLastKey)) {
+                // Configuration has been changed: resolved values are no longer valid
+                sCache.clear();
+            }
+            sLastKey = key;
+            Styles styles = sCache.get(key);
+            if (styles != null) {
+                sHitCount++;
+                return styles;
+            }
+            sMissCount++;
+        }
+        Styles styles = new Styles(context);
+        synchronized (StyleCache.class) {
+            if (key.hasSameConfiguration(sLastKey)) {
+                sCache.put(key, styles);
+            }
+        }
+        return styles;
+    }
+
+    /**
+     * Removes all of the cached styles.<br/>
+     * Counters are not reset.
+     */
+    public static synchronized void clear() {
+        sCache.clear();
+        sLastKey = null;
+    }
+
+    /**
+     * Returns the number of the cached styles.
+     *
+     * @return Number of the entries
+     */
+    public static synchronized int size() {
+        return sCache.size();
+    }
+
+    /**
+     * Returns how many times the styles were found in the cache.
+     *
+     * @return Hit count
+     */
+    public static synchronized int getHitCount() {
+        return sHitCount;
+    }
+
+    /**
+     * Returns how many times the styles had to be resolved from the theme.
+     *
+     * @return Miss count
+     */
+    public static synchronized int getMissCount() {
+        return sMissCount;
+    }
+
+    private static Key newKey(final Context context, final int themeResId) {
+        TypedValue value = new TypedValue();
+        int styleResId = 0;
+        if (context.getTheme().resolveAttribute(R.attr.simpleAlertDialogStyle, value, true)) {
+            styleResId = value.resourceId;
+        }
+        // The theme has no public resource ID, so the attributes set directly on it
+        // are compared instead: two Activity themes are only shared when they agree.
+        int[] attrs = R.styleable.SimpleAlertDialogStyle;
+        int[] themeValues = new int[attrs.length * 2];
+        for (int i = 0; i < attrs.length; i++) {
+            if (context.getTheme().resolveAttribute(attrs[i], value, false)) {
+                themeValues[i * 2] = value.type;
+                themeValues[i * 2 + 1] = value.data;
+            }
+        }
+        Resources res = context.getResources();
+        Configuration config = res.getConfiguration();
+        int uiMode = 0;
+        if (Build.VERSION_CODES.FROYO <= Build.VERSION.SDK_INT) {
+            uiMode = config.uiMode;
+        }
+        return new Key(themeResId, styleResId, themeValues, res.getDisplayMetrics().densityDpi,
+                uiMode, config.locale);
+    }
+}